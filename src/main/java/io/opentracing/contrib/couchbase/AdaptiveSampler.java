@@ -0,0 +1,235 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Samples towards a spans-per-second budget for every bucket and operation pair.
+ *
+ * <p>Each pair keeps a sampling probability which is recomputed once per interval from the
+ * observed traffic, plus a token bucket which caps the sampled spans to one second worth of
+ * budget while the probability catches up with a burst. Calls which pass the probability check
+ * are counted in a counter striped by thread, and the token bucket is only written while it still
+ * holds tokens, so that a burst of calls does not contend on a single word once the budget of the
+ * current second is spent.
+ */
+public class AdaptiveSampler implements Sampler {
+
+  private static final String NO_BUCKET = "";
+  private static final double MIN_PROBABILITY = 1e-6;
+  private static final int STRIPES = 8;
+  // one cache line of longs per stripe
+  private static final int STRIDE = 8;
+
+  private final double[] spansPerSecond = new double[Operation.count()];
+  private final long intervalNanos;
+  // rates of a bucket indexed by operation ordinal
+  private final ConcurrentMap<String, AtomicReferenceArray<OperationRate>> rates =
+      new ConcurrentHashMap<>();
+
+  public AdaptiveSampler(double spansPerSecond) {
+    this(spansPerSecond, new HashMap<String, Double>());
+  }
+
+  public AdaptiveSampler(double spansPerSecond, Map<String, Double> operationSpansPerSecond) {
+    this(spansPerSecond, operationSpansPerSecond, 1, TimeUnit.SECONDS);
+  }
+
+  /**
+   * @param spansPerSecond budget for operations without an explicit budget
+   * @param operationSpansPerSecond budget per operation name, applied to each bucket separately
+   * @param interval how often the sampling probability is adjusted
+   */
+  public AdaptiveSampler(double spansPerSecond, Map<String, Double> operationSpansPerSecond,
+      long interval, TimeUnit timeUnit) {
+    checkBudget(spansPerSecond);
+    if (interval <= 0) {
+      throw new IllegalArgumentException("Interval must be positive: " + interval);
+    }
+    Arrays.fill(this.spansPerSecond, spansPerSecond);
+    for (Entry<String, Double> entry : operationSpansPerSecond.entrySet()) {
+      checkBudget(entry.getValue());
+      this.spansPerSecond[Operation.forName(entry.getKey()).ordinal()] = entry.getValue();
+    }
+    this.intervalNanos = timeUnit.toNanos(interval);
+  }
+
+  @Override
+  public boolean sample(String bucketName, Operation operation) {
+    return rate(bucketName, operation).sample(System.nanoTime());
+  }
+
+  /**
+   * Returns the probability currently used for the operation. Operations which have not been seen
+   * yet are sampled with probability 1.0 until their first interval completes.
+   */
+  public double getEffectiveRate(String bucketName, Operation operation) {
+    AtomicReferenceArray<OperationRate> bucketRates = rates.get(key(bucketName));
+    OperationRate rate = bucketRates == null ? null : bucketRates.get(operation.ordinal());
+    return rate == null ? 1.0 : rate.probability;
+  }
+
+  /**
+   * Returns the current probabilities keyed by bucket name and then operation name. Cluster level
+   * operations are keyed by an empty bucket name.
+   */
+  public Map<String, Map<String, Double>> getEffectiveRates() {
+    Map<String, Map<String, Double>> result = new HashMap<>();
+    for (Entry<String, AtomicReferenceArray<OperationRate>> bucket : rates.entrySet()) {
+      Map<String, Double> operations = new HashMap<>();
+      AtomicReferenceArray<OperationRate> bucketRates = bucket.getValue();
+      for (int i = 0; i < bucketRates.length(); i++) {
+        OperationRate rate = bucketRates.get(i);
+        if (rate != null) {
+          operations.put(Operation.valueOf(i).getName(), rate.probability);
+        }
+      }
+      result.put(bucket.getKey(), operations);
+    }
+    return result;
+  }
+
+  private OperationRate rate(String bucketName, Operation operation) {
+    String bucketKey = key(bucketName);
+    AtomicReferenceArray<OperationRate> bucketRates = rates.get(bucketKey);
+    if (bucketRates == null) {
+      AtomicReferenceArray<OperationRate> created =
+          new AtomicReferenceArray<>(Operation.count());
+      bucketRates = rates.putIfAbsent(bucketKey, created);
+      if (bucketRates == null) {
+        bucketRates = created;
+      }
+    }
+
+    int index = operation.ordinal();
+    OperationRate rate = bucketRates.get(index);
+    if (rate == null) {
+      OperationRate created = new OperationRate(spansPerSecond[index], intervalNanos,
+          System.nanoTime());
+      if (bucketRates.compareAndSet(index, null, created)) {
+        rate = created;
+      } else {
+        rate = bucketRates.get(index);
+      }
+    }
+    return rate;
+  }
+
+  private static String key(String bucketName) {
+    return bucketName == null ? NO_BUCKET : bucketName;
+  }
+
+  private static void checkBudget(Double spansPerSecond) {
+    if (spansPerSecond == null || spansPerSecond < 0.0) {
+      throw new IllegalArgumentException("Spans per second must not be negative: "
+          + spansPerSecond);
+    }
+  }
+
+  static final class OperationRate {
+
+    private final double spansPerSecond;
+    private final long intervalNanos;
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+
+    volatile double probability = 1.0;
+    // only written by the thread which won the interval CAS
+    private volatile double trafficRate;
+    // calls which passed the probability check, striped by thread
+    private final AtomicLongArray candidates = new AtomicLongArray(STRIPES * STRIDE);
+    private final AtomicLong intervalStart;
+    // "theoretical arrival time" of the generic cell rate algorithm, a token bucket kept in a
+    // single word so that it can be updated with one CAS
+    private final AtomicLong theoreticalArrival;
+
+    OperationRate(double spansPerSecond, long intervalNanos, long now) {
+      this.spansPerSecond = spansPerSecond;
+      this.intervalNanos = intervalNanos;
+      long second = TimeUnit.SECONDS.toNanos(1);
+      this.emissionIntervalNanos = spansPerSecond > 0.0 ? (long) (second / spansPerSecond) : 0L;
+      this.burstNanos = Math.max(0L, second - emissionIntervalNanos);
+      this.intervalStart = new AtomicLong(now);
+      this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    boolean sample(long now) {
+      if (spansPerSecond <= 0.0) {
+        return false;
+      }
+      adjust(now);
+
+      double current = probability;
+      if (current < 1.0 && ThreadLocalRandom.current().nextDouble() >= current) {
+        return false;
+      }
+      candidates.incrementAndGet((int) (Thread.currentThread().getId() & (STRIPES - 1)) * STRIDE);
+      return tryAcquire(now);
+    }
+
+    private void adjust(long now) {
+      long start = intervalStart.get();
+      long elapsed = now - start;
+      if (elapsed < intervalNanos || !intervalStart.compareAndSet(start, now)) {
+        return;
+      }
+
+      // candidates passed the probability check, so the traffic is candidates / probability
+      double observed = drainCandidates() / probability
+          / ((double) elapsed / TimeUnit.SECONDS.toNanos(1));
+      // the previous estimate loses half of its weight per elapsed interval, which smooths out
+      // intervals with few candidates but forgets old traffic after an idle period
+      double weight = Math.pow(0.5, (double) elapsed / intervalNanos);
+      double rate = observed * (1.0 - weight) + trafficRate * weight;
+      trafficRate = rate;
+      if (rate <= spansPerSecond) {
+        probability = 1.0;
+      } else {
+        probability = Math.max(MIN_PROBABILITY, spansPerSecond / rate);
+      }
+    }
+
+    private long drainCandidates() {
+      long count = 0;
+      for (int i = 0; i < STRIPES; i++) {
+        count += candidates.getAndSet(i * STRIDE, 0);
+      }
+      return count;
+    }
+
+    private boolean tryAcquire(long now) {
+      while (true) {
+        long arrival = theoreticalArrival.get();
+        long base = Math.max(arrival, now);
+        if (base - now > burstNanos) {
+          return false;
+        }
+        if (theoreticalArrival.compareAndSet(arrival, base + emissionIntervalNanos)) {
+          return true;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import io.opentracing.Span;
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer.SpanBuilder;
+import io.opentracing.noop.NoopSpan;
+import io.opentracing.tag.Tags;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory record of an operation. On {@link #finish()} it is dropped if the {@link TailSampler}
+ * does not retain it, otherwise it is reported as a real span, either directly or through the
+ * {@link RingBufferRecorder}. Until then {@link #context()} is the noop context.
+ */
+final class DeferredSpan implements Span {
+
+  private final TracingHelper helper;
+  private final Operation operation;
+  private final SpanContext parent;
+  private final long startMicros;
+  private final long startNanos;
+  private String operationName;
+
+  private String[] tagKeys = new String[8];
+  private Object[] tagValues = new Object[8];
+  private int tagCount;
+  private boolean error;
+  private List<Object[]> logs;
+
+  DeferredSpan(TracingHelper helper, Operation operation, SpanContext parent) {
+    this.helper = helper;
+    this.operation = operation;
+    this.operationName = operation.getName();
+    this.parent = parent;
+    this.startMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    this.startNanos = System.nanoTime();
+  }
+
+  @Override
+  public SpanContext context() {
+    return NoopSpan.INSTANCE.context();
+  }
+
+  @Override
+  public Span setTag(String key, String value) {
+    return addTag(key, value);
+  }
+
+  @Override
+  public Span setTag(String key, boolean value) {
+    if (Tags.ERROR.getKey().equals(key)) {
+      error = value;
+    }
+    return addTag(key, value);
+  }
+
+  @Override
+  public Span setTag(String key, Number value) {
+    return addTag(key, value);
+  }
+
+  @Override
+  public Span log(Map<String, ?> fields) {
+    return log(nowMicros(), fields);
+  }
+
+  @Override
+  public Span log(long timestampMicroseconds, Map<String, ?> fields) {
+    return addLog(timestampMicroseconds, fields);
+  }
+
+  @Override
+  public Span log(String event) {
+    return log(nowMicros(), event);
+  }
+
+  @Override
+  public Span log(long timestampMicroseconds, String event) {
+    return addLog(timestampMicroseconds, event);
+  }
+
+  @Override
+  public Span setBaggageItem(String key, String value) {
+    return this;
+  }
+
+  @Override
+  public String getBaggageItem(String key) {
+    return null;
+  }
+
+  @Override
+  public Span setOperationName(String operationName) {
+    this.operationName = operationName;
+    return this;
+  }
+
+  @Override
+  public void finish() {
+    complete(System.nanoTime() - startNanos);
+  }
+
+  @Override
+  public void finish(long finishMicros) {
+    complete(TimeUnit.MICROSECONDS.toNanos(finishMicros - startMicros));
+  }
+
+  private void complete(long durationNanos) {
+    TailSampler tailSampler = helper.getTailSampler();
+    if (tailSampler != null
+        && !tailSampler.retain(helper.getBucketName(), operation, durationNanos, error)) {
+      return;
+    }
+
+    RingBufferRecorder recorder = helper.getRecorder();
+    if (recorder != null) {
+      recorder.record(helper, operationName, parent, startMicros, durationNanos, tagKeys,
+          tagValues, tagCount, logs);
+    } else {
+      report(helper, operationName, parent, startMicros, durationNanos, tagKeys, tagValues,
+          tagCount, logs);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  static void report(TracingHelper helper, String operationName, SpanContext parent,
+      long startMicros, long durationNanos, String[] tagKeys, Object[] tagValues, int tagCount,
+      List<Object[]> logs) {
+    SpanBuilder builder = helper.builder(operationName).withStartTimestamp(startMicros);
+    if (parent == null) {
+      builder.ignoreActiveSpan();
+    } else {
+      builder.asChildOf(parent);
+    }
+    Span span = builder.start();
+
+    for (int i = 0; i < tagCount; i++) {
+      Object value = tagValues[i];
+      if (value instanceof String) {
+        span.setTag(tagKeys[i], (String) value);
+      } else if (value instanceof Boolean) {
+        span.setTag(tagKeys[i], (Boolean) value);
+      } else {
+        span.setTag(tagKeys[i], (Number) value);
+      }
+    }
+    if (logs != null) {
+      for (Object[] log : logs) {
+        if (log[1] instanceof String) {
+          span.log((Long) log[0], (String) log[1]);
+        } else {
+          span.log((Long) log[0], (Map<String, ?>) log[1]);
+        }
+      }
+    }
+    span.finish(startMicros + TimeUnit.NANOSECONDS.toMicros(durationNanos));
+  }
+
+  private Span addTag(String key, Object value) {
+    if (tagCount == tagKeys.length) {
+      tagKeys = Arrays.copyOf(tagKeys, tagCount * 2);
+      tagValues = Arrays.copyOf(tagValues, tagCount * 2);
+    }
+    tagKeys[tagCount] = key;
+    tagValues[tagCount] = value;
+    tagCount++;
+    return this;
+  }
+
+  private Span addLog(long timestampMicroseconds, Object fieldsOrEvent) {
+    if (logs == null) {
+      logs = new ArrayList<>(2);
+    }
+    logs.add(new Object[]{timestampMicroseconds, fieldsOrEvent});
+    return this;
+  }
+
+  private long nowMicros() {
+    return startMicros + TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+  }
+}
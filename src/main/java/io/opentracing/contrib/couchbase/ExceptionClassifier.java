@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import com.couchbase.client.core.BackpressureException;
+import com.couchbase.client.java.error.CASMismatchException;
+import com.couchbase.client.java.error.DocumentAlreadyExistsException;
+import com.couchbase.client.java.error.DocumentDoesNotExistException;
+import com.couchbase.client.java.error.TemporaryFailureException;
+import com.couchbase.client.java.error.subdoc.PathExistsException;
+import com.couchbase.client.java.error.subdoc.PathNotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Maps exceptions thrown by Couchbase operations to an {@link Outcome}. An exception class is
+ * resolved against the configured types, including its superclasses, only once; the result is
+ * cached per class.
+ *
+ * <p>Blocking operations wrap a {@link TimeoutException} into a {@link RuntimeException}, so if
+ * the exception itself is not mapped its direct cause is classified as well.
+ */
+public class ExceptionClassifier {
+
+  public static final String OUTCOME_TAG = "outcome";
+
+  public static final ExceptionClassifier DEFAULT = new ExceptionClassifier(
+      new HashMap<Class<? extends Throwable>, Outcome>());
+
+  // cached for classes which are not mapped, as the cache cannot hold null
+  private static final Object UNMAPPED = new Object();
+
+  private final Map<Class<? extends Throwable>, Outcome> outcomes;
+  // an Outcome or UNMAPPED per class
+  private final ConcurrentMap<Class<?>, Object> cache = new ConcurrentHashMap<>();
+
+  /**
+   * @param outcomes outcomes per exception type, in addition to and overriding the defaults
+   */
+  public ExceptionClassifier(Map<Class<? extends Throwable>, Outcome> outcomes) {
+    this.outcomes = defaults();
+    this.outcomes.putAll(outcomes);
+  }
+
+  public Outcome classify(Throwable throwable) {
+    if (throwable == null) {
+      return Outcome.ERROR;
+    }
+    Outcome outcome = classify(throwable.getClass());
+    if (outcome == null) {
+      Throwable cause = throwable.getCause();
+      outcome = cause == null || cause == throwable ? null : classify(cause.getClass());
+    }
+    return outcome == null ? Outcome.ERROR : outcome;
+  }
+
+  /**
+   * @return {@code null} if neither the class nor one of its superclasses is mapped
+   */
+  private Outcome classify(Class<?> type) {
+    Object outcome = cache.get(type);
+    if (outcome == null) {
+      outcome = UNMAPPED;
+      for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+        Outcome mapped = outcomes.get(current);
+        if (mapped != null) {
+          outcome = mapped;
+          break;
+        }
+      }
+      cache.putIfAbsent(type, outcome);
+    }
+    return outcome == UNMAPPED ? null : (Outcome) outcome;
+  }
+
+  private static Map<Class<? extends Throwable>, Outcome> defaults() {
+    Map<Class<? extends Throwable>, Outcome> defaults = new HashMap<>();
+    defaults.put(DocumentDoesNotExistException.class, Outcome.MISS);
+    defaults.put(PathNotFoundException.class, Outcome.MISS);
+    defaults.put(DocumentAlreadyExistsException.class, Outcome.CONFLICT);
+    defaults.put(PathExistsException.class, Outcome.CONFLICT);
+    defaults.put(CASMismatchException.class, Outcome.CONFLICT);
+    defaults.put(TimeoutException.class, Outcome.TIMEOUT);
+    defaults.put(TemporaryFailureException.class, Outcome.TEMPORARY_FAILURE);
+    defaults.put(BackpressureException.class, Outcome.TEMPORARY_FAILURE);
+    return defaults;
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Finds the most frequent keys of a stream in bounded memory: a Count-Min sketch estimates how
+ * often each key occurred in the current interval and a small table keeps the keys with the
+ * highest estimates. Every row of the sketch uses its own seeded hash of the key's characters, so
+ * keys colliding in one row are unlikely to collide in the others.
+ *
+ * <p>The table is set-associative: a key can only be kept in the {@value #WAYS} slots of the set
+ * its hash selects, so a call reads at most {@value #WAYS} slots and never scans the table. A key
+ * replaces the entry with the smallest recorded count of its set once its estimate exceeds it.
+ * The recorded count of a key already in the table is only refreshed when the estimate doubled,
+ * so hot keys write to the table a logarithmic number of times per interval instead of on every
+ * access. Reported counts are always read from the sketch.
+ *
+ * <p>The sketch has one half per interval, alternating, so the previous interval stays available
+ * while the current one is counted. Every counter carries the low bits of the interval it counts
+ * and is reset by the first increment of a newer interval, so no call ever clears a whole half
+ * and increments racing with the start of an interval are not lost. Estimates never undercount
+ * and overcount by at most {@code e / WIDTH} of the interval's keys with high probability.
+ */
+final class HeavyHitters {
+
+  private static final int DEPTH = 4;
+  private static final int WIDTH = 1024;
+  private static final int HALF = DEPTH * WIDTH;
+  private static final int WAYS = 4;
+  private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+  // a counter keeps the low 24 bits of its interval above a 40 bit count
+  private static final int STAMP_SHIFT = 40;
+  private static final long COUNT_MASK = (1L << STAMP_SHIFT) - 1;
+
+  private final long originNanos;
+  private final long intervalNanos;
+  private final int size;
+  private final int setMask;
+  private final AtomicLongArray counts = new AtomicLongArray(2 * HALF);
+  private final AtomicReferenceArray<Candidate> top;
+
+  /**
+   * @param size number of keys reported, the table has room for at least twice as many
+   */
+  HeavyHitters(long originNanos, long intervalNanos, int size) {
+    this.originNanos = originNanos;
+    this.intervalNanos = intervalNanos;
+    this.size = size;
+    int sets = 1;
+    while (sets * WAYS < 2 * size) {
+      sets <<= 1;
+    }
+    this.setMask = sets - 1;
+    this.top = new AtomicReferenceArray<>(sets * WAYS);
+  }
+
+  void add(String key, long nowNanos) {
+    long epoch = epoch(nowNanos);
+    int half = (int) (epoch & 1);
+    int first = 0;
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < DEPTH; row++) {
+      int hash = hash(key, SEEDS[row]);
+      if (row == 0) {
+        first = hash;
+      }
+      estimate = Math.min(estimate, increment(index(half, row, hash), epoch));
+    }
+    if (estimate > 0) {
+      offer(key, first, estimate, epoch);
+    }
+  }
+
+  /**
+   * Counts an occurrence in the interval, returns the new count or 0 if the counter already
+   * belongs to a newer interval, which happens to calls that took longer than an interval.
+   */
+  private long increment(int index, long epoch) {
+    long stamp = epoch << STAMP_SHIFT;
+    while (true) {
+      long value = counts.get(index);
+      // the difference of the stamps, sign extended from 24 bits
+      long age = (stamp - (value & ~COUNT_MASK)) >> STAMP_SHIFT;
+      if (age == 0) {
+        if (counts.compareAndSet(index, value, value + 1)) {
+          return (value & COUNT_MASK) + 1;
+        }
+      } else if (age > 0) {
+        if (counts.compareAndSet(index, value, stamp | 1)) {
+          return 1;
+        }
+      } else {
+        return 0;
+      }
+    }
+  }
+
+  private long count(int index, long epoch) {
+    long value = counts.get(index);
+    return (value & ~COUNT_MASK) == epoch << STAMP_SHIFT ? value & COUNT_MASK : 0;
+  }
+
+  private void offer(String key, int hash, long estimate, long epoch) {
+    // the low bits of the hash select the column of the first row, the high bits the set
+    int set = ((hash >>> 16) & setMask) * WAYS;
+    int victim = -1;
+    Candidate replaced = null;
+    long victimCount = Long.MAX_VALUE;
+    for (int i = set; i < set + WAYS; i++) {
+      Candidate candidate = top.get(i);
+      // empty slots are used first, then those of the last interval which is still reported
+      long count = candidate == null ? -1 : candidate.epoch != epoch ? 0 : candidate.count;
+      if (count > 0 && candidate.hash == hash && candidate.key.equals(key)) {
+        if (estimate >= 2 * count) {
+          top.compareAndSet(i, candidate, new Candidate(key, hash, estimate, epoch));
+        }
+        return;
+      }
+      if (count < victimCount) {
+        victim = i;
+        replaced = candidate;
+        victimCount = count;
+      }
+    }
+
+    if (estimate > victimCount) {
+      // a lost race just leaves the key out until its next occurrence
+      top.compareAndSet(victim, replaced, new Candidate(key, hash, estimate, epoch));
+    }
+  }
+
+  /**
+   * Returns the current hot keys, most frequent first, with their estimated number of
+   * occurrences per second.
+   */
+  List<HotKey> getHotKeys(long nowNanos) {
+    long epoch = epoch(nowNanos);
+    List<HotKey> hotKeys = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    for (int i = 0; i < top.length(); i++) {
+      Candidate candidate = top.get(i);
+      // racing inserts may have put a key into the table twice
+      if (candidate == null || candidate.epoch < epoch - 1 || !seen.add(candidate.key)) {
+        continue;
+      }
+      long count = estimate(candidate.epoch, candidate.key);
+      if (count == 0) {
+        continue;
+      }
+      // the current interval has only been running since its start
+      long elapsedNanos = candidate.epoch == epoch
+          ? Math.max(1, nowNanos - originNanos - (epoch - 1) * intervalNanos) : intervalNanos;
+      hotKeys.add(new HotKey(candidate.key, count, count * 1e9 / elapsedNanos));
+    }
+    Collections.sort(hotKeys, new Comparator<HotKey>() {
+      @Override
+      public int compare(HotKey first, HotKey second) {
+        return Long.compare(second.count, first.count);
+      }
+    });
+    return hotKeys.size() > size ? hotKeys.subList(0, size) : hotKeys;
+  }
+
+  private long estimate(long epoch, String key) {
+    int half = (int) (epoch & 1);
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < DEPTH; row++) {
+      estimate = Math.min(estimate, count(index(half, row, hash(key, SEEDS[row])), epoch));
+    }
+    return estimate;
+  }
+
+  private long epoch(long nowNanos) {
+    // starts at 1, epoch 0 marks halves which were never used
+    return (nowNanos - originNanos) / intervalNanos + 1;
+  }
+
+  private static int index(int half, int row, int hash) {
+    return half * HALF + row * WIDTH + (hash & (WIDTH - 1));
+  }
+
+  /**
+   * MurmurHash3 of the characters of the key, a different seed per row gives independent rows.
+   */
+  static int hash(String key, int seed) {
+    int hash = seed;
+    for (int i = 0; i < key.length(); i++) {
+      int k = key.charAt(i) * 0xCC9E2D51;
+      k = Integer.rotateLeft(k, 15) * 0x1B873593;
+      hash = Integer.rotateLeft(hash ^ k, 13) * 5 + 0xE6546B64;
+    }
+    hash ^= key.length();
+    hash ^= hash >>> 16;
+    hash *= 0x85EBCA6B;
+    hash ^= hash >>> 13;
+    hash *= 0xC2B2AE35;
+    return hash ^ (hash >>> 16);
+  }
+
+  static final class HotKey {
+
+    final String key;
+    final long count;
+    final double rate;
+
+    HotKey(String key, long count, double rate) {
+      this.key = key;
+      this.count = count;
+      this.rate = rate;
+    }
+  }
+
+  private static final class Candidate {
+
+    private final String key;
+    private final int hash;
+    // estimate when the entry was written, at least half of the current one
+    private final long count;
+    private final long epoch;
+
+    Candidate(String key, int hash, long count, long epoch) {
+      this.key = key;
+      this.hash = hash;
+      this.count = count;
+      this.epoch = epoch;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import com.couchbase.client.java.document.Document;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+/**
+ * Detects hot documents from the ids passed to the key-value and data structure operations of
+ * {@link TracingBucket}, independent of sampling. Reads and writes are tracked separately per
+ * bucket, each with a {@link HeavyHitters} sketch of fixed size.
+ */
+public class HotKeys implements HotKeysMBean {
+
+  private static final String[] ITEMS = {"bucket", "access", "id", "count", "rate"};
+  private static final CompositeType ROW_TYPE;
+  private static final TabularType TABLE_TYPE;
+
+  static {
+    try {
+      ROW_TYPE = new CompositeType("HotKey", "Frequently accessed document", ITEMS, ITEMS,
+          new OpenType<?>[]{SimpleType.STRING, SimpleType.STRING, SimpleType.STRING,
+              SimpleType.LONG, SimpleType.DOUBLE});
+      TABLE_TYPE = new TabularType("HotKeys", "Hot documents per bucket", ROW_TYPE,
+          new String[]{"bucket", "access", "id"});
+    } catch (OpenDataException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private final long originNanos = System.nanoTime();
+  private final int size;
+  private final long intervalNanos;
+  private final ConcurrentMap<String, HeavyHitters[]> buckets = new ConcurrentHashMap<>();
+
+  /**
+   * Keeps the 16 most frequent reads and writes per bucket over intervals of 10 seconds.
+   */
+  public HotKeys() {
+    this(16, 10, TimeUnit.SECONDS);
+  }
+
+  /**
+   * @param size number of hot keys kept for reads and for writes of each bucket
+   * @param interval interval over which accesses are counted
+   */
+  public HotKeys(int size, long interval, TimeUnit timeUnit) {
+    if (size <= 0 || interval <= 0) {
+      throw new IllegalArgumentException("size and interval must be positive");
+    }
+    this.size = size;
+    this.intervalNanos = timeUnit.toNanos(interval);
+  }
+
+  /**
+   * Returns the sketches of reads and writes of the bucket.
+   *
+   * @param bucketName {@code null} if the bucket name is not known
+   */
+  HeavyHitters[] forBucket(String bucketName) {
+    String key = bucketName == null ? "" : bucketName;
+    HeavyHitters[] sketches = buckets.get(key);
+    if (sketches == null) {
+      HeavyHitters[] created = {
+          new HeavyHitters(originNanos, intervalNanos, size),
+          new HeavyHitters(originNanos, intervalNanos, size)};
+      sketches = buckets.putIfAbsent(key, created);
+      if (sketches == null) {
+        sketches = created;
+      }
+    }
+    return sketches;
+  }
+
+  static void record(HeavyHitters[] sketches, Operation operation, String id) {
+    if (id != null) {
+      sketches[operation.isRead() ? 0 : 1].add(id, System.nanoTime());
+    }
+  }
+
+  static void record(HeavyHitters[] sketches, Operation operation, Document<?> document) {
+    if (document != null) {
+      record(sketches, operation, document.id());
+    }
+  }
+
+  @Override
+  public TabularData getHotKeys() {
+    long nowNanos = System.nanoTime();
+    TabularDataSupport table = new TabularDataSupport(TABLE_TYPE);
+    for (Map.Entry<String, HeavyHitters[]> entry : buckets.entrySet()) {
+      add(table, entry.getKey(), "read", entry.getValue()[0], nowNanos);
+      add(table, entry.getKey(), "write", entry.getValue()[1], nowNanos);
+    }
+    return table;
+  }
+
+  private static void add(TabularDataSupport table, String bucketName, String access,
+      HeavyHitters sketch, long nowNanos) {
+    for (HeavyHitters.HotKey hotKey : sketch.getHotKeys(nowNanos)) {
+      try {
+        table.put(new CompositeDataSupport(ROW_TYPE, ITEMS,
+            new Object[]{bucketName, access, hotKey.key, hotKey.count, hotKey.rate}));
+      } catch (OpenDataException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /**
+   * Registers the detector with the platform MBean server as
+   * {@code io.opentracing.contrib.couchbase:type=HotKeys,name=<name>}.
+   */
+  public ObjectName register(String name) throws JMException {
+    ObjectName objectName = objectName(name);
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+    return objectName;
+  }
+
+  public void unregister(String name) throws JMException {
+    ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+  }
+
+  private static ObjectName objectName(String name) throws JMException {
+    return new ObjectName(TracingControl.DOMAIN + ":type=HotKeys,name=" + ObjectName.quote(name));
+  }
+}
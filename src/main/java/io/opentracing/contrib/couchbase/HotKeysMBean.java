@@ -0,0 +1,28 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import javax.management.openmbean.TabularData;
+
+/**
+ * Management interface of {@link HotKeys}.
+ */
+public interface HotKeysMBean {
+
+  /**
+   * One row per bucket, access ("read" or "write") and hot document id with the estimated number
+   * of accesses in the current or last interval and the rate per second.
+   */
+  TabularData getHotKeys();
+}
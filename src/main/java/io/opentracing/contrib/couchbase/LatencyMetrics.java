@@ -0,0 +1,369 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+/**
+ * Latency distributions of every call of {@link TracingBucket}, {@link TracingCluster} and
+ * {@link TracingClusterManager}, independent of sampling and of the tracer. Latencies are kept
+ * per bucket and operation over a sliding window, see {@link LatencyWindow}, next to cumulative
+ * counters which are served by the {@link OpenMetricsServer}. The metrics of an operation are only
+ * allocated when it is first called.
+ */
+public class LatencyMetrics implements LatencyMetricsMBean {
+
+  private static final String[] ITEMS = {
+      "bucket", "operation", "count", "p50", "p90", "p99", "p999", "max"};
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+  private static final String[] SIZE_ITEMS = {
+      "bucket", "operation", "count", "mean", "p50", "p99", "max"};
+  private static final String[] OUTCOME_ITEMS = {"bucket", "operation", "outcome", "count", "rate"};
+  private static final String[] EXCEPTION_ITEMS = {"bucket", "operation", "exception", "count"};
+  private static final String[] BUDGET_ITEMS = {
+      "bucket", "operation", "count", "p50", "p99", "max", "atRisk"};
+  private static final CompositeType ROW_TYPE;
+  private static final TabularType TABLE_TYPE;
+  private static final CompositeType SIZE_ROW_TYPE;
+  private static final TabularType SIZE_TABLE_TYPE;
+  private static final CompositeType OUTCOME_ROW_TYPE;
+  private static final TabularType OUTCOME_TABLE_TYPE;
+  private static final CompositeType EXCEPTION_ROW_TYPE;
+  private static final TabularType EXCEPTION_TABLE_TYPE;
+  private static final CompositeType BUDGET_ROW_TYPE;
+  private static final TabularType BUDGET_TABLE_TYPE;
+
+  static {
+    try {
+      ROW_TYPE = new CompositeType("Latency", "Latency of an operation in microseconds", ITEMS,
+          ITEMS, new OpenType<?>[]{SimpleType.STRING, SimpleType.STRING, SimpleType.LONG,
+          SimpleType.LONG, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG});
+      TABLE_TYPE = new TabularType("Latencies", "Latencies per bucket and operation", ROW_TYPE,
+          new String[]{"bucket", "operation"});
+      SIZE_ROW_TYPE = new CompositeType("DocumentSize", "Payload size of an operation in bytes",
+          SIZE_ITEMS, SIZE_ITEMS, new OpenType<?>[]{SimpleType.STRING, SimpleType.STRING,
+          SimpleType.LONG, SimpleType.DOUBLE, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG});
+      SIZE_TABLE_TYPE = new TabularType("DocumentSizes", "Payload sizes per bucket and operation",
+          SIZE_ROW_TYPE, new String[]{"bucket", "operation"});
+      OUTCOME_ROW_TYPE = new CompositeType("Outcome", "Calls of an operation with an outcome",
+          OUTCOME_ITEMS, OUTCOME_ITEMS, new OpenType<?>[]{SimpleType.STRING, SimpleType.STRING,
+          SimpleType.STRING, SimpleType.LONG, SimpleType.DOUBLE});
+      OUTCOME_TABLE_TYPE = new TabularType("Outcomes", "Calls per bucket, operation and outcome",
+          OUTCOME_ROW_TYPE, new String[]{"bucket", "operation", "outcome"});
+      EXCEPTION_ROW_TYPE = new CompositeType("Exception", "Failed calls with an exception type",
+          EXCEPTION_ITEMS, EXCEPTION_ITEMS, new OpenType<?>[]{SimpleType.STRING,
+          SimpleType.STRING, SimpleType.STRING, SimpleType.LONG});
+      EXCEPTION_TABLE_TYPE = new TabularType("Exceptions",
+          "Failed calls per bucket, operation and exception type", EXCEPTION_ROW_TYPE,
+          new String[]{"bucket", "operation", "exception"});
+      BUDGET_ROW_TYPE = new CompositeType("TimeoutBudget",
+          "Elapsed time of calls of an operation divided by their timeout", BUDGET_ITEMS,
+          BUDGET_ITEMS, new OpenType<?>[]{SimpleType.STRING, SimpleType.STRING, SimpleType.LONG,
+          SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.BOOLEAN});
+      BUDGET_TABLE_TYPE = new TabularType("TimeoutBudgets",
+          "Timeout utilization per bucket and operation", BUDGET_ROW_TYPE,
+          new String[]{"bucket", "operation"});
+    } catch (OpenDataException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private final long originNanos = System.nanoTime();
+  private final long intervalNanos;
+  private final int intervals;
+  private final ConcurrentMap<String, AtomicReferenceArray<OperationMetrics>> buckets =
+      new ConcurrentHashMap<>();
+  private volatile double timeoutBudgetThreshold = 0.8;
+
+  /**
+   * Keeps the latencies of the last minute in intervals of 10 seconds.
+   */
+  public LatencyMetrics() {
+    this(10, TimeUnit.SECONDS, 6);
+  }
+
+  /**
+   * @param interval granularity in which old latencies leave the window
+   * @param intervals number of intervals in the window
+   */
+  public LatencyMetrics(long interval, TimeUnit timeUnit, int intervals) {
+    if (interval <= 0 || intervals <= 0) {
+      throw new IllegalArgumentException("interval and intervals must be positive");
+    }
+    this.intervalNanos = timeUnit.toNanos(interval);
+    this.intervals = intervals;
+  }
+
+  /**
+   * Returns the metrics of the bucket indexed by operation ordinal.
+   *
+   * @param bucketName {@code null} for operations of the cluster and the cluster manager
+   */
+  AtomicReferenceArray<OperationMetrics> forBucket(String bucketName) {
+    String key = bucketName == null ? "" : bucketName;
+    AtomicReferenceArray<OperationMetrics> metrics = buckets.get(key);
+    if (metrics == null) {
+      AtomicReferenceArray<OperationMetrics> created =
+          new AtomicReferenceArray<>(Operation.count());
+      metrics = buckets.putIfAbsent(key, created);
+      if (metrics == null) {
+        metrics = created;
+      }
+    }
+    return metrics;
+  }
+
+  /**
+   * Returns the metrics of the operation, allocating them on first use.
+   */
+  OperationMetrics get(AtomicReferenceArray<OperationMetrics> metrics, Operation operation) {
+    OperationMetrics current = metrics.get(operation.ordinal());
+    if (current == null) {
+      metrics.compareAndSet(operation.ordinal(), null,
+          new OperationMetrics(new LatencyWindow(originNanos, intervalNanos, intervals),
+              new OutcomeCounters(originNanos, intervalNanos)));
+      current = metrics.get(operation.ordinal());
+    }
+    return current;
+  }
+
+  /**
+   * Returns the metrics of all operations which were called, keyed by bucket name.
+   */
+  Map<String, AtomicReferenceArray<OperationMetrics>> getBuckets() {
+    return buckets;
+  }
+
+  @Override
+  public TabularData getLatencies() {
+    long nowNanos = System.nanoTime();
+    TabularDataSupport table = new TabularDataSupport(TABLE_TYPE);
+    for (Map.Entry<String, AtomicReferenceArray<OperationMetrics>> entry : buckets.entrySet()) {
+      AtomicReferenceArray<OperationMetrics> metrics = entry.getValue();
+      for (int i = 0; i < metrics.length(); i++) {
+        OperationMetrics operation = metrics.get(i);
+        if (operation == null) {
+          continue;
+        }
+        LatencyWindow.Snapshot snapshot = operation.getWindow().snapshot(nowNanos);
+        Object[] values = new Object[ITEMS.length];
+        values[0] = entry.getKey();
+        values[1] = Operation.valueOf(i).getName();
+        values[2] = snapshot.getCount();
+        for (int p = 0; p < PERCENTILES.length; p++) {
+          values[3 + p] = snapshot.getValueAtPercentile(PERCENTILES[p]);
+        }
+        values[7] = snapshot.getMax();
+        try {
+          table.put(new CompositeDataSupport(ROW_TYPE, ITEMS, values));
+        } catch (OpenDataException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    }
+    return table;
+  }
+
+  @Override
+  public TabularData getDocumentSizes() {
+    TabularDataSupport table = new TabularDataSupport(SIZE_TABLE_TYPE);
+    for (Map.Entry<String, AtomicReferenceArray<OperationMetrics>> entry : buckets.entrySet()) {
+      AtomicReferenceArray<OperationMetrics> metrics = entry.getValue();
+      for (int i = 0; i < metrics.length(); i++) {
+        OperationMetrics operation = metrics.get(i);
+        LatencyHistogram sizes = operation == null ? null : operation.getSizes();
+        if (sizes == null) {
+          continue;
+        }
+        try {
+          table.put(new CompositeDataSupport(SIZE_ROW_TYPE, SIZE_ITEMS, new Object[]{
+              entry.getKey(), Operation.valueOf(i).getName(), sizes.getCount(), sizes.getMean(),
+              sizes.getValueAtPercentile(50), sizes.getValueAtPercentile(99), sizes.getMax()}));
+        } catch (OpenDataException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    }
+    return table;
+  }
+
+  @Override
+  public TabularData getOutcomes() {
+    long nowNanos = System.nanoTime();
+    TabularDataSupport table = new TabularDataSupport(OUTCOME_TABLE_TYPE);
+    for (Map.Entry<String, AtomicReferenceArray<OperationMetrics>> entry : buckets.entrySet()) {
+      AtomicReferenceArray<OperationMetrics> metrics = entry.getValue();
+      for (int i = 0; i < metrics.length(); i++) {
+        OperationMetrics operation = metrics.get(i);
+        if (operation == null) {
+          continue;
+        }
+        OutcomeCounters outcomes = operation.getOutcomes();
+        for (Outcome outcome : Outcome.values()) {
+          try {
+            table.put(new CompositeDataSupport(OUTCOME_ROW_TYPE, OUTCOME_ITEMS, new Object[]{
+                entry.getKey(), Operation.valueOf(i).getName(), outcome.getTagValue(),
+                outcomes.getCount(outcome), outcomes.getRate(outcome, nowNanos)}));
+          } catch (OpenDataException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      }
+    }
+    return table;
+  }
+
+  @Override
+  public TabularData getExceptions() {
+    TabularDataSupport table = new TabularDataSupport(EXCEPTION_TABLE_TYPE);
+    for (Map.Entry<String, AtomicReferenceArray<OperationMetrics>> entry : buckets.entrySet()) {
+      AtomicReferenceArray<OperationMetrics> metrics = entry.getValue();
+      for (int i = 0; i < metrics.length(); i++) {
+        OperationMetrics operation = metrics.get(i);
+        if (operation == null) {
+          continue;
+        }
+        for (Map.Entry<String, AtomicLong> exception
+            : operation.getOutcomes().getExceptions().entrySet()) {
+          try {
+            table.put(new CompositeDataSupport(EXCEPTION_ROW_TYPE, EXCEPTION_ITEMS, new Object[]{
+                entry.getKey(), Operation.valueOf(i).getName(), exception.getKey(),
+                exception.getValue().get()}));
+          } catch (OpenDataException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      }
+    }
+    return table;
+  }
+
+  @Override
+  public TabularData getTimeoutBudgets() {
+    long nowNanos = System.nanoTime();
+    double threshold = timeoutBudgetThreshold;
+    TabularDataSupport table = new TabularDataSupport(BUDGET_TABLE_TYPE);
+    for (Map.Entry<String, AtomicReferenceArray<OperationMetrics>> entry : buckets.entrySet()) {
+      AtomicReferenceArray<OperationMetrics> metrics = entry.getValue();
+      for (int i = 0; i < metrics.length(); i++) {
+        LatencyWindow.Snapshot budgets = budgets(metrics.get(i), nowNanos);
+        if (budgets == null) {
+          continue;
+        }
+        double p99 = budgets.getValueAtPercentile(99) / 1000.0;
+        try {
+          table.put(new CompositeDataSupport(BUDGET_ROW_TYPE, BUDGET_ITEMS, new Object[]{
+              entry.getKey(), Operation.valueOf(i).getName(), budgets.getCount(),
+              budgets.getValueAtPercentile(50) / 1000.0, p99, budgets.getMax() / 1000.0,
+              p99 > threshold}));
+        } catch (OpenDataException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    }
+    return table;
+  }
+
+  @Override
+  public String[] getOperationsAtRisk() {
+    long nowNanos = System.nanoTime();
+    double threshold = timeoutBudgetThreshold;
+    List<String> atRisk = new ArrayList<>();
+    for (Map.Entry<String, AtomicReferenceArray<OperationMetrics>> entry : buckets.entrySet()) {
+      AtomicReferenceArray<OperationMetrics> metrics = entry.getValue();
+      for (int i = 0; i < metrics.length(); i++) {
+        LatencyWindow.Snapshot budgets = budgets(metrics.get(i), nowNanos);
+        if (budgets != null && budgets.getValueAtPercentile(99) / 1000.0 > threshold) {
+          atRisk.add(entry.getKey() + "/" + Operation.valueOf(i).getName());
+        }
+      }
+    }
+    return atRisk.toArray(new String[atRisk.size()]);
+  }
+
+  /**
+   * @return {@code null} if the operation had no call with a timeout within the window
+   */
+  private static LatencyWindow.Snapshot budgets(OperationMetrics operation, long nowNanos) {
+    LatencyWindow budgets = operation == null ? null : operation.getBudgets();
+    if (budgets == null) {
+      return null;
+    }
+    LatencyWindow.Snapshot snapshot = budgets.snapshot(nowNanos);
+    return snapshot.getCount() == 0 ? null : snapshot;
+  }
+
+  @Override
+  public double getTimeoutBudgetThreshold() {
+    return timeoutBudgetThreshold;
+  }
+
+  @Override
+  public void setTimeoutBudgetThreshold(double threshold) {
+    if (threshold <= 0) {
+      throw new IllegalArgumentException("threshold must be positive");
+    }
+    this.timeoutBudgetThreshold = threshold;
+  }
+
+  @Override
+  public long getValueAtPercentile(String bucketName, String operationName,
+      double percentile) {
+    AtomicReferenceArray<OperationMetrics> metrics =
+        buckets.get(bucketName == null ? "" : bucketName);
+    if (metrics == null) {
+      return 0;
+    }
+    OperationMetrics operation = metrics.get(Operation.forName(operationName).ordinal());
+    return operation == null ? 0
+        : operation.getWindow().snapshot(System.nanoTime()).getValueAtPercentile(percentile);
+  }
+
+  /**
+   * Registers these metrics with the platform MBean server as
+   * {@code io.opentracing.contrib.couchbase:type=LatencyMetrics,name=<name>}.
+   */
+  public ObjectName register(String name) throws JMException {
+    ObjectName objectName = objectName(name);
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+    return objectName;
+  }
+
+  public void unregister(String name) throws JMException {
+    ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+  }
+
+  private static ObjectName objectName(String name) throws JMException {
+    return new ObjectName(
+        TracingControl.DOMAIN + ":type=LatencyMetrics,name=" + ObjectName.quote(name));
+  }
+}
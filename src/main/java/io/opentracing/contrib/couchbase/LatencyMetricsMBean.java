@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import javax.management.openmbean.TabularData;
+
+/**
+ * Management interface of {@link LatencyMetrics}. All latencies are in microseconds and cover the
+ * sliding window only.
+ */
+public interface LatencyMetricsMBean {
+
+  /**
+   * One row per bucket and operation with count, p50, p90, p99, p999 and max. Operations of the
+   * cluster and the cluster manager have an empty bucket name.
+   */
+  TabularData getLatencies();
+
+  /**
+   * One row per bucket and operation with the number of payloads, their mean, p50, p99 and max
+   * size in bytes since start. Only operations which move documents of known size have a row.
+   */
+  TabularData getDocumentSizes();
+
+  /**
+   * One row per bucket, operation and {@link Outcome} with the number of calls since start and
+   * the calls per second over the current and the last interval of the window.
+   */
+  TabularData getOutcomes();
+
+  /**
+   * One row per bucket, operation and exception class with the number of failed calls since
+   * start. Exception types beyond the first 16 of an operation are counted as "other".
+   */
+  TabularData getExceptions();
+
+  /**
+   * One row per bucket and operation called with an explicit timeout, with the number of calls
+   * and p50, p99 and max of elapsed time divided by timeout over the window. Rows whose p99 is
+   * above the {@link #getTimeoutBudgetThreshold() threshold} are marked as at risk.
+   */
+  TabularData getTimeoutBudgets();
+
+  /**
+   * @return "bucket/operation" of every operation whose p99 timeout utilization is above the
+   * threshold
+   */
+  String[] getOperationsAtRisk();
+
+  /**
+   * @return share of the timeout above which an operation is at risk, 0.8 by default
+   */
+  double getTimeoutBudgetThreshold();
+
+  void setTimeoutBudgetThreshold(double threshold);
+
+  /**
+   * @param bucketName the bucket, empty for operations of the cluster and the cluster manager
+   * @param operationName name of the operation, e.g. "get"
+   * @param percentile between 0 and 100
+   * @return 0 if nothing was recorded
+   */
+  long getValueAtPercentile(String bucketName, String operationName, double percentile);
+}
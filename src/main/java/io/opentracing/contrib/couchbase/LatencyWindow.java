@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latencies of one operation of one bucket over a sliding window. The window is a ring of
+ * intervals, each with the log-linear buckets of {@link LatencyHistogram}; the oldest interval is
+ * cleared and reused when time moves on. Recording increments a single counter and only touches
+ * the maximum when it grows, so there is no counter shared by every call.
+ *
+ * <p>Calls with similar latencies all hit the same bucket, so the counters are striped like a
+ * {@code LongAdder}: there is one set of counters until an increment fails because of a
+ * concurrent one, after which every thread counts in the stripe of its thread id. Windows which
+ * are never contended keep a single set of counters.
+ *
+ * <p>Recordings racing with the reset of their interval may be lost, which is acceptable for a
+ * statistic over thousands of calls.
+ */
+final class LatencyWindow {
+
+  // latencies are recorded in microseconds, larger values fall into the last bucket
+  private static final long MAX_MICROS = (1L << 32) - 1;
+  static final int BUCKETS = LatencyHistogram.index(MAX_MICROS) + 1;
+  private static final int STRIPES = 8;
+
+  private final long originNanos;
+  private final long intervalNanos;
+  private final int intervals;
+  // intervals * BUCKETS counters per stripe, allocated once the window is contended
+  private final AtomicReferenceArray<AtomicLongArray> stripes =
+      new AtomicReferenceArray<>(STRIPES);
+  private volatile boolean contended;
+  private final AtomicLongArray epochs;
+  private final AtomicLongArray max;
+
+  LatencyWindow(long originNanos, long intervalNanos, int intervals) {
+    this.originNanos = originNanos;
+    this.intervalNanos = intervalNanos;
+    this.intervals = intervals;
+    stripes.set(0, new AtomicLongArray(intervals * BUCKETS));
+    this.epochs = new AtomicLongArray(intervals);
+    this.max = new AtomicLongArray(intervals);
+  }
+
+  /**
+   * Returns an empty window over the same intervals, for other values of the operation.
+   */
+  LatencyWindow emptyCopy() {
+    return new LatencyWindow(originNanos, intervalNanos, intervals);
+  }
+
+  void record(long latencyNanos, long nowNanos) {
+    recordValue(latencyNanos / 1000, nowNanos);
+  }
+
+  /**
+   * Records a value other than a latency, e.g. a ratio in per mille. The snapshot reports it in
+   * the same unit where it mentions microseconds.
+   */
+  void recordValue(long value, long nowNanos) {
+    long epoch = epoch(nowNanos);
+    int interval = (int) (epoch % intervals);
+    long current = epochs.get(interval);
+    if (current < epoch && epochs.compareAndSet(interval, current, epoch)) {
+      clear(interval);
+    }
+
+    long micros = Math.min(Math.max(0, value), MAX_MICROS);
+    int index = interval * BUCKETS + LatencyHistogram.index(micros);
+    if (!contended) {
+      AtomicLongArray counts = stripes.get(0);
+      long count = counts.get(index);
+      if (counts.compareAndSet(index, count, count + 1)) {
+        updateMax(interval, micros);
+        return;
+      }
+      contended = true;
+    }
+    stripe((int) (Thread.currentThread().getId() & (STRIPES - 1))).incrementAndGet(index);
+    updateMax(interval, micros);
+  }
+
+  private void updateMax(int interval, long micros) {
+    long previous = max.get(interval);
+    while (micros > previous && !max.compareAndSet(interval, previous, micros)) {
+      previous = max.get(interval);
+    }
+  }
+
+  /**
+   * Merges the intervals which are still inside the window.
+   */
+  Snapshot snapshot(long nowNanos) {
+    long epoch = epoch(nowNanos);
+    long[] merged = new long[BUCKETS];
+    long count = 0;
+    long maximum = 0;
+    for (int interval = 0; interval < intervals; interval++) {
+      long recorded = epochs.get(interval);
+      if (recorded == 0 || recorded > epoch || recorded <= epoch - intervals) {
+        continue;
+      }
+      for (int stripe = 0; stripe < STRIPES; stripe++) {
+        AtomicLongArray counts = stripes.get(stripe);
+        for (int i = 0; counts != null && i < BUCKETS; i++) {
+          long value = counts.get(interval * BUCKETS + i);
+          merged[i] += value;
+          count += value;
+        }
+      }
+      maximum = Math.max(maximum, max.get(interval));
+    }
+    return new Snapshot(merged, count, maximum);
+  }
+
+  private long epoch(long nowNanos) {
+    // starts at 1, epoch 0 marks intervals which were never used
+    return (nowNanos - originNanos) / intervalNanos + 1;
+  }
+
+  private AtomicLongArray stripe(int stripe) {
+    AtomicLongArray counts = stripes.get(stripe);
+    if (counts == null) {
+      stripes.compareAndSet(stripe, null, new AtomicLongArray(intervals * BUCKETS));
+      counts = stripes.get(stripe);
+    }
+    return counts;
+  }
+
+  private void clear(int interval) {
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      AtomicLongArray counts = stripes.get(stripe);
+      for (int i = 0; counts != null && i < BUCKETS; i++) {
+        counts.set(interval * BUCKETS + i, 0);
+      }
+    }
+    max.set(interval, 0);
+  }
+
+  static final class Snapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long max;
+
+    private Snapshot(long[] counts, long count, long max) {
+      this.counts = counts;
+      this.count = count;
+      this.max = max;
+    }
+
+    long getCount() {
+      return count;
+    }
+
+    /**
+     * @return maximum in microseconds, 0 if nothing was recorded
+     */
+    long getMax() {
+      return max;
+    }
+
+    /**
+     * Returns the upper bound in microseconds of the bucket which contains the value at the
+     * percentile, capped at the maximum.
+     *
+     * @param percentile between 0 and 100
+     * @return 0 if nothing was recorded
+     */
+    long getValueAtPercentile(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(LatencyHistogram.highestValue(i), max);
+        }
+      }
+      return max;
+    }
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer;
+import io.opentracing.propagation.Format;
+import io.opentracing.propagation.TextMapInjectAdapter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Serves the {@link LatencyMetrics} of a {@link TracingHelper} in the OpenMetrics text format on
+ * {@code /metrics}, using the HTTP server built into the JDK:
+ *
+ * <ul>
+ * <li>{@code couchbase_client_operations_total} calls per bucket, operation and outcome</li>
+ * <li>{@code couchbase_client_exceptions_total} failures per bucket, operation and exception
+ * type</li>
+ * <li>{@code couchbase_client_operation_duration_seconds} histogram per bucket and operation</li>
+ * <li>{@code couchbase_client_document_size_bytes} summary of payload sizes per bucket and
+ * operation, for operations moving documents of known size</li>
+ * </ul>
+ *
+ * <p>The bucket of the most recent traced call of an operation carries it as exemplar with its
+ * trace id, so a dashboard can link from a latency spike to a trace. The trace id is taken from
+ * the span context injected by the tracer, which works for tracers propagating B3, Jaeger or
+ * OpenTracing's basic tracer headers.
+ */
+public class OpenMetricsServer {
+
+  public static final String CONTENT_TYPE =
+      "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String OPERATIONS = "couchbase_client_operations";
+  private static final String EXCEPTIONS = "couchbase_client_exceptions";
+  private static final String DURATION = "couchbase_client_operation_duration_seconds";
+  private static final String SIZE = "couchbase_client_document_size_bytes";
+
+  private final LatencyMetrics metrics;
+  private final Tracer tracer;
+  private final HttpServer server;
+
+  /**
+   * Binds the server; it serves requests once {@link #start() started}.
+   *
+   * @param address address to bind, port 0 for an ephemeral port
+   */
+  public OpenMetricsServer(TracingHelper helper, InetSocketAddress address) throws IOException {
+    this.metrics = helper.getLatencyMetrics();
+    this.tracer = helper.getTracer();
+    this.server = HttpServer.create(address, 0);
+    server.createContext("/metrics", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        try {
+          byte[] body = scrape().getBytes(UTF_8);
+          exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+          exchange.sendResponseHeaders(200, body.length);
+          OutputStream out = exchange.getResponseBody();
+          out.write(body);
+          out.close();
+        } finally {
+          exchange.close();
+        }
+      }
+    });
+  }
+
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Stops the server, waiting up to a second for running scrapes to finish.
+   */
+  public void stop() {
+    server.stop(1);
+  }
+
+  public InetSocketAddress getAddress() {
+    return server.getAddress();
+  }
+
+  /**
+   * Returns the current metrics in the OpenMetrics text format.
+   */
+  String scrape() {
+    StringBuilder operations = new StringBuilder();
+    StringBuilder exceptions = new StringBuilder();
+    StringBuilder durations = new StringBuilder();
+    StringBuilder sizes = new StringBuilder();
+    operations.append("# TYPE ").append(OPERATIONS).append(" counter\n");
+    operations.append("# HELP ").append(OPERATIONS)
+        .append(" Calls per bucket, operation and outcome.\n");
+    exceptions.append("# TYPE ").append(EXCEPTIONS).append(" counter\n");
+    exceptions.append("# HELP ").append(EXCEPTIONS)
+        .append(" Failed calls per bucket, operation and exception type.\n");
+    durations.append("# TYPE ").append(DURATION).append(" histogram\n");
+    durations.append("# UNIT ").append(DURATION).append(" seconds\n");
+    durations.append("# HELP ").append(DURATION).append(" Duration of calls.\n");
+    sizes.append("# TYPE ").append(SIZE).append(" summary\n");
+    sizes.append("# UNIT ").append(SIZE).append(" bytes\n");
+    sizes.append("# HELP ").append(SIZE).append(" Payload size of calls.\n");
+
+    for (Map.Entry<String, AtomicReferenceArray<OperationMetrics>> entry
+        : metrics.getBuckets().entrySet()) {
+      AtomicReferenceArray<OperationMetrics> bucket = entry.getValue();
+      for (int i = 0; i < bucket.length(); i++) {
+        OperationMetrics operation = bucket.get(i);
+        if (operation != null) {
+          String labels = "bucket=\"" + escape(entry.getKey()) + "\",operation=\""
+              + Operation.valueOf(i).getName() + "\"";
+          write(operation, labels, operations, durations);
+          writeExceptions(operation.getOutcomes(), labels, exceptions);
+          writeSizes(operation.getSizes(), labels, sizes);
+        }
+      }
+    }
+    return operations.append(exceptions).append(durations).append(sizes).append("# EOF\n")
+        .toString();
+  }
+
+  private static void writeExceptions(OutcomeCounters outcomes, String labels,
+      StringBuilder exceptions) {
+    for (Map.Entry<String, AtomicLong> entry : outcomes.getExceptions().entrySet()) {
+      exceptions.append(EXCEPTIONS).append("_total{").append(labels).append(",exception=\"")
+          .append(escape(entry.getKey())).append("\"} ").append(entry.getValue().get())
+          .append('\n');
+    }
+  }
+
+  private static void writeSizes(LatencyHistogram histogram, String labels,
+      StringBuilder sizes) {
+    if (histogram == null) {
+      return;
+    }
+    sizes.append(SIZE).append('{').append(labels).append(",quantile=\"0.5\"} ")
+        .append(histogram.getValueAtPercentile(50)).append('\n');
+    sizes.append(SIZE).append('{').append(labels).append(",quantile=\"0.99\"} ")
+        .append(histogram.getValueAtPercentile(99)).append('\n');
+    sizes.append(SIZE).append("_count{").append(labels).append("} ")
+        .append(histogram.getCount()).append('\n');
+    sizes.append(SIZE).append("_sum{").append(labels).append("} ")
+        .append(histogram.getSum()).append('\n');
+  }
+
+  private void write(OperationMetrics operation, String labels, StringBuilder operations,
+      StringBuilder durations) {
+    long[] counts = operation.getDurations();
+    OperationMetrics.Exemplar exemplar = operation.getExemplar();
+    int exemplarBucket = exemplar == null
+        ? -1 : OperationMetrics.durationBucket(exemplar.latencyMicros);
+
+    long cumulative = 0;
+    for (int i = 0; i < counts.length; i++) {
+      cumulative += counts[i];
+      String bound = i < OperationMetrics.DURATION_BOUNDS.length
+          ? seconds(OperationMetrics.DURATION_BOUNDS[i]) : "+Inf";
+      durations.append(DURATION).append("_bucket{").append(labels).append(",le=\"")
+          .append(bound).append("\"} ").append(cumulative);
+      if (i == exemplarBucket) {
+        appendExemplar(durations, exemplar);
+      }
+      durations.append('\n');
+    }
+    durations.append(DURATION).append("_count{").append(labels).append("} ")
+        .append(cumulative).append('\n');
+    durations.append(DURATION).append("_sum{").append(labels).append("} ")
+        .append(seconds(operation.getSumMicros())).append('\n');
+
+    for (Outcome outcome : Outcome.values()) {
+      operations.append(OPERATIONS).append("_total{").append(labels).append(",outcome=\"")
+          .append(outcome.getTagValue()).append("\"} ")
+          .append(operation.getOutcomes().getCount(outcome)).append('\n');
+    }
+  }
+
+  private void appendExemplar(StringBuilder builder, OperationMetrics.Exemplar exemplar) {
+    String traceId = traceId(exemplar.context);
+    if (traceId == null) {
+      return;
+    }
+    builder.append(" # {trace_id=\"").append(escape(traceId)).append("\"} ")
+        .append(seconds(exemplar.latencyMicros)).append(' ')
+        .append(BigDecimal.valueOf(exemplar.timestampMillis, 3).toPlainString());
+  }
+
+  /**
+   * @return {@code null} if the tracer does not propagate a known trace id header
+   */
+  private String traceId(SpanContext context) {
+    Map<String, String> carrier = new HashMap<>();
+    try {
+      tracer.inject(context, Format.Builtin.TEXT_MAP, new TextMapInjectAdapter(carrier));
+    } catch (RuntimeException e) {
+      return null;
+    }
+    for (Map.Entry<String, String> entry : carrier.entrySet()) {
+      String key = entry.getKey().toLowerCase();
+      String value = entry.getValue();
+      if (key.equals("x-b3-traceid") || key.equals("ot-tracer-traceid")
+          || key.equals("traceid")) {
+        return value;
+      } else if (key.equals("uber-trace-id")) {
+        int end = value.indexOf(':');
+        return end < 0 ? value : value.substring(0, end);
+      }
+    }
+    return null;
+  }
+
+  private static String seconds(long micros) {
+    String seconds = BigDecimal.valueOf(micros, 6).stripTrailingZeros().toPlainString();
+    return seconds.indexOf('.') < 0 ? seconds + ".0" : seconds;
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Operations traced by {@link TracingBucket}, {@link TracingCluster}, {@link
+ * TracingClusterManager} and {@link TracingClusterFacade}. The name is used as span operation
+ * name; per-operation state such as sampling rates or thresholds is kept in arrays indexed by
+ * {@link #ordinal()}.
+ */
+public enum Operation {
+  // Bucket: name, key-value, read
+  GET("get", true, true),
+  EXISTS("exists", true, true),
+  GET_FROM_REPLICA("getFromReplica", true, true),
+  GET_AND_LOCK("getAndLock", true, true),
+  GET_AND_TOUCH("getAndTouch", true, true),
+  INSERT("insert", true, false),
+  UPSERT("upsert", true, false),
+  REPLACE("replace", true, false),
+  REMOVE("remove", true, false),
+  QUERY("query"),
+  UNLOCK("unlock", true, false),
+  TOUCH("touch", true, false),
+  COUNTER("counter", true, false),
+  APPEND("append", true, false),
+  PREPEND("prepend", true, false),
+  MAP_ADD("mapAdd", true, false),
+  MAP_GET("mapGet", true, true),
+  MAP_REMOVE("mapRemove", true, false),
+  MAP_SIZE("mapSize", true, true),
+  LIST_GET("listGet", true, true),
+  LIST_APPEND("listAppend", true, false),
+  LIST_REMOVE("listRemove", true, false),
+  LIST_PREPEND("listPrepend", true, false),
+  LIST_SET("listSet", true, false),
+  LIST_SIZE("listSize", true, true),
+  SET_ADD("setAdd", true, false),
+  SET_CONTAINS("setContains", true, true),
+  SET_REMOVE("setRemove", true, false),
+  SET_SIZE("setSize", true, true),
+  QUEUE_PUSH("queuePush", true, false),
+  QUEUE_POP("queuePop", true, false),
+  QUEUE_SIZE("queueSize", true, true),
+  INVALIDATE_QUERY_CACHE("invalidateQueryCache"),
+  CLOSE("close"),
+  PING("ping"),
+  // Cluster
+  OPEN_BUCKET("openBucket"),
+  DISCONNECT("disconnect"),
+  DIAGNOSTICS("diagnostics"),
+  // ClusterManager
+  INFO("info"),
+  GET_BUCKETS("getBuckets"),
+  GET_BUCKET("getBucket"),
+  HAS_BUCKET("hasBucket"),
+  INSERT_BUCKET("insertBucket"),
+  UPDATE_BUCKET("updateBucket"),
+  REMOVE_BUCKET("removeBucket"),
+  UPSERT_USER("upsertUser"),
+  REMOVE_USER("removeUser"),
+  GET_USERS("getUsers"),
+  GET_USER("getUser"),
+  // ClusterFacade
+  SEND("send");
+
+  private static final Operation[] VALUES = values();
+  private static final Map<String, Operation> BY_NAME = new HashMap<>();
+
+  static {
+    for (Operation operation : VALUES) {
+      BY_NAME.put(operation.operationName, operation);
+    }
+  }
+
+  private final String operationName;
+  private final boolean keyValue;
+  private final boolean read;
+
+  Operation(String operationName) {
+    this(operationName, false, false);
+  }
+
+  Operation(String operationName, boolean keyValue, boolean read) {
+    this.operationName = operationName;
+    this.keyValue = keyValue;
+    this.read = read;
+  }
+
+  /**
+   * Name of the operation, e.g. "get".
+   */
+  public String getName() {
+    return operationName;
+  }
+
+  /**
+   * Whether the operation accesses a single document by its id, as opposed to queries, bucket
+   * management and cluster level operations.
+   */
+  public boolean isKeyValue() {
+    return keyValue;
+  }
+
+  /**
+   * Whether the operation only reads a document; key-value operations which are not reads
+   * modify it.
+   */
+  public boolean isRead() {
+    return read;
+  }
+
+  /**
+   * Number of operations, the length of arrays indexed by ordinal.
+   */
+  public static int count() {
+    return VALUES.length;
+  }
+
+  public static Operation valueOf(int ordinal) {
+    return VALUES[ordinal];
+  }
+
+  /**
+   * @throws IllegalArgumentException if no operation has the name
+   */
+  public static Operation forName(String name) {
+    Operation operation = find(name);
+    if (operation == null) {
+      throw new IllegalArgumentException("Unknown operation: " + name);
+    }
+    return operation;
+  }
+
+  /**
+   * Returns the operation with the name, {@code null} if there is none.
+   */
+  static Operation find(String name) {
+    return BY_NAME.get(name);
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import io.opentracing.SpanContext;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Metrics of one operation of one bucket: the sliding {@link LatencyWindow} for percentiles plus
+ * cumulative counters for scraping, i.e. a coarse duration histogram, the sum of all durations,
+ * the {@link OutcomeCounters} and the most recent sampled call as exemplar.
+ * Operations which move documents additionally get a histogram of payload sizes in bytes, and
+ * calls with an explicit timeout a window of the share of the timeout they used.
+ *
+ * <p>The duration buckets and the sum are striped by thread so that concurrent callers do not
+ * update the same counter, even when all calls fall into the same bucket; the number of calls is
+ * the total of the duration buckets.
+ */
+final class OperationMetrics {
+
+  /**
+   * Upper bounds in microseconds of the cumulative duration buckets, without +Inf.
+   */
+  static final long[] DURATION_BOUNDS = {
+      100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000, 500000, 1000000,
+      2500000, 5000000, 10000000};
+
+  private static final AtomicReferenceFieldUpdater<OperationMetrics, LatencyHistogram> SIZES =
+      AtomicReferenceFieldUpdater.newUpdater(OperationMetrics.class, LatencyHistogram.class,
+          "sizes");
+  private static final AtomicReferenceFieldUpdater<OperationMetrics, LatencyWindow> BUDGETS =
+      AtomicReferenceFieldUpdater.newUpdater(OperationMetrics.class, LatencyWindow.class,
+          "budgets");
+  private static final int STRIPES = 8;
+  // one counter per cache line
+  private static final int STRIDE = 8;
+  // the duration buckets of a stripe, padded to whole cache lines
+  private static final int DURATION_STRIDE = (DURATION_BOUNDS.length + STRIDE) / STRIDE * STRIDE;
+
+  private final LatencyWindow window;
+  private final OutcomeCounters outcomes;
+  // the last bucket counts durations above the last bound
+  private final AtomicLongArray durations = new AtomicLongArray(STRIPES * DURATION_STRIDE);
+  private final AtomicLongArray sums = new AtomicLongArray(STRIPES * STRIDE);
+  private volatile Exemplar exemplar;
+  // allocated by the first call which knows its payload size
+  private volatile LatencyHistogram sizes;
+  // allocated by the first call with an explicit timeout
+  private volatile LatencyWindow budgets;
+
+  OperationMetrics(LatencyWindow window, OutcomeCounters outcomes) {
+    this.window = window;
+    this.outcomes = outcomes;
+  }
+
+  LatencyWindow getWindow() {
+    return window;
+  }
+
+  OutcomeCounters getOutcomes() {
+    return outcomes;
+  }
+
+  /**
+   * @param outcome {@link Outcome#SUCCESS} counts the call as successful, failures were already
+   * counted by {@link #recordFailure(Outcome, Throwable, long)}
+   */
+  void record(long latencyNanos, long nowNanos, Outcome outcome) {
+    window.record(latencyNanos, nowNanos);
+    long micros = Math.max(0, latencyNanos / 1000);
+    int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+    durations.incrementAndGet(stripe * DURATION_STRIDE + durationBucket(micros));
+    sums.addAndGet(stripe * STRIDE, micros);
+    if (outcome == Outcome.SUCCESS) {
+      outcomes.recordSuccess(nowNanos);
+    }
+  }
+
+  /**
+   * Remembers a recorded span of the operation, replacing the previous one.
+   */
+  void recordExemplar(SpanContext context, long latencyNanos) {
+    exemplar = new Exemplar(context, Math.max(0, latencyNanos / 1000),
+        System.currentTimeMillis());
+  }
+
+  void recordSize(long bytes) {
+    LatencyHistogram current = sizes;
+    if (current == null) {
+      SIZES.compareAndSet(this, null, new LatencyHistogram());
+      current = sizes;
+    }
+    current.record(bytes);
+  }
+
+  /**
+   * @param permille elapsed time of the call in per mille of its timeout, above 1000 if the call
+   * took longer than its timeout
+   */
+  void recordBudget(long permille, long nowNanos) {
+    LatencyWindow current = budgets;
+    if (current == null) {
+      BUDGETS.compareAndSet(this, null, window.emptyCopy());
+      current = budgets;
+    }
+    current.recordValue(permille, nowNanos);
+  }
+
+  /**
+   * @return {@code null} if no call with a timeout was recorded; values are in per mille
+   */
+  LatencyWindow getBudgets() {
+    return budgets;
+  }
+
+  /**
+   * @return {@code null} if no payload size was recorded
+   */
+  LatencyHistogram getSizes() {
+    return sizes;
+  }
+
+  /**
+   * @param throwable {@code null} if the call returned normally, e.g. a read without a document
+   */
+  void recordFailure(Outcome outcome, Throwable throwable, long nowNanos) {
+    outcomes.recordFailure(outcome, throwable, nowNanos);
+  }
+
+  /**
+   * Returns the number of calls per duration bucket, not cumulative; the last element counts the
+   * calls above the last bound.
+   */
+  long[] getDurations() {
+    long[] counts = new long[DURATION_BOUNDS.length + 1];
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] += durations.get(stripe * DURATION_STRIDE + i);
+      }
+    }
+    return counts;
+  }
+
+  long getSumMicros() {
+    long sum = 0;
+    for (int i = 0; i < STRIPES; i++) {
+      sum += sums.get(i * STRIDE);
+    }
+    return sum;
+  }
+
+  /**
+   * @return {@code null} if no call was sampled yet
+   */
+  Exemplar getExemplar() {
+    return exemplar;
+  }
+
+  static int durationBucket(long micros) {
+    int low = 0;
+    int high = DURATION_BOUNDS.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (DURATION_BOUNDS[middle] < micros) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  static final class Exemplar {
+
+    final SpanContext context;
+    final long latencyMicros;
+    final long timestampMillis;
+
+    private Exemplar(SpanContext context, long latencyMicros, long timestampMillis) {
+      this.context = context;
+      this.latencyMicros = latencyMicros;
+      this.timestampMillis = timestampMillis;
+    }
+  }
+}
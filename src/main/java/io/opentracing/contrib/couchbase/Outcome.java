@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+/**
+ * Result of an operation, as determined by the {@link ExceptionClassifier} for failed ones.
+ */
+public enum Outcome {
+  SUCCESS("success", false),
+  /**
+   * Document or path does not exist.
+   */
+  MISS("miss", false),
+  /**
+   * Document already exists or CAS mismatch.
+   */
+  CONFLICT("conflict", false),
+  TIMEOUT("timeout", true),
+  /**
+   * The server or the client is temporarily out of resources, the call can be retried.
+   */
+  TEMPORARY_FAILURE("temporary_failure", true),
+  ERROR("error", true);
+
+  private final String tagValue;
+  private final boolean error;
+
+  Outcome(String tagValue, boolean error) {
+    this.tagValue = tagValue;
+    this.error = error;
+  }
+
+  /**
+   * Value of the {@value ExceptionClassifier#OUTCOME_TAG} tag.
+   */
+  public String getTagValue() {
+    return tagValue;
+  }
+
+  /**
+   * Whether the span is marked as failed, otherwise the outcome is expected control flow.
+   */
+  public boolean isError() {
+    return error;
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Number of calls per {@link Outcome} of one operation, cumulative since start and over the
+ * current and the last interval for rates, plus the number of failures per exception type.
+ *
+ * <p>The counters are striped by thread like a {@code LongAdder}: a stripe holds a cell per
+ * outcome and is preceded by a cache line of padding so that callers on different stripes never
+ * write to the same line. Successes have their own cell which is only incremented once a call
+ * completed without a failure, so that every outcome count only ever grows.
+ *
+ * <p>Counters are never reset. The first call of an interval snapshots them as the baseline of
+ * the interval, and rates are the difference to the baseline of the last interval, so calls
+ * racing with the start of an interval are attributed to either interval but never lost.
+ */
+final class OutcomeCounters {
+
+  /**
+   * Exception types beyond this number are counted as {@link #OTHER_EXCEPTIONS}.
+   */
+  static final int MAX_EXCEPTION_TYPES = 16;
+  static final String OTHER_EXCEPTIONS = "other";
+
+  private static final int STRIPES = 8;
+  private static final int CELLS = Outcome.values().length;
+  // a cache line of longs ahead of the cells of every stripe
+  private static final int PADDING = 8;
+  private static final int STRIDE = PADDING + (CELLS + 7) / 8 * 8;
+
+  private final long originNanos;
+  private final long intervalNanos;
+  private final AtomicLongArray totals = new AtomicLongArray(STRIPES * STRIDE);
+  // baselines of the current and the last interval, alternating like the halves of HeavyHitters
+  private final AtomicReferenceArray<Baseline> baselines = new AtomicReferenceArray<>(2);
+  private final ConcurrentMap<String, AtomicLong> exceptions = new ConcurrentHashMap<>();
+
+  OutcomeCounters(long originNanos, long intervalNanos) {
+    this.originNanos = originNanos;
+    this.intervalNanos = intervalNanos;
+  }
+
+  void recordSuccess(long nowNanos) {
+    increment(Outcome.SUCCESS.ordinal(), nowNanos);
+  }
+
+  void recordFailure(Outcome outcome, Throwable throwable, long nowNanos) {
+    if (outcome == Outcome.SUCCESS) {
+      // an exception classified as success is a successful call, counted by recordSuccess
+      return;
+    }
+    increment(outcome.ordinal(), nowNanos);
+    if (throwable == null) {
+      return;
+    }
+    // blocking calls wrap checked exceptions such as TimeoutException into RuntimeException
+    Throwable cause = throwable.getCause();
+    String type = (throwable.getClass() == RuntimeException.class && cause != null
+        ? cause : throwable).getClass().getName();
+    AtomicLong count = exceptions.get(type);
+    if (count == null) {
+      if (exceptions.size() >= MAX_EXCEPTION_TYPES) {
+        type = OTHER_EXCEPTIONS;
+      }
+      AtomicLong created = new AtomicLong();
+      count = exceptions.putIfAbsent(type, created);
+      if (count == null) {
+        count = created;
+      }
+    }
+    count.incrementAndGet();
+  }
+
+  private void increment(int cell, long nowNanos) {
+    long epoch = epoch(nowNanos);
+    int half = (int) (epoch & 1);
+    Baseline baseline = baselines.get(half);
+    if (baseline == null || baseline.epoch < epoch) {
+      baselines.compareAndSet(half, baseline, new Baseline(epoch, snapshot()));
+    }
+    int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+    totals.incrementAndGet(stripe * STRIDE + PADDING + cell);
+  }
+
+  /**
+   * @return number of calls with the outcome since start
+   */
+  long getCount(Outcome outcome) {
+    return snapshot()[outcome.ordinal()];
+  }
+
+  /**
+   * @return calls per second with the outcome over the current and the last interval
+   */
+  double getRate(Outcome outcome, long nowNanos) {
+    long epoch = epoch(nowNanos);
+    Baseline baseline = baseline(epoch - 1);
+    if (baseline == null) {
+      baseline = baseline(epoch);
+    }
+    if (baseline == null) {
+      // no calls in the current and the last interval
+      return 0;
+    }
+    long[] counts = snapshot();
+    for (int i = 0; i < CELLS; i++) {
+      counts[i] -= baseline.counts[i];
+    }
+    long elapsedNanos =
+        Math.max(1, nowNanos - originNanos - (baseline.epoch - 1) * intervalNanos);
+    return counts[outcome.ordinal()] * 1e9 / elapsedNanos;
+  }
+
+  /**
+   * @return number of failures per exception class name since start
+   */
+  Map<String, AtomicLong> getExceptions() {
+    return exceptions;
+  }
+
+  private Baseline baseline(long epoch) {
+    Baseline baseline = baselines.get((int) (epoch & 1));
+    return baseline != null && baseline.epoch == epoch ? baseline : null;
+  }
+
+  private long[] snapshot() {
+    long[] counts = new long[CELLS];
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      for (int i = 0; i < CELLS; i++) {
+        counts[i] += totals.get(stripe * STRIDE + PADDING + i);
+      }
+    }
+    return counts;
+  }
+
+  private long epoch(long nowNanos) {
+    // starts at 1, epoch 0 marks halves which were never used
+    return (nowNanos - originNanos) / intervalNanos + 1;
+  }
+
+  private static final class Baseline {
+
+    private final long epoch;
+    // counts per cell summed over the stripes when the interval started
+    private final long[] counts;
+
+    Baseline(long epoch, long[] counts) {
+      this.epoch = epoch;
+      this.counts = counts;
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples each operation with a fixed probability configured per operation name, e.g. "get" at
+ * 0.005 and "query" at 1.0. Operations without an explicit rate use the default rate. The same
+ * rates apply to every bucket.
+ */
+public class ProbabilisticSampler implements Sampler {
+
+  private final double[] rates = new double[Operation.count()];
+
+  public ProbabilisticSampler(double defaultRate) {
+    this(defaultRate, new HashMap<String, Double>());
+  }
+
+  public ProbabilisticSampler(double defaultRate, Map<String, Double> operationRates) {
+    checkRate(defaultRate);
+    Arrays.fill(rates, defaultRate);
+    for (Entry<String, Double> entry : operationRates.entrySet()) {
+      checkRate(entry.getValue());
+      rates[Operation.forName(entry.getKey()).ordinal()] = entry.getValue();
+    }
+  }
+
+  @Override
+  public boolean sample(String bucketName, Operation operation) {
+    double rate = rates[operation.ordinal()];
+    if (rate >= 1.0) {
+      return true;
+    }
+    if (rate <= 0.0) {
+      return false;
+    }
+    return ThreadLocalRandom.current().nextDouble() < rate;
+  }
+
+  public double getRate(Operation operation) {
+    return rates[operation.ordinal()];
+  }
+
+  private static void checkRate(Double rate) {
+    if (rate == null || rate < 0.0 || rate > 1.0) {
+      throw new IllegalArgumentException("Sampling rate must be between 0.0 and 1.0: " + rate);
+    }
+  }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import io.opentracing.SpanContext;
+import io.opentracing.tag.Tags;
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves span creation off the application thread. Finished operations are copied into a
+ * preallocated lock-free ring buffer and a background thread turns them into spans, so a slow
+ * tracer reporter does not add to the latency of Couchbase calls.
+ *
+ * <p>When the buffer is full the operation is dropped and counted instead of blocking the caller.
+ * Each slot is preallocated for {@value #SLOT_TAGS} tags, more than any built-in operation sets,
+ * and grows up to {@value #MAX_TAGS} tags for operations with many template tags. Beyond that the
+ * {@code error} and {@code outcome} tags are kept and the remaining tags are dropped and counted.
+ */
+public class RingBufferRecorder implements Closeable {
+
+  static final int SLOT_TAGS = 16;
+  static final int MAX_TAGS = 64;
+  private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final int capacity;
+  private final int mask;
+  private final AtomicLong producerSequence = new AtomicLong();
+  private volatile long consumerSequence;
+  // slot index -> sequence + 1 of the record published into the slot
+  private final AtomicLongArray published;
+
+  private final TracingHelper[] helpers;
+  private final String[] operationNames;
+  private final SpanContext[] parents;
+  private final long[] startMicros;
+  private final long[] durationNanos;
+  private final String[][] tagKeys;
+  private final Object[][] tagValues;
+  private final int[] tagCounts;
+  private final Object[] logs;
+
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong droppedTags = new AtomicLong();
+  private final AtomicLong reported = new AtomicLong();
+  private final Thread consumer;
+  private volatile boolean running = true;
+
+  /**
+   * @param capacity number of slots, rounded up to the next power of two
+   */
+  public RingBufferRecorder(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    int size = 1;
+    while (size < capacity) {
+      size <<= 1;
+    }
+    this.capacity = size;
+    this.mask = this.capacity - 1;
+    this.published = new AtomicLongArray(this.capacity);
+    this.helpers = new TracingHelper[this.capacity];
+    this.operationNames = new String[this.capacity];
+    this.parents = new SpanContext[this.capacity];
+    this.startMicros = new long[this.capacity];
+    this.durationNanos = new long[this.capacity];
+    this.tagKeys = new String[this.capacity][SLOT_TAGS];
+    this.tagValues = new Object[this.capacity][SLOT_TAGS];
+    this.tagCounts = new int[this.capacity];
+    this.logs = new Object[this.capacity];
+
+    this.consumer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        consume();
+      }
+    }, "couchbase-span-recorder");
+    this.consumer.setDaemon(true);
+    this.consumer.start();
+  }
+
+  /**
+   * Copies the operation into the next free slot.
+   *
+   * @return {@code false} if the buffer was full and the operation has been dropped
+   */
+  boolean record(TracingHelper helper, String operationName, SpanContext parent,
+      long startMicros, long durationNanos, String[] tagKeys, Object[] tagValues, int tagCount,
+      List<Object[]> logs) {
+    long sequence;
+    do {
+      sequence = producerSequence.get();
+      if (!running || sequence - consumerSequence >= capacity) {
+        dropped.incrementAndGet();
+        return false;
+      }
+    } while (!producerSequence.compareAndSet(sequence, sequence + 1));
+
+    int index = (int) sequence & mask;
+    this.helpers[index] = helper;
+    this.operationNames[index] = operationName;
+    this.parents[index] = parent;
+    this.startMicros[index] = startMicros;
+    this.durationNanos[index] = durationNanos;
+    this.tagCounts[index] = copyTags(index, tagKeys, tagValues, tagCount);
+    this.logs[index] = logs;
+    // publishes the plain writes above to the consumer
+    published.lazySet(index, sequence + 1);
+    return true;
+  }
+
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * Returns the number of tags dropped from operations with more than {@value #MAX_TAGS} tags.
+   */
+  public long getDroppedTagCount() {
+    return droppedTags.get();
+  }
+
+  public long getReportedCount() {
+    return reported.get();
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Stops accepting operations and reports the ones already in the buffer. Every operation is
+   * either reported or counted as dropped, also when it is recorded concurrently.
+   */
+  @Override
+  public void close() {
+    running = false;
+    LockSupport.unpark(consumer);
+    try {
+      consumer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // the slot is owned by the producer until it is published, so it may be grown without locking
+  private int copyTags(int index, String[] keys, Object[] values, int tagCount) {
+    String[] slotKeys = this.tagKeys[index];
+    Object[] slotValues = this.tagValues[index];
+    if (tagCount > slotKeys.length) {
+      int length = Math.min(MAX_TAGS, Math.max(tagCount, slotKeys.length * 2));
+      slotKeys = this.tagKeys[index] = new String[length];
+      slotValues = this.tagValues[index] = new Object[length];
+    }
+    if (tagCount <= slotKeys.length) {
+      System.arraycopy(keys, 0, slotKeys, 0, tagCount);
+      System.arraycopy(values, 0, slotValues, 0, tagCount);
+      return tagCount;
+    }
+
+    int count = 0;
+    for (int i = 0; i < tagCount; i++) {
+      if (isRetained(keys[i]) && count < slotKeys.length) {
+        slotKeys[count] = keys[i];
+        slotValues[count] = values[i];
+        count++;
+      }
+    }
+    for (int i = 0; i < tagCount && count < slotKeys.length; i++) {
+      if (!isRetained(keys[i])) {
+        slotKeys[count] = keys[i];
+        slotValues[count] = values[i];
+        count++;
+      }
+    }
+    droppedTags.addAndGet(tagCount - count);
+    return count;
+  }
+
+  private static boolean isRetained(String key) {
+    return Tags.ERROR.getKey().equals(key) || ExceptionClassifier.OUTCOME_TAG.equals(key);
+  }
+
+  private void consume() {
+    long idleNanos = 0;
+    while (true) {
+      if (reportNext()) {
+        idleNanos = 0;
+      } else if (!running && claimAll()) {
+        return;
+      } else {
+        idleNanos = Math.min(MAX_IDLE_NANOS, Math.max(1000, idleNanos * 2));
+        LockSupport.parkNanos(this, idleNanos);
+      }
+    }
+  }
+
+  /**
+   * Claims every slot once all claimed ones were reported, so a producer which passed the running
+   * check before close sees a full buffer and counts its operation as dropped.
+   */
+  private boolean claimAll() {
+    long sequence = consumerSequence;
+    return producerSequence.compareAndSet(sequence, sequence + capacity);
+  }
+
+  @SuppressWarnings("unchecked")
+  private boolean reportNext() {
+    long sequence = consumerSequence;
+    int index = (int) sequence & mask;
+    if (published.get(index) != sequence + 1) {
+      return false;
+    }
+
+    try {
+      DeferredSpan.report(helpers[index], operationNames[index], parents[index],
+          startMicros[index], durationNanos[index], tagKeys[index], tagValues[index],
+          tagCounts[index], (List<Object[]>) logs[index]);
+      reported.incrementAndGet();
+    } catch (RuntimeException ignore) {
+      // a failing tracer must not stop the consumer
+    } finally {
+      helpers[index] = null;
+      operationNames[index] = null;
+      parents[index] = null;
+      Arrays.fill(tagValues[index], null);
+      logs[index] = null;
+      consumerSequence = sequence + 1;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+/**
+ * Decides whether an operation is traced. It is evaluated before any span or tag is built, so
+ * implementations should be cheap and must be thread safe.
+ */
+public interface Sampler {
+
+  Sampler ALWAYS_SAMPLE = new Sampler() {
+    @Override
+    public boolean sample(String bucketName, Operation operation) {
+      return true;
+    }
+  };
+
+  /**
+   * @param bucketName name of the bucket the operation runs against, {@code null} for cluster
+   * level operations
+   * @param operation the traced operation
+   */
+  boolean sample(String bucketName, Operation operation);
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import com.couchbase.client.java.analytics.AnalyticsQuery;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.query.N1qlQuery;
+import com.couchbase.client.java.query.Statement;
+import com.couchbase.client.java.search.SearchQuery;
+import com.couchbase.client.java.view.SpatialViewQuery;
+import com.couchbase.client.java.view.ViewQuery;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+/**
+ * Keeps the slowest blocking calls per bucket and operation which exceed the operation's
+ * threshold, similar to the threshold logging of the Couchbase SDKs but without a tracer. For
+ * every bucket and operation there are two fixed rings of slots, one for the current interval and
+ * one for the last; a slow call replaces the fastest entry of the current ring, so a slow bucket
+ * does not crowd out the calls of the others. Calls below the threshold cost one comparison, and
+ * recording a slow call stores references to its arguments without allocating, except for the
+ * first slow call of a bucket which creates its rings.
+ *
+ * <p>Document ids and statements are only formatted when a snapshot is taken.
+ */
+public class SlowOperations implements SlowOperationsMBean {
+
+  private static final long CLAIMED = -1;
+  private static final String[] ITEMS = {
+      "operation", "rank", "bucket", "subject", "timeoutMillis", "durationMillis"};
+  private static final CompositeType ROW_TYPE;
+  private static final TabularType TABLE_TYPE;
+
+  static {
+    try {
+      ROW_TYPE = new CompositeType("SlowOperation", "Call above the threshold", ITEMS, ITEMS,
+          new OpenType<?>[]{SimpleType.STRING, SimpleType.INTEGER, SimpleType.STRING,
+              SimpleType.STRING, SimpleType.DOUBLE, SimpleType.DOUBLE});
+      TABLE_TYPE = new TabularType("SlowOperations", "Slowest calls per bucket and operation",
+          ROW_TYPE, new String[]{"bucket", "operation", "rank"});
+    } catch (OpenDataException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private final long originNanos = System.nanoTime();
+  private final int size;
+  private final long intervalNanos;
+  private final AtomicLongArray thresholds = new AtomicLongArray(Operation.count());
+  // bucket name, "" for cluster level operations -> rings of the bucket
+  private final ConcurrentMap<String, Rings> buckets = new ConcurrentHashMap<>();
+
+  /**
+   * Keeps the 10 slowest calls per operation over intervals of 10 seconds, with a threshold of
+   * 500 milliseconds for key-value operations and 1 second for all others.
+   */
+  public SlowOperations() {
+    this(10, 10, TimeUnit.SECONDS);
+  }
+
+  /**
+   * @param size number of calls kept per operation and interval
+   */
+  public SlowOperations(int size, long interval, TimeUnit timeUnit) {
+    if (size <= 0 || interval <= 0) {
+      throw new IllegalArgumentException("size and interval must be positive");
+    }
+    this.size = size;
+    this.intervalNanos = timeUnit.toNanos(interval);
+    for (Operation operation : Operation.values()) {
+      thresholds.set(operation.ordinal(),
+          TimeUnit.MILLISECONDS.toNanos(operation.isKeyValue() ? 500 : 1000));
+    }
+  }
+
+  /**
+   * @param subject document id, document or query of the call, {@code null} if there is none
+   * @param timeUnit {@code null} if the call has no explicit timeout
+   */
+  void record(Operation operation, String bucketName, Object subject, long timeout,
+      TimeUnit timeUnit, long durationNanos, long nowNanos) {
+    if (durationNanos < thresholds.get(operation.ordinal())) {
+      return;
+    }
+
+    Rings rings = rings(bucketName);
+    AtomicLongArray durations = rings.durations;
+    long epoch = (nowNanos - originNanos) / intervalNanos + 1;
+    int ring = operation.ordinal() * 2 + (int) (epoch & 1);
+    int base = ring * size;
+    long current = rings.epochs.get(ring);
+    if (current > epoch) {
+      // the ring already belongs to a later interval
+      return;
+    } else if (current < epoch && rings.epochs.compareAndSet(ring, current, epoch)) {
+      for (int i = base; i < base + size; i++) {
+        long duration = durations.get(i);
+        // a claimed slot is left to the caller writing it
+        if (duration != CLAIMED) {
+          durations.compareAndSet(i, duration, 0);
+        }
+      }
+    }
+
+    int fastest = -1;
+    long fastestDuration = Long.MAX_VALUE;
+    for (int i = base; i < base + size; i++) {
+      long duration = durations.get(i);
+      // claimed slots are being written by another caller
+      if (duration != CLAIMED && duration < fastestDuration) {
+        fastest = i;
+        fastestDuration = duration;
+      }
+    }
+    if (fastest < 0 || durationNanos <= fastestDuration
+        || !durations.compareAndSet(fastest, fastestDuration, CLAIMED)) {
+      return;
+    }
+    rings.subjects.set(fastest,
+        subject instanceof Document ? ((Document<?>) subject).id() : subject);
+    rings.timeouts.set(fastest, timeUnit == null ? 0 : timeUnit.toNanos(timeout));
+    durations.set(fastest, durationNanos);
+  }
+
+  private Rings rings(String bucketName) {
+    String key = bucketName == null ? "" : bucketName;
+    Rings rings = buckets.get(key);
+    if (rings == null) {
+      Rings created = new Rings(Operation.count() * 2 * size);
+      rings = buckets.putIfAbsent(key, created);
+      if (rings == null) {
+        rings = created;
+      }
+    }
+    return rings;
+  }
+
+  /**
+   * Returns the recorded calls of the current and the last interval ordered by bucket and
+   * operation, slowest first per bucket and operation.
+   */
+  List<SlowOperation> snapshot(long nowNanos) {
+    long epoch = (nowNanos - originNanos) / intervalNanos + 1;
+    List<String> bucketNames = new ArrayList<>(buckets.keySet());
+    Collections.sort(bucketNames);
+    List<SlowOperation> slowOperations = new ArrayList<>();
+    for (String key : bucketNames) {
+      Rings rings = buckets.get(key);
+      String bucketName = key.isEmpty() ? null : key;
+      for (Operation operation : Operation.values()) {
+        List<SlowOperation> recorded = new ArrayList<>();
+        for (int ring = operation.ordinal() * 2; ring < operation.ordinal() * 2 + 2; ring++) {
+          if (rings.epochs.get(ring) < epoch - 1) {
+            continue;
+          }
+          for (int i = ring * size; i < (ring + 1) * size; i++) {
+            long duration = rings.durations.get(i);
+            if (duration <= 0) {
+              continue;
+            }
+            SlowOperation slowOperation = new SlowOperation(operation, bucketName,
+                rings.subjects.get(i), rings.timeouts.get(i), duration);
+            // skip slots which were replaced while reading them
+            if (rings.durations.get(i) == duration) {
+              recorded.add(slowOperation);
+            }
+          }
+        }
+        Collections.sort(recorded, new Comparator<SlowOperation>() {
+          @Override
+          public int compare(SlowOperation first, SlowOperation second) {
+            return Long.compare(second.durationNanos, first.durationNanos);
+          }
+        });
+        slowOperations.addAll(recorded.subList(0, Math.min(size, recorded.size())));
+      }
+    }
+    return slowOperations;
+  }
+
+  @Override
+  public TabularData getSlowOperations() {
+    TabularDataSupport table = new TabularDataSupport(TABLE_TYPE);
+    SlowOperation previous = null;
+    int rank = 0;
+    for (SlowOperation slowOperation : snapshot(System.nanoTime())) {
+      rank = slowOperation.isSameGroup(previous) ? rank + 1 : 1;
+      previous = slowOperation;
+      try {
+        table.put(new CompositeDataSupport(ROW_TYPE, ITEMS, new Object[]{
+            slowOperation.operation.getName(), rank, TracingHelper.nullable(slowOperation.bucket),
+            describe(slowOperation.subject), millis(slowOperation.timeoutNanos),
+            millis(slowOperation.durationNanos)}));
+      } catch (OpenDataException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    return table;
+  }
+
+  @Override
+  public String getSummary() {
+    StringBuilder summary = new StringBuilder();
+    SlowOperation previous = null;
+    int count = 0;
+    for (SlowOperation slowOperation : snapshot(System.nanoTime())) {
+      if (!slowOperation.isSameGroup(previous)) {
+        if (previous != null) {
+          summary.append(count).append(" slow); ");
+        }
+        previous = slowOperation;
+        count = 0;
+        // the slowest call comes first
+        summary.append(slowOperation.operation.getName()).append(": max ")
+            .append(millis(slowOperation.durationNanos)).append("ms");
+        if (slowOperation.bucket != null) {
+          summary.append(" bucket=").append(slowOperation.bucket);
+        }
+        if (slowOperation.subject != null) {
+          summary.append(" subject=").append(describe(slowOperation.subject));
+        }
+        if (slowOperation.timeoutNanos > 0) {
+          summary.append(" timeout=").append(millis(slowOperation.timeoutNanos)).append("ms");
+        }
+        summary.append(" (");
+      }
+      count++;
+    }
+    if (previous != null) {
+      summary.append(count).append(" slow)");
+    }
+    return summary.toString();
+  }
+
+  @Override
+  public long getThreshold(String operationName) {
+    int ordinal = Operation.forName(operationName).ordinal();
+    return TimeUnit.NANOSECONDS.toMillis(thresholds.get(ordinal));
+  }
+
+  @Override
+  public void setThreshold(String operationName, long thresholdMillis) {
+    setThreshold(Operation.forName(operationName), thresholdMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public void setThreshold(Operation operation, long threshold, TimeUnit timeUnit) {
+    thresholds.set(operation.ordinal(), timeUnit.toNanos(threshold));
+  }
+
+  /**
+   * Registers the recorder with the platform MBean server as
+   * {@code io.opentracing.contrib.couchbase:type=SlowOperations,name=<name>}.
+   */
+  public ObjectName register(String name) throws JMException {
+    ObjectName objectName = objectName(name);
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+    return objectName;
+  }
+
+  public void unregister(String name) throws JMException {
+    ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+  }
+
+  private static ObjectName objectName(String name) throws JMException {
+    return new ObjectName(
+        TracingControl.DOMAIN + ":type=SlowOperations,name=" + ObjectName.quote(name));
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+
+  /**
+   * Formats a document id as is and a query as its normalized statement.
+   */
+  static String describe(Object subject) {
+    if (subject instanceof N1qlQuery) {
+      return describe(((N1qlQuery) subject).statement());
+    } else if (subject instanceof Statement) {
+      return StatementCache.normalize(subject.toString());
+    } else if (subject instanceof AnalyticsQuery) {
+      return StatementCache.normalize(((AnalyticsQuery) subject).statement());
+    } else if (subject instanceof ViewQuery) {
+      return ((ViewQuery) subject).getDesign() + "/" + ((ViewQuery) subject).getView();
+    } else if (subject instanceof SpatialViewQuery) {
+      SpatialViewQuery query = (SpatialViewQuery) subject;
+      return query.getDesign() + "/" + query.getView();
+    } else if (subject instanceof SearchQuery) {
+      return ((SearchQuery) subject).indexName();
+    }
+    return TracingHelper.nullable(subject);
+  }
+
+  static final class SlowOperation {
+
+    final Operation operation;
+    final String bucket;
+    final Object subject;
+    final long timeoutNanos;
+    final long durationNanos;
+
+    SlowOperation(Operation operation, String bucket, Object subject, long timeoutNanos,
+        long durationNanos) {
+      this.operation = operation;
+      this.bucket = bucket;
+      this.subject = subject;
+      this.timeoutNanos = timeoutNanos;
+      this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Whether the other call has the same bucket and operation.
+     */
+    boolean isSameGroup(SlowOperation other) {
+      return other != null && operation == other.operation
+          && (bucket == null ? other.bucket == null : bucket.equals(other.bucket));
+    }
+  }
+
+  /**
+   * The rings of one bucket, per operation and ring starting at (ordinal * 2 + ring) * size.
+   */
+  private static final class Rings {
+
+    private final AtomicLongArray durations;
+    private final AtomicLongArray timeouts;
+    private final AtomicReferenceArray<Object> subjects;
+    private final AtomicLongArray epochs = new AtomicLongArray(Operation.count() * 2);
+
+    Rings(int slots) {
+      this.durations = new AtomicLongArray(slots);
+      this.timeouts = new AtomicLongArray(slots);
+      this.subjects = new AtomicReferenceArray<>(slots);
+    }
+  }
+}
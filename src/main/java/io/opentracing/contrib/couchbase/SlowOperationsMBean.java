@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import javax.management.openmbean.TabularData;
+
+/**
+ * Management interface of {@link SlowOperations}.
+ */
+public interface SlowOperationsMBean {
+
+  /**
+   * The slowest calls above the threshold of their operation in the current and the last
+   * interval, indexed by bucket, operation and rank, slowest first per bucket and operation.
+   */
+  TabularData getSlowOperations();
+
+  /**
+   * One line summarizing the slow calls per bucket and operation, e.g. for periodic logging.
+   */
+  String getSummary();
+
+  /**
+   * @param operationName name of the operation, e.g. "get"
+   * @return threshold in milliseconds
+   */
+  long getThreshold(String operationName);
+
+  /**
+   * @param operationName name of the operation, e.g. "get"
+   * @param thresholdMillis calls taking at least this long are recorded
+   */
+  void setThreshold(String operationName, long thresholdMillis);
+}
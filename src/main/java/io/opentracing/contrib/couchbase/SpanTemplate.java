@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import io.opentracing.Tracer.SpanBuilder;
+import java.util.Arrays;
+
+/**
+ * Immutable set of string tags which every span of a cluster or bucket carries. It is built once
+ * when the cluster or bucket is opened and applied to each span builder.
+ */
+final class SpanTemplate {
+
+  private final String[] keys;
+  private final String[] values;
+
+  SpanTemplate(String... keysAndValues) {
+    if (keysAndValues.length % 2 != 0) {
+      throw new IllegalArgumentException("Tags must be given as key and value pairs");
+    }
+    int size = keysAndValues.length / 2;
+    this.keys = new String[size];
+    this.values = new String[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = keysAndValues[2 * i];
+      values[i] = keysAndValues[2 * i + 1];
+    }
+  }
+
+  private SpanTemplate(String[] keys, String[] values) {
+    this.keys = keys;
+    this.values = values;
+  }
+
+  /**
+   * Returns a template with the additional tag, a {@code null} value leaves the tag out.
+   */
+  SpanTemplate withTag(String key, String value) {
+    if (value == null) {
+      return this;
+    }
+    String[] newKeys = Arrays.copyOf(keys, keys.length + 1);
+    String[] newValues = Arrays.copyOf(values, values.length + 1);
+    newKeys[keys.length] = key;
+    newValues[values.length] = value;
+    return new SpanTemplate(newKeys, newValues);
+  }
+
+  SpanBuilder apply(SpanBuilder builder) {
+    for (int i = 0; i < keys.length; i++) {
+      builder.withTag(keys[i], values[i]);
+    }
+    return builder;
+  }
+}
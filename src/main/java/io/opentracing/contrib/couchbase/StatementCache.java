@@ -0,0 +1,174 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded LRU cache of normalized statements used as {@code db.statement}. A statement is
+ * normalized once: string and numeric literals are replaced by {@code ?}, whitespace is collapsed
+ * and the result is capped at {@value #MAX_LENGTH} characters. Repeated statements get the same
+ * cached instance back.
+ *
+ * <p>The cache is split into segments, each guarded by its own lock, so that concurrent queries
+ * rarely contend. The locks are {@link ReentrantLock}s rather than monitors, so a virtual thread
+ * waiting for a segment does not pin its carrier thread.
+ */
+final class StatementCache {
+
+  static final int MAX_LENGTH = 1024;
+  private static final int SEGMENTS = 16;
+
+  private final Segment[] segments = new Segment[SEGMENTS];
+
+  StatementCache(int capacity) {
+    int segmentCapacity = Math.max(1, capacity / SEGMENTS);
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(segmentCapacity);
+    }
+  }
+
+  String fingerprint(String statement) {
+    if (statement == null) {
+      return "null";
+    }
+    Segment segment = segments[(statement.hashCode() & Integer.MAX_VALUE) % SEGMENTS];
+    segment.lock.lock();
+    try {
+      String fingerprint = segment.get(statement);
+      if (fingerprint != null) {
+        return fingerprint;
+      }
+    } finally {
+      segment.lock.unlock();
+    }
+
+    String fingerprint = normalize(statement);
+    segment.lock.lock();
+    try {
+      String existing = segment.get(statement);
+      if (existing != null) {
+        return existing;
+      }
+      segment.put(statement, fingerprint);
+    } finally {
+      segment.lock.unlock();
+    }
+    return fingerprint;
+  }
+
+  static String normalize(String statement) {
+    StringBuilder builder = new StringBuilder(Math.min(statement.length(), MAX_LENGTH));
+    int length = statement.length();
+    int i = 0;
+    while (i < length && builder.length() < MAX_LENGTH) {
+      char c = statement.charAt(i);
+      if (c == '\'' || c == '"') {
+        i = skipString(statement, i, c);
+        builder.append('?');
+      } else if (c == '`') {
+        int end = statement.indexOf('`', i + 1);
+        end = end < 0 ? length : end + 1;
+        builder.append(statement, i, end);
+        i = end;
+      } else if (Character.isWhitespace(c)) {
+        while (i < length && Character.isWhitespace(statement.charAt(i))) {
+          i++;
+        }
+        if (builder.length() > 0 && i < length) {
+          builder.append(' ');
+        }
+      } else if (isNumberStart(statement, i)) {
+        i = skipNumber(statement, i);
+        builder.append('?');
+      } else {
+        builder.append(c);
+        i++;
+      }
+    }
+    if (builder.length() > MAX_LENGTH) {
+      builder.setLength(MAX_LENGTH);
+    }
+    return builder.toString();
+  }
+
+  private static int skipString(String statement, int start, char quote) {
+    int i = start + 1;
+    while (i < statement.length()) {
+      char c = statement.charAt(i);
+      if (c == '\\') {
+        i += 2;
+      } else if (c == quote) {
+        // a doubled quote is an escaped quote
+        if (i + 1 < statement.length() && statement.charAt(i + 1) == quote) {
+          i += 2;
+        } else {
+          return i + 1;
+        }
+      } else {
+        i++;
+      }
+    }
+    return statement.length();
+  }
+
+  private static boolean isNumberStart(String statement, int i) {
+    char c = statement.charAt(i);
+    boolean digit = c >= '0' && c <= '9';
+    if (!digit && !(c == '.' && i + 1 < statement.length()
+        && Character.isDigit(statement.charAt(i + 1)))) {
+      return false;
+    }
+    // digits which are part of an identifier or a $1 placeholder are kept
+    return i == 0 || !isIdentifierPart(statement.charAt(i - 1));
+  }
+
+  private static int skipNumber(String statement, int start) {
+    int i = start;
+    while (i < statement.length()) {
+      char c = statement.charAt(i);
+      if (Character.isDigit(c) || c == '.' || c == 'e' || c == 'E') {
+        i++;
+      } else if ((c == '+' || c == '-') && (statement.charAt(i - 1) == 'e'
+          || statement.charAt(i - 1) == 'E')) {
+        i++;
+      } else {
+        break;
+      }
+    }
+    return i;
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.';
+  }
+
+  private static final class Segment extends LinkedHashMap<String, String> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int capacity;
+
+    Segment(int capacity) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+      return size() > capacity;
+    }
+  }
+}
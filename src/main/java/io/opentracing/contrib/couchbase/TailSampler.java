@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides after an operation completed whether it is reported to the tracer. Failed operations
+ * are always kept, successful ones only if they took at least the latency threshold of their
+ * operation.
+ *
+ * <p>When configured, operations are first recorded in memory and turned into real spans only
+ * when they are retained.
+ */
+public class TailSampler {
+
+  private final long[] thresholdNanos = new long[Operation.count()];
+
+  public TailSampler(long threshold, TimeUnit timeUnit) {
+    this(threshold, new HashMap<String, Long>(), timeUnit);
+  }
+
+  /**
+   * @param threshold latency threshold for operations without an explicit threshold
+   * @param operationThresholds latency threshold per operation name
+   * @param timeUnit unit of all thresholds
+   */
+  public TailSampler(long threshold, Map<String, Long> operationThresholds, TimeUnit timeUnit) {
+    Arrays.fill(thresholdNanos, timeUnit.toNanos(threshold));
+    for (Entry<String, Long> entry : operationThresholds.entrySet()) {
+      thresholdNanos[Operation.forName(entry.getKey()).ordinal()] =
+          timeUnit.toNanos(entry.getValue());
+    }
+  }
+
+  public boolean retain(String bucketName, Operation operation, long durationNanos,
+      boolean error) {
+    return error || durationNanos >= thresholdNanos[operation.ordinal()];
+  }
+
+  public long getThresholdNanos(Operation operation) {
+    return thresholdNanos[operation.ordinal()];
+  }
+}
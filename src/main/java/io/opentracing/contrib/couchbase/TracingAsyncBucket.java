@@ -0,0 +1,1175 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.annotations.InterfaceAudience.Public;
+import com.couchbase.client.core.annotations.InterfaceStability.Committed;
+import com.couchbase.client.core.annotations.InterfaceStability.Uncommitted;
+import com.couchbase.client.core.message.internal.PingReport;
+import com.couchbase.client.core.service.ServiceType;
+import com.couchbase.client.java.AsyncBucket;
+import com.couchbase.client.java.PersistTo;
+import com.couchbase.client.java.ReplicaMode;
+import com.couchbase.client.java.ReplicateTo;
+import com.couchbase.client.java.analytics.AnalyticsQuery;
+import com.couchbase.client.java.analytics.AsyncAnalyticsQueryResult;
+import com.couchbase.client.java.bucket.AsyncBucketManager;
+import com.couchbase.client.java.datastructures.MutationOptionBuilder;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.JsonLongDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.error.QueryExecutionException;
+import com.couchbase.client.java.query.AsyncN1qlQueryResult;
+import com.couchbase.client.java.query.AsyncN1qlQueryRow;
+import com.couchbase.client.java.query.N1qlQuery;
+import com.couchbase.client.java.query.Statement;
+import com.couchbase.client.java.repository.AsyncRepository;
+import com.couchbase.client.java.search.SearchQuery;
+import com.couchbase.client.java.search.result.AsyncSearchQueryResult;
+import com.couchbase.client.java.subdoc.AsyncLookupInBuilder;
+import com.couchbase.client.java.subdoc.AsyncMutateInBuilder;
+import com.couchbase.client.java.view.AsyncSpatialViewResult;
+import com.couchbase.client.java.view.AsyncViewResult;
+import com.couchbase.client.java.view.SpatialViewQuery;
+import com.couchbase.client.java.view.ViewQuery;
+import io.opentracing.tag.Tags;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import rx.Observable;
+import rx.functions.Func1;
+import rx.observables.ConnectableObservable;
+
+/**
+ * Traces the operations of an {@link AsyncBucket}. Every subscription to a returned observable is
+ * traced separately, see {@link TracingOnSubscribe}.
+ */
+public class TracingAsyncBucket implements AsyncBucket {
+
+  private static final Func1<AsyncN1qlQueryResult, Observable<AsyncN1qlQueryRow>> ROWS =
+      new Func1<AsyncN1qlQueryResult, Observable<AsyncN1qlQueryRow>>() {
+        @Override
+        public Observable<AsyncN1qlQueryRow> call(AsyncN1qlQueryResult result) {
+          // the core releases a stream nobody subscribed to after a while, so the errors are
+          // subscribed right away and replayed once all rows were read
+          ConnectableObservable<JsonObject> errors = result.errors().take(1).replay();
+          errors.connect();
+          return result.rows().concatWith(errors.flatMap(FAIL));
+        }
+      };
+
+  private static final Func1<JsonObject, Observable<AsyncN1qlQueryRow>> FAIL =
+      new Func1<JsonObject, Observable<AsyncN1qlQueryRow>>() {
+        @Override
+        public Observable<AsyncN1qlQueryRow> call(JsonObject error) {
+          return Observable.error(new QueryExecutionException("N1QL query failed", error));
+        }
+      };
+
+  private final AsyncBucket bucket;
+  private final TracingHelper helper;
+
+  public TracingAsyncBucket(AsyncBucket bucket, TracingHelper helper) {
+    this.bucket = bucket;
+    this.helper = helper;
+  }
+
+  @Override
+  public String name() {
+    return bucket.name();
+  }
+
+  @Override
+  public Observable<ClusterFacade> core() {
+    return bucket.core();
+  }
+
+  @Override
+  public CouchbaseEnvironment environment() {
+    return bucket.environment();
+  }
+
+  @Override
+  public Observable<JsonDocument> get(String id) {
+    Observable<JsonDocument> source = bucket.get(id);
+    if (!helper.isSampled(Operation.GET)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.GET, source, "id", id);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> get(D document) {
+    return trace(Operation.GET, bucket.get(document));
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> get(String id, Class<D> target) {
+    Observable<D> source = bucket.get(id, target);
+    if (!helper.isSampled(Operation.GET)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.GET, source, "id", id, "target", target);
+  }
+
+  @Override
+  public Observable<Boolean> exists(String id) {
+    Observable<Boolean> source = bucket.exists(id);
+    if (!helper.isSampled(Operation.EXISTS)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.EXISTS, source, "id", id);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<Boolean> exists(D document) {
+    return trace(Operation.EXISTS, bucket.exists(document));
+  }
+
+  @Override
+  public Observable<JsonDocument> getFromReplica(String id, ReplicaMode type) {
+    Observable<JsonDocument> source = bucket.getFromReplica(id, type);
+    if (!helper.isSampled(Operation.GET_FROM_REPLICA)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.GET_FROM_REPLICA, source, "id", id, "type", type);
+  }
+
+  @Override
+  public Observable<JsonDocument> getFromReplica(String id) {
+    Observable<JsonDocument> source = bucket.getFromReplica(id);
+    if (!helper.isSampled(Operation.GET_FROM_REPLICA)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.GET_FROM_REPLICA, source, "id", id);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> getFromReplica(D document, ReplicaMode type) {
+    Observable<D> source = bucket.getFromReplica(document, type);
+    if (!helper.isSampled(Operation.GET_FROM_REPLICA)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.GET_FROM_REPLICA, source, "type", type);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> getFromReplica(D document) {
+    return trace(Operation.GET_FROM_REPLICA, bucket.getFromReplica(document));
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> getFromReplica(String id, ReplicaMode type,
+      Class<D> target) {
+    Observable<D> source = bucket.getFromReplica(id, type, target);
+    if (!helper.isSampled(Operation.GET_FROM_REPLICA)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.GET_FROM_REPLICA, source, "id", id, "type", type, "target", target);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> getFromReplica(String id, Class<D> target) {
+    Observable<D> source = bucket.getFromReplica(id, target);
+    if (!helper.isSampled(Operation.GET_FROM_REPLICA)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.GET_FROM_REPLICA, source, "id", id, "target", target);
+  }
+
+  @Override
+  public Observable<JsonDocument> getAndLock(String id, int lockTime) {
+    Observable<JsonDocument> source = bucket.getAndLock(id, lockTime);
+    if (!helper.isSampled(Operation.GET_AND_LOCK)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.GET_AND_LOCK, source, "id", id, "lockTime", lockTime);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> getAndLock(D document, int lockTime) {
+    Observable<D> source = bucket.getAndLock(document, lockTime);
+    if (!helper.isSampled(Operation.GET_AND_LOCK)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.GET_AND_LOCK, source, "lockTime", lockTime);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> getAndLock(String id, int lockTime,
+      Class<D> target) {
+    Observable<D> source = bucket.getAndLock(id, lockTime, target);
+    if (!helper.isSampled(Operation.GET_AND_LOCK)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.GET_AND_LOCK, source, "id", id, "lockTime", lockTime, "target", target);
+  }
+
+  @Override
+  public Observable<JsonDocument> getAndTouch(String id, int expiry) {
+    Observable<JsonDocument> source = bucket.getAndTouch(id, expiry);
+    if (!helper.isSampled(Operation.GET_AND_TOUCH)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.GET_AND_TOUCH, source, "id", id, "expiry", expiry);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> getAndTouch(D document) {
+    return trace(Operation.GET_AND_TOUCH, bucket.getAndTouch(document));
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> getAndTouch(String id, int expiry, Class<D> target) {
+    Observable<D> source = bucket.getAndTouch(id, expiry, target);
+    if (!helper.isSampled(Operation.GET_AND_TOUCH)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.GET_AND_TOUCH, source, "id", id, "expiry", expiry, "target", target);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> insert(D document) {
+    return trace(Operation.INSERT, bucket.insert(document));
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> insert(D document, PersistTo persistTo,
+      ReplicateTo replicateTo) {
+    Observable<D> source = bucket.insert(document, persistTo, replicateTo);
+    if (!helper.isSampled(Operation.INSERT)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.INSERT, source, "persistTo", persistTo, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> insert(D document, PersistTo persistTo) {
+    Observable<D> source = bucket.insert(document, persistTo);
+    if (!helper.isSampled(Operation.INSERT)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.INSERT, source, "persistTo", persistTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> insert(D document, ReplicateTo replicateTo) {
+    Observable<D> source = bucket.insert(document, replicateTo);
+    if (!helper.isSampled(Operation.INSERT)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.INSERT, source, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> upsert(D document) {
+    return trace(Operation.UPSERT, bucket.upsert(document));
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> upsert(D document, PersistTo persistTo,
+      ReplicateTo replicateTo) {
+    Observable<D> source = bucket.upsert(document, persistTo, replicateTo);
+    if (!helper.isSampled(Operation.UPSERT)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.UPSERT, source, "persistTo", persistTo, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> upsert(D document, PersistTo persistTo) {
+    Observable<D> source = bucket.upsert(document, persistTo);
+    if (!helper.isSampled(Operation.UPSERT)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.UPSERT, source, "persistTo", persistTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> upsert(D document, ReplicateTo replicateTo) {
+    Observable<D> source = bucket.upsert(document, replicateTo);
+    if (!helper.isSampled(Operation.UPSERT)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.UPSERT, source, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> replace(D document) {
+    return trace(Operation.REPLACE, bucket.replace(document));
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> replace(D document, PersistTo persistTo,
+      ReplicateTo replicateTo) {
+    Observable<D> source = bucket.replace(document, persistTo, replicateTo);
+    if (!helper.isSampled(Operation.REPLACE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.REPLACE, source, "persistTo", persistTo, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> replace(D document, PersistTo persistTo) {
+    Observable<D> source = bucket.replace(document, persistTo);
+    if (!helper.isSampled(Operation.REPLACE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.REPLACE, source, "persistTo", persistTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> replace(D document, ReplicateTo replicateTo) {
+    Observable<D> source = bucket.replace(document, replicateTo);
+    if (!helper.isSampled(Operation.REPLACE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.REPLACE, source, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> remove(D document) {
+    return trace(Operation.REMOVE, bucket.remove(document));
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> remove(D document, PersistTo persistTo,
+      ReplicateTo replicateTo) {
+    Observable<D> source = bucket.remove(document, persistTo, replicateTo);
+    if (!helper.isSampled(Operation.REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.REMOVE, source, "persistTo", persistTo, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> remove(D document, PersistTo persistTo) {
+    Observable<D> source = bucket.remove(document, persistTo);
+    if (!helper.isSampled(Operation.REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.REMOVE, source, "persistTo", persistTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> remove(D document, ReplicateTo replicateTo) {
+    Observable<D> source = bucket.remove(document, replicateTo);
+    if (!helper.isSampled(Operation.REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.REMOVE, source, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public Observable<JsonDocument> remove(String id) {
+    Observable<JsonDocument> source = bucket.remove(id);
+    if (!helper.isSampled(Operation.REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.REMOVE, source, "id", id);
+  }
+
+  @Override
+  public Observable<JsonDocument> remove(String id, PersistTo persistTo, ReplicateTo replicateTo) {
+    Observable<JsonDocument> source = bucket.remove(id, persistTo, replicateTo);
+    if (!helper.isSampled(Operation.REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.REMOVE, source, "id", id, "persistTo", persistTo, "replicateTo",
+        replicateTo);
+  }
+
+  @Override
+  public Observable<JsonDocument> remove(String id, PersistTo persistTo) {
+    Observable<JsonDocument> source = bucket.remove(id, persistTo);
+    if (!helper.isSampled(Operation.REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.REMOVE, source, "id", id, "persistTo", persistTo);
+  }
+
+  @Override
+  public Observable<JsonDocument> remove(String id, ReplicateTo replicateTo) {
+    Observable<JsonDocument> source = bucket.remove(id, replicateTo);
+    if (!helper.isSampled(Operation.REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.REMOVE, source, "id", id, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> remove(String id, Class<D> target) {
+    Observable<D> source = bucket.remove(id, target);
+    if (!helper.isSampled(Operation.REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.REMOVE, source, "id", id, "target", target);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> remove(String id, PersistTo persistTo,
+      ReplicateTo replicateTo, Class<D> target) {
+    Observable<D> source = bucket.remove(id, persistTo, replicateTo, target);
+    if (!helper.isSampled(Operation.REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.REMOVE, source, "id", id, "target", target, "persistTo", persistTo,
+        "replicateTo", replicateTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> remove(String id, PersistTo persistTo,
+      Class<D> target) {
+    Observable<D> source = bucket.remove(id, persistTo, target);
+    if (!helper.isSampled(Operation.REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.REMOVE, source, "id", id, "target", target, "persistTo", persistTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> remove(String id, ReplicateTo replicateTo,
+      Class<D> target) {
+    Observable<D> source = bucket.remove(id, replicateTo, target);
+    if (!helper.isSampled(Operation.REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.REMOVE, source, "id", id, "target", target, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public Observable<AsyncViewResult> query(ViewQuery query) {
+    Observable<AsyncViewResult> source = bucket.query(query);
+    if (!helper.isSampled(Operation.QUERY)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.QUERY, source, Tags.DB_STATEMENT.getKey(), helper.statement(query));
+  }
+
+  @Override
+  public Observable<AsyncSpatialViewResult> query(SpatialViewQuery query) {
+    Observable<AsyncSpatialViewResult> source = bucket.query(query);
+    if (!helper.isSampled(Operation.QUERY)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.QUERY, source, Tags.DB_STATEMENT.getKey(), helper.statement(query));
+  }
+
+  @Override
+  public Observable<AsyncN1qlQueryResult> query(Statement statement) {
+    Observable<AsyncN1qlQueryResult> source = bucket.query(statement);
+    if (!helper.isSampled(Operation.QUERY)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.QUERY, source, Tags.DB_STATEMENT.getKey(), helper.statement(statement));
+  }
+
+  @Override
+  public Observable<AsyncN1qlQueryResult> query(N1qlQuery query) {
+    Observable<AsyncN1qlQueryResult> source = bucket.query(query);
+    if (!helper.isSampled(Operation.QUERY)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.QUERY, source, Tags.DB_STATEMENT.getKey(), helper.statement(query));
+  }
+
+  @Override
+  @Committed
+  public Observable<AsyncSearchQueryResult> query(SearchQuery query) {
+    Observable<AsyncSearchQueryResult> source = bucket.query(query);
+    if (!helper.isSampled(Operation.QUERY)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.QUERY, source, Tags.DB_STATEMENT.getKey(), helper.statement(query));
+  }
+
+  @Override
+  @Uncommitted
+  public Observable<AsyncAnalyticsQueryResult> query(AnalyticsQuery query) {
+    Observable<AsyncAnalyticsQueryResult> source = bucket.query(query);
+    if (!helper.isSampled(Operation.QUERY)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.QUERY, source, Tags.DB_STATEMENT.getKey(), helper.statement(query));
+  }
+
+  @Override
+  public Observable<Boolean> unlock(String id, long cas) {
+    Observable<Boolean> source = bucket.unlock(id, cas);
+    if (!helper.isSampled(Operation.UNLOCK)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.UNLOCK, source, "id", id, "cas", cas);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<Boolean> unlock(D document) {
+    return trace(Operation.UNLOCK, bucket.unlock(document));
+  }
+
+  @Override
+  public Observable<Boolean> touch(String id, int expiry) {
+    Observable<Boolean> source = bucket.touch(id, expiry);
+    if (!helper.isSampled(Operation.TOUCH)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.TOUCH, source, "id", id, "expiry", expiry);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<Boolean> touch(D document) {
+    return trace(Operation.TOUCH, bucket.touch(document));
+  }
+
+  @Override
+  public Observable<JsonLongDocument> counter(String id, long delta) {
+    Observable<JsonLongDocument> source = bucket.counter(id, delta);
+    if (!helper.isSampled(Operation.COUNTER)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.COUNTER, source, "id", id, "delta", delta);
+  }
+
+  @Override
+  public Observable<JsonLongDocument> counter(String id, long delta, PersistTo persistTo) {
+    Observable<JsonLongDocument> source = bucket.counter(id, delta, persistTo);
+    if (!helper.isSampled(Operation.COUNTER)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.COUNTER, source, "id", id, "delta", delta, "persistTo", persistTo);
+  }
+
+  @Override
+  public Observable<JsonLongDocument> counter(String id, long delta, ReplicateTo replicateTo) {
+    Observable<JsonLongDocument> source = bucket.counter(id, delta, replicateTo);
+    if (!helper.isSampled(Operation.COUNTER)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.COUNTER, source, "id", id, "delta", delta, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public Observable<JsonLongDocument> counter(String id, long delta, PersistTo persistTo,
+      ReplicateTo replicateTo) {
+    Observable<JsonLongDocument> source = bucket.counter(id, delta, persistTo, replicateTo);
+    if (!helper.isSampled(Operation.COUNTER)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.COUNTER, source, "id", id, "delta", delta, "persistTo", persistTo,
+        "replicateTo", replicateTo);
+  }
+
+  @Override
+  public Observable<JsonLongDocument> counter(String id, long delta, long initial) {
+    Observable<JsonLongDocument> source = bucket.counter(id, delta, initial);
+    if (!helper.isSampled(Operation.COUNTER)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.COUNTER, source, "id", id, "delta", delta, "initial", initial);
+  }
+
+  @Override
+  public Observable<JsonLongDocument> counter(String id, long delta, long initial,
+      PersistTo persistTo) {
+    Observable<JsonLongDocument> source = bucket.counter(id, delta, initial, persistTo);
+    if (!helper.isSampled(Operation.COUNTER)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.COUNTER, source, "id", id, "delta", delta, "initial", initial,
+        "persistTo", persistTo);
+  }
+
+  @Override
+  public Observable<JsonLongDocument> counter(String id, long delta, long initial,
+      ReplicateTo replicateTo) {
+    Observable<JsonLongDocument> source = bucket.counter(id, delta, initial, replicateTo);
+    if (!helper.isSampled(Operation.COUNTER)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.COUNTER, source, "id", id, "delta", delta, "initial", initial,
+        "replicateTo", replicateTo);
+  }
+
+  @Override
+  public Observable<JsonLongDocument> counter(String id, long delta, long initial,
+      PersistTo persistTo, ReplicateTo replicateTo) {
+    Observable<JsonLongDocument> source = bucket.counter(id, delta, initial, persistTo,
+        replicateTo);
+    if (!helper.isSampled(Operation.COUNTER)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.COUNTER, source, "id", id, "delta", delta, "initial", initial,
+        "persistTo", persistTo, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public Observable<JsonLongDocument> counter(String id, long delta, long initial, int expiry) {
+    Observable<JsonLongDocument> source = bucket.counter(id, delta, initial, expiry);
+    if (!helper.isSampled(Operation.COUNTER)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.COUNTER, source, "id", id, "delta", delta, "initial", initial, "expiry",
+        expiry);
+  }
+
+  @Override
+  public Observable<JsonLongDocument> counter(String id, long delta, long initial, int expiry,
+      PersistTo persistTo) {
+    Observable<JsonLongDocument> source = bucket.counter(id, delta, initial, expiry, persistTo);
+    if (!helper.isSampled(Operation.COUNTER)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.COUNTER, source, "id", id, "delta", delta, "initial", initial, "expiry",
+        expiry, "persistTo", persistTo);
+  }
+
+  @Override
+  public Observable<JsonLongDocument> counter(String id, long delta, long initial, int expiry,
+      ReplicateTo replicateTo) {
+    Observable<JsonLongDocument> source = bucket.counter(id, delta, initial, expiry, replicateTo);
+    if (!helper.isSampled(Operation.COUNTER)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.COUNTER, source, "id", id, "delta", delta, "initial", initial, "expiry",
+        expiry, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public Observable<JsonLongDocument> counter(String id, long delta, long initial, int expiry,
+      PersistTo persistTo, ReplicateTo replicateTo) {
+    Observable<JsonLongDocument> source = bucket.counter(id, delta, initial, expiry, persistTo,
+        replicateTo);
+    if (!helper.isSampled(Operation.COUNTER)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.COUNTER, source, "id", id, "delta", delta, "initial", initial, "expiry",
+        expiry, "persistTo", persistTo, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> append(D document) {
+    return trace(Operation.APPEND, bucket.append(document));
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> append(D document, PersistTo persistTo) {
+    Observable<D> source = bucket.append(document, persistTo);
+    if (!helper.isSampled(Operation.APPEND)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.APPEND, source, "persistTo", persistTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> append(D document, ReplicateTo replicateTo) {
+    Observable<D> source = bucket.append(document, replicateTo);
+    if (!helper.isSampled(Operation.APPEND)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.APPEND, source, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> append(D document, PersistTo persistTo,
+      ReplicateTo replicateTo) {
+    Observable<D> source = bucket.append(document, persistTo, replicateTo);
+    if (!helper.isSampled(Operation.APPEND)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.APPEND, source, "persistTo", persistTo, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> prepend(D document) {
+    return trace(Operation.PREPEND, bucket.prepend(document));
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> prepend(D document, PersistTo persistTo) {
+    Observable<D> source = bucket.prepend(document, persistTo);
+    if (!helper.isSampled(Operation.PREPEND)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.PREPEND, source, "persistTo", persistTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> prepend(D document, ReplicateTo replicateTo) {
+    Observable<D> source = bucket.prepend(document, replicateTo);
+    if (!helper.isSampled(Operation.PREPEND)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.PREPEND, source, "replicateTo", replicateTo);
+  }
+
+  @Override
+  public <D extends Document<?>> Observable<D> prepend(D document, PersistTo persistTo,
+      ReplicateTo replicateTo) {
+    Observable<D> source = bucket.prepend(document, persistTo, replicateTo);
+    if (!helper.isSampled(Operation.PREPEND)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.PREPEND, source, "persistTo", persistTo, "replicateTo", replicateTo);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <V> Observable<Boolean> mapAdd(String docId, String key, V value) {
+    Observable<Boolean> source = bucket.mapAdd(docId, key, value);
+    if (!helper.isSampled(Operation.MAP_ADD)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.MAP_ADD, source, "docId", docId, "key", key, "value", value);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <V> Observable<Boolean> mapAdd(String docId, String key, V value,
+      MutationOptionBuilder mutationOptionBuilder) {
+    Observable<Boolean> source = bucket.mapAdd(docId, key, value, mutationOptionBuilder);
+    if (!helper.isSampled(Operation.MAP_ADD)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.MAP_ADD, source, "docId", docId, "key", key, "value", value);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <V> Observable<V> mapGet(String docId, String key, Class<V> valueType) {
+    Observable<V> source = bucket.mapGet(docId, key, valueType);
+    if (!helper.isSampled(Operation.MAP_GET)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.MAP_GET, source, "docId", docId, "key", key, "valueType", valueType);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public Observable<Boolean> mapRemove(String docId, String key) {
+    Observable<Boolean> source = bucket.mapRemove(docId, key);
+    if (!helper.isSampled(Operation.MAP_REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.MAP_REMOVE, source, "docId", docId, "key", key);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public Observable<Boolean> mapRemove(String docId, String key,
+      MutationOptionBuilder mutationOptionBuilder) {
+    Observable<Boolean> source = bucket.mapRemove(docId, key, mutationOptionBuilder);
+    if (!helper.isSampled(Operation.MAP_REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.MAP_REMOVE, source, "docId", docId, "key", key);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public Observable<Integer> mapSize(String docId) {
+    Observable<Integer> source = bucket.mapSize(docId);
+    if (!helper.isSampled(Operation.MAP_SIZE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.MAP_SIZE, source, "docId", docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<E> listGet(String docId, int index, Class<E> elementType) {
+    Observable<E> source = bucket.listGet(docId, index, elementType);
+    if (!helper.isSampled(Operation.LIST_GET)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.LIST_GET, source, "docId", docId, "index", index, "elementType",
+        elementType);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<Boolean> listAppend(String docId, E element) {
+    Observable<Boolean> source = bucket.listAppend(docId, element);
+    if (!helper.isSampled(Operation.LIST_APPEND)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.LIST_APPEND, source, "docId", docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<Boolean> listAppend(String docId, E element,
+      MutationOptionBuilder mutationOptionBuilder) {
+    Observable<Boolean> source = bucket.listAppend(docId, element, mutationOptionBuilder);
+    if (!helper.isSampled(Operation.LIST_APPEND)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.LIST_APPEND, source, "docId", docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public Observable<Boolean> listRemove(String docId, int index) {
+    Observable<Boolean> source = bucket.listRemove(docId, index);
+    if (!helper.isSampled(Operation.LIST_REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.LIST_REMOVE, source, "docId", docId, "index", index);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public Observable<Boolean> listRemove(String docId, int index,
+      MutationOptionBuilder mutationOptionBuilder) {
+    Observable<Boolean> source = bucket.listRemove(docId, index, mutationOptionBuilder);
+    if (!helper.isSampled(Operation.LIST_REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.LIST_REMOVE, source, "docId", docId, "index", index);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<Boolean> listPrepend(String docId, E element) {
+    Observable<Boolean> source = bucket.listPrepend(docId, element);
+    if (!helper.isSampled(Operation.LIST_PREPEND)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.LIST_PREPEND, source, "docId", docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<Boolean> listPrepend(String docId, E element,
+      MutationOptionBuilder mutationOptionBuilder) {
+    Observable<Boolean> source = bucket.listPrepend(docId, element, mutationOptionBuilder);
+    if (!helper.isSampled(Operation.LIST_PREPEND)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.LIST_PREPEND, source, "docId", docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<Boolean> listSet(String docId, int index, E element) {
+    Observable<Boolean> source = bucket.listSet(docId, index, element);
+    if (!helper.isSampled(Operation.LIST_SET)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.LIST_SET, source, "docId", docId, "index", index);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<Boolean> listSet(String docId, int index, E element,
+      MutationOptionBuilder mutationOptionBuilder) {
+    Observable<Boolean> source = bucket.listSet(docId, index, element, mutationOptionBuilder);
+    if (!helper.isSampled(Operation.LIST_SET)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.LIST_SET, source, "docId", docId, "index", index);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public Observable<Integer> listSize(String docId) {
+    Observable<Integer> source = bucket.listSize(docId);
+    if (!helper.isSampled(Operation.LIST_SIZE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.LIST_SIZE, source, "docId", docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<Boolean> setAdd(String docId, E element) {
+    Observable<Boolean> source = bucket.setAdd(docId, element);
+    if (!helper.isSampled(Operation.SET_ADD)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.SET_ADD, source, "docId", docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<Boolean> setAdd(String docId, E element,
+      MutationOptionBuilder mutationOptionBuilder) {
+    Observable<Boolean> source = bucket.setAdd(docId, element, mutationOptionBuilder);
+    if (!helper.isSampled(Operation.SET_ADD)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.SET_ADD, source, "docId", docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<Boolean> setContains(String docId, E element) {
+    Observable<Boolean> source = bucket.setContains(docId, element);
+    if (!helper.isSampled(Operation.SET_CONTAINS)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.SET_CONTAINS, source, "docId", docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<E> setRemove(String docId, E element) {
+    Observable<E> source = bucket.setRemove(docId, element);
+    if (!helper.isSampled(Operation.SET_REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.SET_REMOVE, source, "docId", docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<E> setRemove(String docId, E element,
+      MutationOptionBuilder mutationOptionBuilder) {
+    Observable<E> source = bucket.setRemove(docId, element, mutationOptionBuilder);
+    if (!helper.isSampled(Operation.SET_REMOVE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.SET_REMOVE, source, "docId", docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public Observable<Integer> setSize(String docId) {
+    Observable<Integer> source = bucket.setSize(docId);
+    if (!helper.isSampled(Operation.SET_SIZE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.SET_SIZE, source, "docId", docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<Boolean> queuePush(String docId, E element) {
+    Observable<Boolean> source = bucket.queuePush(docId, element);
+    if (!helper.isSampled(Operation.QUEUE_PUSH)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.QUEUE_PUSH, source, "docId", docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<Boolean> queuePush(String docId, E element,
+      MutationOptionBuilder mutationOptionBuilder) {
+    Observable<Boolean> source = bucket.queuePush(docId, element, mutationOptionBuilder);
+    if (!helper.isSampled(Operation.QUEUE_PUSH)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.QUEUE_PUSH, source, "docId", docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<E> queuePop(String docId, Class<E> elementType) {
+    Observable<E> source = bucket.queuePop(docId, elementType);
+    if (!helper.isSampled(Operation.QUEUE_POP)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.QUEUE_POP, source, "docId", docId, "elementType", elementType);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public <E> Observable<E> queuePop(String docId, Class<E> elementType,
+      MutationOptionBuilder mutationOptionBuilder) {
+    Observable<E> source = bucket.queuePop(docId, elementType, mutationOptionBuilder);
+    if (!helper.isSampled(Operation.QUEUE_POP)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.QUEUE_POP, source, "docId", docId, "elementType", elementType);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public Observable<Integer> queueSize(String docId) {
+    Observable<Integer> source = bucket.queueSize(docId);
+    if (!helper.isSampled(Operation.QUEUE_SIZE)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.QUEUE_SIZE, source, "docId", docId);
+  }
+
+  @Override
+  public Observable<Integer> invalidateQueryCache() {
+    return trace(Operation.INVALIDATE_QUERY_CACHE, bucket.invalidateQueryCache());
+  }
+
+  @Override
+  public Observable<Boolean> close() {
+    return trace(Operation.CLOSE, bucket.close());
+  }
+
+  @Override
+  public Observable<PingReport> ping(String reportId, long timeout, TimeUnit timeUnit) {
+    Observable<PingReport> source = bucket.ping(reportId, timeout, timeUnit);
+    if (!helper.isSampled(Operation.PING)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.PING, source, "reportId", reportId, "timeout", timeout, "timeUnit",
+        timeUnit);
+  }
+
+  @Override
+  public Observable<PingReport> ping(long timeout, TimeUnit timeUnit) {
+    Observable<PingReport> source = bucket.ping(timeout, timeUnit);
+    if (!helper.isSampled(Operation.PING)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.PING, source, "timeout", timeout, "timeUnit", timeUnit);
+  }
+
+  @Override
+  public Observable<PingReport> ping(Collection<ServiceType> services, long timeout,
+      TimeUnit timeUnit) {
+    Observable<PingReport> source = bucket.ping(services, timeout, timeUnit);
+    if (!helper.isSampled(Operation.PING)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.PING, source, "services", services, "timeout", timeout, "timeUnit",
+        timeUnit);
+  }
+
+  @Override
+  public Observable<PingReport> ping(String reportId, Collection<ServiceType> services,
+      long timeout, TimeUnit timeUnit) {
+    Observable<PingReport> source = bucket.ping(reportId, services, timeout, timeUnit);
+    if (!helper.isSampled(Operation.PING)) {
+      return helper.untraced(source);
+    }
+    return trace(Operation.PING, source, "reportId", reportId, "services", services, "timeout",
+        timeout, "timeUnit", timeUnit);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public AsyncLookupInBuilder lookupIn(String docId) {
+    return bucket.lookupIn(docId);
+  }
+
+  @Override
+  @Committed
+  @Public
+  public AsyncMutateInBuilder mutateIn(String docId) {
+    return bucket.mutateIn(docId);
+  }
+
+  @Override
+  public Observable<AsyncBucketManager> bucketManager() {
+    return bucket.bucketManager();
+  }
+
+  @Override
+  public Observable<AsyncRepository> repository() {
+    return bucket.repository();
+  }
+
+  @Override
+  public boolean isClosed() {
+    return bucket.isClosed();
+  }
+
+  /**
+   * Streams the rows of a N1QL query with backpressure. Unlike {@link #query(N1qlQuery)} the span
+   * stays open until the last row has been delivered and is tagged with the number of rows and
+   * bytes. Errors reported by the query service fail the stream with a
+   * {@link QueryExecutionException}.
+   */
+  public Observable<AsyncN1qlQueryRow> queryRows(N1qlQuery query) {
+    Observable<AsyncN1qlQueryRow> source = rows(bucket.query(query));
+    if (!helper.isSampled(Operation.QUERY)) {
+      return helper.untraced(source);
+    }
+    return helper.traceSampledRows(Operation.QUERY, source, Tags.DB_STATEMENT.getKey(),
+        helper.statement(query));
+  }
+
+  /**
+   * Streams the rows of a N1QL statement, see {@link #queryRows(N1qlQuery)}.
+   */
+  public Observable<AsyncN1qlQueryRow> queryRows(Statement statement) {
+    Observable<AsyncN1qlQueryRow> source = rows(bucket.query(statement));
+    if (!helper.isSampled(Operation.QUERY)) {
+      return helper.untraced(source);
+    }
+    return helper.traceSampledRows(Operation.QUERY, source, Tags.DB_STATEMENT.getKey(),
+        helper.statement(statement));
+  }
+
+  /**
+   * Starts a batch of operations which is traced as a single span, see {@link TracingBatch}.
+   *
+   * @param outlierThreshold operations taking at least this long get their own span
+   */
+  public TracingBatch batch(Operation operation, long outlierThreshold, TimeUnit timeUnit) {
+    return helper.batch(operation, outlierThreshold, timeUnit);
+  }
+
+  /**
+   * Returns the wrapped bucket, whose operations are not traced. Used to pass operations to a
+   * {@link TracingBatch}.
+   */
+  public AsyncBucket untraced() {
+    return bucket;
+  }
+
+  private static Observable<AsyncN1qlQueryRow> rows(Observable<AsyncN1qlQueryResult> results) {
+    // concatMap requests rows from the result only as the subscriber requests them
+    return results.concatMap(ROWS);
+  }
+
+  private <T> Observable<T> trace(Operation operation, Observable<T> source) {
+    return helper.trace(operation, source);
+  }
+
+  /**
+   * Traces a call which was sampled with {@link TracingHelper#isSampled(Operation)}.
+   */
+  private <T> Observable<T> trace(Operation operation, Observable<T> source, Object... tags) {
+    return helper.traceSampled(operation, source, tags);
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.annotations.InterfaceAudience.Public;
+import com.couchbase.client.core.annotations.InterfaceStability.Experimental;
+import com.couchbase.client.core.annotations.InterfaceStability.Uncommitted;
+import com.couchbase.client.core.message.internal.DiagnosticsReport;
+import com.couchbase.client.java.AsyncBucket;
+import com.couchbase.client.java.AsyncCluster;
+import com.couchbase.client.java.auth.Authenticator;
+import com.couchbase.client.java.cluster.AsyncClusterManager;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.query.AsyncN1qlQueryResult;
+import com.couchbase.client.java.query.N1qlQuery;
+import com.couchbase.client.java.transcoder.Transcoder;
+import io.opentracing.Tracer;
+import io.opentracing.tag.Tags;
+import java.util.List;
+import rx.Observable;
+import rx.functions.Func1;
+
+/**
+ * Traces the operations of an {@link AsyncCluster} with the same spans and tags as {@link
+ * TracingCluster}. Every subscription is traced separately, see {@link TracingOnSubscribe}.
+ * Opened buckets and cluster managers are traced as well.
+ */
+public class TracingAsyncCluster implements AsyncCluster {
+
+  private final AsyncCluster cluster;
+  private final TracingHelper helper;
+  private final Func1<AsyncBucket, AsyncBucket> tracingBucket =
+      new Func1<AsyncBucket, AsyncBucket>() {
+        @Override
+        public AsyncBucket call(AsyncBucket bucket) {
+          return new TracingAsyncBucket(bucket, helper.forBucket(bucket.name()));
+        }
+      };
+  private final Func1<AsyncClusterManager, AsyncClusterManager> tracingClusterManager =
+      new Func1<AsyncClusterManager, AsyncClusterManager>() {
+        @Override
+        public AsyncClusterManager call(AsyncClusterManager clusterManager) {
+          return new TracingAsyncClusterManager(clusterManager, helper);
+        }
+      };
+
+  public TracingAsyncCluster(AsyncCluster cluster, Tracer tracer) {
+    this(cluster, tracer, false);
+  }
+
+  public TracingAsyncCluster(AsyncCluster cluster, Tracer tracer,
+      boolean traceWithActiveSpanOnly) {
+    this(cluster, new TracingHelper(tracer, traceWithActiveSpanOnly));
+  }
+
+  public TracingAsyncCluster(AsyncCluster cluster, TracingHelper helper) {
+    this.cluster = cluster;
+    this.helper = helper;
+  }
+
+  @Override
+  public Observable<AsyncBucket> openBucket() {
+    return helper.trace(Operation.OPEN_BUCKET, cluster.openBucket()).map(tracingBucket);
+  }
+
+  @Override
+  public Observable<AsyncBucket> openBucket(String name) {
+    Observable<AsyncBucket> source = cluster.openBucket(name);
+    if (!helper.isSampled(Operation.OPEN_BUCKET)) {
+      return helper.untraced(source).map(tracingBucket);
+    }
+    return helper.traceSampled(Operation.OPEN_BUCKET, source, "name", name).map(tracingBucket);
+  }
+
+  @Override
+  public Observable<AsyncBucket> openBucket(String name,
+      List<Transcoder<? extends Document, ?>> transcoders) {
+    Observable<AsyncBucket> source = cluster.openBucket(name, transcoders);
+    if (!helper.isSampled(Operation.OPEN_BUCKET)) {
+      return helper.untraced(source).map(tracingBucket);
+    }
+    return helper.traceSampled(Operation.OPEN_BUCKET, source, "name", name, "transcoders",
+        TracingHelper.toStringClass(transcoders)).map(tracingBucket);
+  }
+
+  @Override
+  public Observable<AsyncBucket> openBucket(String name, String password) {
+    Observable<AsyncBucket> source = cluster.openBucket(name, password);
+    if (!helper.isSampled(Operation.OPEN_BUCKET)) {
+      return helper.untraced(source).map(tracingBucket);
+    }
+    return helper.traceSampled(Operation.OPEN_BUCKET, source, "name", name).map(tracingBucket);
+  }
+
+  @Override
+  public Observable<AsyncBucket> openBucket(String name, String password,
+      List<Transcoder<? extends Document, ?>> transcoders) {
+    Observable<AsyncBucket> source = cluster.openBucket(name, password, transcoders);
+    if (!helper.isSampled(Operation.OPEN_BUCKET)) {
+      return helper.untraced(source).map(tracingBucket);
+    }
+    return helper.traceSampled(Operation.OPEN_BUCKET, source, "name", name, "transcoders",
+        TracingHelper.toStringClass(transcoders)).map(tracingBucket);
+  }
+
+  @Override
+  @Uncommitted
+  public Observable<AsyncN1qlQueryResult> query(N1qlQuery query) {
+    Observable<AsyncN1qlQueryResult> source = cluster.query(query);
+    if (!helper.isSampled(Operation.QUERY)) {
+      return helper.untraced(source);
+    }
+    return helper.traceSampled(Operation.QUERY, source, Tags.DB_STATEMENT.getKey(),
+        helper.statement(query));
+  }
+
+  @Override
+  public Observable<AsyncClusterManager> clusterManager(String username, String password) {
+    return cluster.clusterManager(username, password).map(tracingClusterManager);
+  }
+
+  @Override
+  public Observable<AsyncClusterManager> clusterManager() {
+    return cluster.clusterManager().map(tracingClusterManager);
+  }
+
+  @Override
+  public Observable<Boolean> disconnect() {
+    return helper.trace(Operation.DISCONNECT, cluster.disconnect());
+  }
+
+  @Override
+  public Observable<ClusterFacade> core() {
+    return cluster.core().map(new Func1<ClusterFacade, ClusterFacade>() {
+      @Override
+      public ClusterFacade call(ClusterFacade core) {
+        return new TracingClusterFacade(core, helper);
+      }
+    });
+  }
+
+  @Override
+  public AsyncCluster authenticate(Authenticator auth) {
+    return new TracingAsyncCluster(cluster.authenticate(auth), helper);
+  }
+
+  @Override
+  public AsyncCluster authenticate(String username, String password) {
+    return new TracingAsyncCluster(cluster.authenticate(username, password), helper);
+  }
+
+  @Override
+  @Experimental
+  @Public
+  public Observable<DiagnosticsReport> diagnostics() {
+    return helper.trace(Operation.DIAGNOSTICS, cluster.diagnostics());
+  }
+
+  @Override
+  @Experimental
+  @Public
+  public Observable<DiagnosticsReport> diagnostics(String reportId) {
+    Observable<DiagnosticsReport> source = cluster.diagnostics(reportId);
+    if (!helper.isSampled(Operation.DIAGNOSTICS)) {
+      return helper.untraced(source);
+    }
+    return helper.traceSampled(Operation.DIAGNOSTICS, source, "reportId", reportId);
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import com.couchbase.client.core.annotations.InterfaceStability.Experimental;
+import com.couchbase.client.java.cluster.AsyncClusterManager;
+import com.couchbase.client.java.cluster.AuthDomain;
+import com.couchbase.client.java.cluster.BucketSettings;
+import com.couchbase.client.java.cluster.ClusterInfo;
+import com.couchbase.client.java.cluster.User;
+import com.couchbase.client.java.cluster.UserSettings;
+import com.couchbase.client.java.cluster.api.ClusterApiClient;
+import rx.Observable;
+
+/**
+ * Traces the operations of an {@link AsyncClusterManager} with the same spans and tags as {@link
+ * TracingClusterManager}. Every subscription is traced separately, see {@link
+ * TracingOnSubscribe}.
+ */
+public class TracingAsyncClusterManager implements AsyncClusterManager {
+
+  private final AsyncClusterManager clusterManager;
+  private final TracingHelper helper;
+
+  public TracingAsyncClusterManager(AsyncClusterManager clusterManager, TracingHelper helper) {
+    this.clusterManager = clusterManager;
+    this.helper = helper;
+  }
+
+  @Override
+  public Observable<ClusterInfo> info() {
+    return helper.trace(Operation.INFO, clusterManager.info());
+  }
+
+  @Override
+  public Observable<BucketSettings> getBuckets() {
+    return helper.trace(Operation.GET_BUCKETS, clusterManager.getBuckets());
+  }
+
+  @Override
+  public Observable<BucketSettings> getBucket(String name) {
+    Observable<BucketSettings> source = clusterManager.getBucket(name);
+    if (!helper.isSampled(Operation.GET_BUCKET)) {
+      return helper.untraced(source);
+    }
+    return helper.traceSampled(Operation.GET_BUCKET, source, "name", name);
+  }
+
+  @Override
+  public Observable<Boolean> hasBucket(String name) {
+    Observable<Boolean> source = clusterManager.hasBucket(name);
+    if (!helper.isSampled(Operation.HAS_BUCKET)) {
+      return helper.untraced(source);
+    }
+    return helper.traceSampled(Operation.HAS_BUCKET, source, "name", name);
+  }
+
+  @Override
+  public Observable<BucketSettings> insertBucket(BucketSettings settings) {
+    Observable<BucketSettings> source = clusterManager.insertBucket(settings);
+    if (!helper.isSampled(Operation.INSERT_BUCKET)) {
+      return helper.untraced(source);
+    }
+    return helper.traceSampled(Operation.INSERT_BUCKET, source, "settings", settings);
+  }
+
+  @Override
+  public Observable<BucketSettings> updateBucket(BucketSettings settings) {
+    Observable<BucketSettings> source = clusterManager.updateBucket(settings);
+    if (!helper.isSampled(Operation.UPDATE_BUCKET)) {
+      return helper.untraced(source);
+    }
+    return helper.traceSampled(Operation.UPDATE_BUCKET, source, "settings", settings);
+  }
+
+  @Override
+  public Observable<Boolean> removeBucket(String name) {
+    Observable<Boolean> source = clusterManager.removeBucket(name);
+    if (!helper.isSampled(Operation.REMOVE_BUCKET)) {
+      return helper.untraced(source);
+    }
+    return helper.traceSampled(Operation.REMOVE_BUCKET, source, "name", name);
+  }
+
+  @Override
+  @Experimental
+  public Observable<Boolean> upsertUser(AuthDomain domain, String username,
+      UserSettings settings) {
+    Observable<Boolean> source = clusterManager.upsertUser(domain, username, settings);
+    if (!helper.isSampled(Operation.UPSERT_USER)) {
+      return helper.untraced(source);
+    }
+    return helper.traceSampled(Operation.UPSERT_USER, source, "domain", domain, "username",
+        username);
+  }
+
+  @Override
+  @Experimental
+  public Observable<Boolean> removeUser(AuthDomain domain, String username) {
+    Observable<Boolean> source = clusterManager.removeUser(domain, username);
+    if (!helper.isSampled(Operation.REMOVE_USER)) {
+      return helper.untraced(source);
+    }
+    return helper.traceSampled(Operation.REMOVE_USER, source, "domain", domain, "username",
+        username);
+  }
+
+  @Override
+  @Experimental
+  public Observable<User> getUsers(AuthDomain domain) {
+    Observable<User> source = clusterManager.getUsers(domain);
+    if (!helper.isSampled(Operation.GET_USERS)) {
+      return helper.untraced(source);
+    }
+    return helper.traceSampled(Operation.GET_USERS, source, "domain", domain);
+  }
+
+  @Override
+  @Experimental
+  public Observable<User> getUser(AuthDomain domain, String userid) {
+    Observable<User> source = clusterManager.getUser(domain, userid);
+    if (!helper.isSampled(Operation.GET_USER)) {
+      return helper.untraced(source);
+    }
+    return helper.traceSampled(Operation.GET_USER, source, "domain", domain, "userid", userid);
+  }
+
+  @Override
+  @Experimental
+  public ClusterApiClient apiClient() {
+    return clusterManager.apiClient();
+  }
+}
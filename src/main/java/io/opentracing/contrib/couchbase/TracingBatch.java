@@ -0,0 +1,182 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import io.opentracing.Span;
+import io.opentracing.noop.NoopSpan;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongArray;
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Action0;
+
+/**
+ * Traces a bulk fan-out of one operation as a single span, e.g. thousands of gets merged with
+ * {@code flatMap}. Each operation passed through {@link #trace(Observable)} is only counted and
+ * timed; only failed operations and outliers get a child span of their own. When the batch
+ * finishes its span is tagged with the number of operations per {@link Outcome} and with the
+ * minimum, mean, maximum and 99th percentile latency in microseconds.
+ *
+ * <p>The sampling decision is made once for the whole batch. Batch spans are reported directly,
+ * bypassing the tail sampler and the ring buffer recorder.
+ */
+public class TracingBatch {
+
+  private static final AtomicIntegerFieldUpdater<TracingBatch> FINISHED =
+      AtomicIntegerFieldUpdater.newUpdater(TracingBatch.class, "finished");
+
+  private final TracingHelper helper;
+  private final Operation operation;
+  private final long outlierNanos;
+  private final Span span;
+  private final long startMicros;
+  private final long startNanos;
+  private final LatencyHistogram latencies = new LatencyHistogram();
+  private final AtomicLongArray outcomes = new AtomicLongArray(Outcome.values().length);
+  private volatile int finished;
+
+  TracingBatch(TracingHelper helper, Operation operation, long outlierNanos) {
+    this.helper = helper;
+    this.operation = operation;
+    this.outlierNanos = outlierNanos;
+    this.span = helper.isSampled(operation)
+        ? helper.builder(operation.getName() + "Batch").start() : NoopSpan.INSTANCE;
+    this.startMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    this.startNanos = System.nanoTime();
+  }
+
+  /**
+   * Counts and times every subscription to the operation as part of this batch. The operation
+   * should come from an untraced bucket, otherwise it is traced individually as well.
+   */
+  public <T> Observable<T> trace(final Observable<T> source) {
+    if (span == NoopSpan.INSTANCE) {
+      return source;
+    }
+    return Observable.create(new Observable.OnSubscribe<T>() {
+      @Override
+      public void call(Subscriber<? super T> subscriber) {
+        source.unsafeSubscribe(new BatchSubscriber<T>(subscriber, TracingBatch.this));
+      }
+    });
+  }
+
+  /**
+   * Returns a transformer which finishes this batch when the bulk observable terminates or is
+   * unsubscribed.
+   */
+  public <T> Observable.Transformer<T, T> finishOnTerminate() {
+    return new Observable.Transformer<T, T>() {
+      @Override
+      public Observable<T> call(Observable<T> bulk) {
+        Action0 finish = new Action0() {
+          @Override
+          public void call() {
+            finish();
+          }
+        };
+        return bulk.doOnTerminate(finish).doOnUnsubscribe(finish);
+      }
+    };
+  }
+
+  /**
+   * Tags and finishes the batch span. Only the first call has an effect, operations completing
+   * afterwards are not counted.
+   */
+  public void finish() {
+    if (!FINISHED.compareAndSet(this, 0, 1) || span == NoopSpan.INSTANCE) {
+      return;
+    }
+    span.setTag("count", latencies.getCount());
+    for (Outcome outcome : Outcome.values()) {
+      span.setTag(outcome.getTagValue() + "Count", outcomes.get(outcome.ordinal()));
+    }
+    span.setTag("minMicros", TimeUnit.NANOSECONDS.toMicros(latencies.getMin()));
+    span.setTag("meanMicros", TimeUnit.NANOSECONDS.toMicros((long) latencies.getMean()));
+    span.setTag("maxMicros", TimeUnit.NANOSECONDS.toMicros(latencies.getMax()));
+    span.setTag("p99Micros",
+        TimeUnit.NANOSECONDS.toMicros(latencies.getValueAtPercentile(99.0)));
+    span.finish();
+  }
+
+  public long getCount(Outcome outcome) {
+    return outcomes.get(outcome.ordinal());
+  }
+
+  public LatencyHistogram getLatencies() {
+    return latencies;
+  }
+
+  private void record(long itemStartNanos, Outcome outcome, Throwable error) {
+    if (finished != 0) {
+      return;
+    }
+    long durationNanos = System.nanoTime() - itemStartNanos;
+    latencies.record(durationNanos);
+    outcomes.incrementAndGet(outcome.ordinal());
+
+    if (outcome.isError() || durationNanos >= outlierNanos) {
+      long itemStartMicros = startMicros
+          + TimeUnit.NANOSECONDS.toMicros(itemStartNanos - startNanos);
+      Span child = helper.builder(operation.getName())
+          .asChildOf(span)
+          .withStartTimestamp(itemStartMicros)
+          .start();
+      if (error != null) {
+        helper.tagError(error, child);
+      } else {
+        child.setTag(ExceptionClassifier.OUTCOME_TAG, outcome.getTagValue());
+      }
+      child.finish(itemStartMicros + TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+  }
+
+  /**
+   * Shares the subscriptions and the producer of the downstream subscriber.
+   */
+  private static final class BatchSubscriber<T> extends Subscriber<T> {
+
+    private final Subscriber<? super T> actual;
+    private final TracingBatch batch;
+    private final long startNanos = System.nanoTime();
+    private boolean emitted;
+
+    BatchSubscriber(Subscriber<? super T> actual, TracingBatch batch) {
+      super(actual);
+      this.actual = actual;
+      this.batch = batch;
+    }
+
+    @Override
+    public void onNext(T t) {
+      emitted = true;
+      actual.onNext(t);
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      batch.record(startNanos, batch.helper.getClassifier().classify(e), e);
+      actual.onError(e);
+    }
+
+    @Override
+    public void onCompleted() {
+      // an empty result, e.g. of a get, means that the document does not exist
+      batch.record(startNanos, emitted ? Outcome.SUCCESS : Outcome.MISS, null);
+      actual.onCompleted();
+    }
+  }
+}
@@ -14,8 +14,6 @@
 package io.opentracing.contrib.couchbase;
 
 import static io.opentracing.contrib.couchbase.TracingHelper.nullable;
-import static io.opentracing.contrib.couchbase.TracingHelper.nullableClass;
-import static io.opentracing.contrib.couchbase.TracingHelper.onError;
 
 import com.couchbase.client.core.ClusterFacade;
 import com.couchbase.client.core.annotations.InterfaceAudience.Public;
@@ -50,6 +48,8 @@ import com.couchbase.client.java.view.SpatialViewResult;
 import com.couchbase.client.java.view.ViewQuery;
 import com.couchbase.client.java.view.ViewResult;
 import io.opentracing.Span;
+import io.opentracing.noop.NoopSpan;
+import io.opentracing.tag.Tags;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -59,22 +59,24 @@ public class TracingBucket implements Bucket {
 
   private final Bucket bucket;
   private final TracingHelper helper;
+  private final TracingAsyncBucket asyncBucket;
+  private final TracingClusterFacade core;
 
   public TracingBucket(Bucket bucket, TracingHelper helper) {
     this.bucket = bucket;
     this.helper = helper;
+    this.asyncBucket = new TracingAsyncBucket(bucket.async(), helper);
+    this.core = new TracingClusterFacade(bucket.core(), helper);
   }
 
   @Override
   public AsyncBucket async() {
-    // TODO: tracing AsyncBucket?
-    return bucket.async();
+    return asyncBucket;
   }
 
   @Override
   public ClusterFacade core() {
-    // TODO: tracing ClusterFacade?
-    return bucket.core();
+    return core;
   }
 
   @Override
@@ -89,14 +91,22 @@ public class TracingBucket implements Bucket {
 
   @Override
   public JsonDocument get(String id) {
-    Span span = helper.buildSpan("get");
-    span.setTag("id", nullable(id));
+    Span span = helper.buildSpan(Operation.GET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+    }
+    helper.recordKey(Operation.GET, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.get(id);
+      JsonDocument result = bucket.get(id);
+      outcome = helper.recordResult(Operation.GET, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -104,29 +114,43 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonDocument get(String id, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("get");
-    span.setTag("id", nullable(id));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.GET, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.get(id, timeout, timeUnit);
+      JsonDocument result = bucket.get(id, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.GET, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
 
   @Override
   public <D extends Document<?>> D get(D document) {
-    Span span = helper.buildSpan("get");
+    Span span = helper.buildSpan(Operation.GET);
+    helper.recordKey(Operation.GET, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.get(document);
+      D result = bucket.get(document);
+      outcome = helper.recordResult(Operation.GET, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -134,15 +158,23 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D get(D document, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("get");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.GET, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.get(document, timeout, timeUnit);
+      D result = bucket.get(document, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.GET, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET, startNanos, span, document, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -150,15 +182,23 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D get(String id,
       Class<D> target) {
-    Span span = helper.buildSpan("get");
-    span.setTag("id", nullable(id));
-    span.setTag("target", nullable(target));
+    Span span = helper.buildSpan(Operation.GET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("target", nullable(target));
+    }
+    helper.recordKey(Operation.GET, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.get(id, target);
+      D result = bucket.get(id, target);
+      outcome = helper.recordResult(Operation.GET, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -166,60 +206,84 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D get(String id,
       Class<D> target, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("get");
-    span.setTag("id", nullable(id));
-    span.setTag("target", nullable(target));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("target", nullable(target));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.GET, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.get(id, target, timeout, timeUnit);
+      D result = bucket.get(id, target, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.GET, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
 
   @Override
   public boolean exists(String id) {
-    Span span = helper.buildSpan("exists");
-    span.setTag("id", nullable(id));
+    Span span = helper.buildSpan(Operation.EXISTS);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+    }
+    helper.recordKey(Operation.EXISTS, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.exists(id);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.EXISTS, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.EXISTS, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
 
   @Override
   public boolean exists(String id, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("exists");
-    span.setTag("id", nullable(id));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.EXISTS);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.EXISTS, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.exists(id, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.EXISTS, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.EXISTS, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
 
   @Override
   public <D extends Document<?>> boolean exists(D document) {
-    Span span = helper.buildSpan("exists");
+    Span span = helper.buildSpan(Operation.EXISTS);
+    helper.recordKey(Operation.EXISTS, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.exists(document);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.EXISTS, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.EXISTS, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -227,15 +291,22 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> boolean exists(D document,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("exists");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.EXISTS);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.EXISTS, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.exists(document, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.EXISTS, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.EXISTS, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -243,15 +314,23 @@ public class TracingBucket implements Bucket {
   @Override
   public List<JsonDocument> getFromReplica(
       String id, ReplicaMode type) {
-    Span span = helper.buildSpan("getFromReplica");
-    span.setTag("id", nullable(id));
-    span.setTag("type", nullable(type));
+    Span span = helper.buildSpan(Operation.GET_FROM_REPLICA);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("type", nullable(type));
+    }
+    helper.recordKey(Operation.GET_FROM_REPLICA, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getFromReplica(id, type);
+      List<JsonDocument> result = bucket.getFromReplica(id, type);
+      outcome = helper.recordResult(Operation.GET_FROM_REPLICA, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_FROM_REPLICA, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_FROM_REPLICA, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -259,14 +338,20 @@ public class TracingBucket implements Bucket {
   @Override
   public Iterator<JsonDocument> getFromReplica(
       String id) {
-    Span span = helper.buildSpan("getFromReplica");
-    span.setTag("id", nullable(id));
+    Span span = helper.buildSpan(Operation.GET_FROM_REPLICA);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+    }
+    helper.recordKey(Operation.GET_FROM_REPLICA, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.getFromReplica(id);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_FROM_REPLICA, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_FROM_REPLICA, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -275,17 +360,26 @@ public class TracingBucket implements Bucket {
   public List<JsonDocument> getFromReplica(
       String id, ReplicaMode type, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getFromReplica");
-    span.setTag("id", nullable(id));
-    span.setTag("type", nullable(type));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_FROM_REPLICA);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("type", nullable(type));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.GET_FROM_REPLICA, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getFromReplica(id, type, timeout, timeUnit);
+      List<JsonDocument> result = bucket.getFromReplica(id, type, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.GET_FROM_REPLICA, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_FROM_REPLICA, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_FROM_REPLICA, startNanos, span, id, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -293,16 +387,23 @@ public class TracingBucket implements Bucket {
   @Override
   public Iterator<JsonDocument> getFromReplica(
       String id, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getFromReplica");
-    span.setTag("id", nullable(id));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_FROM_REPLICA);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.GET_FROM_REPLICA, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.getFromReplica(id, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_FROM_REPLICA, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_FROM_REPLICA, startNanos, span, id, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -310,14 +411,23 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> List<D> getFromReplica(
       D document, ReplicaMode type) {
-    Span span = helper.buildSpan("getFromReplica");
-    span.setTag("type", nullable(type));
+    Span span = helper.buildSpan(Operation.GET_FROM_REPLICA);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("type", nullable(type));
+    }
+    helper.recordKey(Operation.GET_FROM_REPLICA, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getFromReplica(document, type);
+      List<D> result = bucket.getFromReplica(document, type);
+      outcome = helper.recordResult(Operation.GET_FROM_REPLICA, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_FROM_REPLICA, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_FROM_REPLICA, startNanos, span, document, 0, null,
+          outcome);
       span.finish();
     }
   }
@@ -325,13 +435,18 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> Iterator<D> getFromReplica(
       D document) {
-    Span span = helper.buildSpan("getFromReplica");
+    Span span = helper.buildSpan(Operation.GET_FROM_REPLICA);
+    helper.recordKey(Operation.GET_FROM_REPLICA, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.getFromReplica(document);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_FROM_REPLICA, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_FROM_REPLICA, startNanos, span, document, 0, null,
+          outcome);
       span.finish();
     }
   }
@@ -340,16 +455,25 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> List<D> getFromReplica(
       D document, ReplicaMode type, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getFromReplica");
-    span.setTag("type", nullable(type));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_FROM_REPLICA);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("type", nullable(type));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.GET_FROM_REPLICA, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getFromReplica(document, type, timeout, timeUnit);
+      List<D> result = bucket.getFromReplica(document, type, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.GET_FROM_REPLICA, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_FROM_REPLICA, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_FROM_REPLICA, startNanos, span, document, timeout,
+          timeUnit, outcome);
       span.finish();
     }
   }
@@ -357,15 +481,22 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> Iterator<D> getFromReplica(
       D document, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getFromReplica");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_FROM_REPLICA);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.GET_FROM_REPLICA, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.getFromReplica(document, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_FROM_REPLICA, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_FROM_REPLICA, startNanos, span, document, timeout,
+          timeUnit, outcome);
       span.finish();
     }
   }
@@ -373,16 +504,24 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> List<D> getFromReplica(
       String id, ReplicaMode type, Class<D> target) {
-    Span span = helper.buildSpan("getFromReplica");
-    span.setTag("id", nullable(id));
-    span.setTag("type", nullable(type));
-    span.setTag("target", nullable(target));
+    Span span = helper.buildSpan(Operation.GET_FROM_REPLICA);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("type", nullable(type));
+      span.setTag("target", nullable(target));
+    }
+    helper.recordKey(Operation.GET_FROM_REPLICA, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getFromReplica(id, type, target);
+      List<D> result = bucket.getFromReplica(id, type, target);
+      outcome = helper.recordResult(Operation.GET_FROM_REPLICA, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_FROM_REPLICA, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_FROM_REPLICA, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -390,15 +529,21 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> Iterator<D> getFromReplica(
       String id, Class<D> target) {
-    Span span = helper.buildSpan("getFromReplica");
-    span.setTag("id", nullable(id));
-    span.setTag("target", nullable(target));
+    Span span = helper.buildSpan(Operation.GET_FROM_REPLICA);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("target", nullable(target));
+    }
+    helper.recordKey(Operation.GET_FROM_REPLICA, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.getFromReplica(id, target);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_FROM_REPLICA, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_FROM_REPLICA, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -407,18 +552,27 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> List<D> getFromReplica(
       String id, ReplicaMode type, Class<D> target, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getFromReplica");
-    span.setTag("id", nullable(id));
-    span.setTag("type", nullable(type));
-    span.setTag("target", nullable(target));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_FROM_REPLICA);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("type", nullable(type));
+      span.setTag("target", nullable(target));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.GET_FROM_REPLICA, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getFromReplica(id, type, target, timeout, timeUnit);
+      List<D> result = bucket.getFromReplica(id, type, target, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.GET_FROM_REPLICA, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_FROM_REPLICA, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_FROM_REPLICA, startNanos, span, id, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -426,32 +580,47 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> Iterator<D> getFromReplica(
       String id, Class<D> target, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getFromReplica");
-    span.setTag("id", nullable(id));
-    span.setTag("target", nullable(target));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_FROM_REPLICA);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("target", nullable(target));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.GET_FROM_REPLICA, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.getFromReplica(id, target, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_FROM_REPLICA, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_FROM_REPLICA, startNanos, span, id, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public JsonDocument getAndLock(String id, int lockTime) {
-    Span span = helper.buildSpan("getAndLock");
-    span.setTag("id", nullable(id));
-    span.setTag("lockTime", lockTime);
+    Span span = helper.buildSpan(Operation.GET_AND_LOCK);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("lockTime", lockTime);
+    }
+    helper.recordKey(Operation.GET_AND_LOCK, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getAndLock(id, lockTime);
+      JsonDocument result = bucket.getAndLock(id, lockTime);
+      outcome = helper.recordResult(Operation.GET_AND_LOCK, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_AND_LOCK, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_AND_LOCK, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -459,17 +628,26 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonDocument getAndLock(String id, int lockTime,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getAndLock");
-    span.setTag("id", nullable(id));
-    span.setTag("lockTime", lockTime);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_AND_LOCK);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("lockTime", lockTime);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.GET_AND_LOCK, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getAndLock(id, lockTime, timeout, timeUnit);
+      JsonDocument result = bucket.getAndLock(id, lockTime, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.GET_AND_LOCK, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_AND_LOCK, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_AND_LOCK, startNanos, span, id, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -477,14 +655,22 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D getAndLock(D document,
       int lockTime) {
-    Span span = helper.buildSpan("getAndLock");
-    span.setTag("lockTime", lockTime);
+    Span span = helper.buildSpan(Operation.GET_AND_LOCK);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("lockTime", lockTime);
+    }
+    helper.recordKey(Operation.GET_AND_LOCK, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getAndLock(document, lockTime);
+      D result = bucket.getAndLock(document, lockTime);
+      outcome = helper.recordResult(Operation.GET_AND_LOCK, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_AND_LOCK, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_AND_LOCK, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -492,16 +678,25 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D getAndLock(D document,
       int lockTime, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getAndLock");
-    span.setTag("lockTime", lockTime);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_AND_LOCK);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("lockTime", lockTime);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.GET_AND_LOCK, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getAndLock(document, lockTime, timeout, timeUnit);
+      D result = bucket.getAndLock(document, lockTime, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.GET_AND_LOCK, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_AND_LOCK, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_AND_LOCK, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -509,16 +704,24 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D getAndLock(String id,
       int lockTime, Class<D> target) {
-    Span span = helper.buildSpan("getAndLock");
-    span.setTag("id", nullable(id));
-    span.setTag("lockTime", lockTime);
-    span.setTag("target", nullable(target));
+    Span span = helper.buildSpan(Operation.GET_AND_LOCK);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("lockTime", lockTime);
+      span.setTag("target", nullable(target));
+    }
+    helper.recordKey(Operation.GET_AND_LOCK, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getAndLock(id, lockTime, target);
+      D result = bucket.getAndLock(id, lockTime, target);
+      outcome = helper.recordResult(Operation.GET_AND_LOCK, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_AND_LOCK, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_AND_LOCK, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -526,33 +729,50 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D getAndLock(String id,
       int lockTime, Class<D> target, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getAndLock");
-    span.setTag("id", nullable(id));
-    span.setTag("lockTime", lockTime);
-    span.setTag("target", nullable(target));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_AND_LOCK);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("lockTime", lockTime);
+      span.setTag("target", nullable(target));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.GET_AND_LOCK, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getAndLock(id, lockTime, target, timeout, timeUnit);
+      D result = bucket.getAndLock(id, lockTime, target, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.GET_AND_LOCK, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_AND_LOCK, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_AND_LOCK, startNanos, span, id, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public JsonDocument getAndTouch(String id, int expiry) {
-    Span span = helper.buildSpan("getAndTouch");
-    span.setTag("id", nullable(id));
-    span.setTag("expiry", expiry);
+    Span span = helper.buildSpan(Operation.GET_AND_TOUCH);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("expiry", expiry);
+    }
+    helper.recordKey(Operation.GET_AND_TOUCH, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getAndTouch(id, expiry);
+      JsonDocument result = bucket.getAndTouch(id, expiry);
+      outcome = helper.recordResult(Operation.GET_AND_TOUCH, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_AND_TOUCH, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_AND_TOUCH, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -560,30 +780,45 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonDocument getAndTouch(String id, int expiry,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getAndTouch");
-    span.setTag("id", nullable(id));
-    span.setTag("expiry", expiry);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_AND_TOUCH);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("expiry", expiry);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.GET_AND_TOUCH, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getAndTouch(id, expiry, timeout, timeUnit);
+      JsonDocument result = bucket.getAndTouch(id, expiry, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.GET_AND_TOUCH, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_AND_TOUCH, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_AND_TOUCH, startNanos, span, id, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public <D extends Document<?>> D getAndTouch(D document) {
-    Span span = helper.buildSpan("getAndTouch");
+    Span span = helper.buildSpan(Operation.GET_AND_TOUCH);
+    helper.recordKey(Operation.GET_AND_TOUCH, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getAndTouch(document);
+      D result = bucket.getAndTouch(document);
+      outcome = helper.recordResult(Operation.GET_AND_TOUCH, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_AND_TOUCH, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_AND_TOUCH, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -591,15 +826,24 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D getAndTouch(D document,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getAndTouch");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_AND_TOUCH);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.GET_AND_TOUCH, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getAndTouch(document, timeout, timeUnit);
+      D result = bucket.getAndTouch(document, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.GET_AND_TOUCH, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_AND_TOUCH, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_AND_TOUCH, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -607,16 +851,24 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D getAndTouch(String id,
       int expiry, Class<D> target) {
-    Span span = helper.buildSpan("getAndTouch");
-    span.setTag("id", nullable(id));
-    span.setTag("expiry", expiry);
-    span.setTag("target", nullable(target));
+    Span span = helper.buildSpan(Operation.GET_AND_TOUCH);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("expiry", expiry);
+      span.setTag("target", nullable(target));
+    }
+    helper.recordKey(Operation.GET_AND_TOUCH, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getAndTouch(id, expiry, target);
+      D result = bucket.getAndTouch(id, expiry, target);
+      outcome = helper.recordResult(Operation.GET_AND_TOUCH, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_AND_TOUCH, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_AND_TOUCH, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -624,31 +876,45 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D getAndTouch(String id,
       int expiry, Class<D> target, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getAndTouch");
-    span.setTag("id", nullable(id));
-    span.setTag("expiry", expiry);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("target", nullable(target));
+    Span span = helper.buildSpan(Operation.GET_AND_TOUCH);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("expiry", expiry);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("target", nullable(target));
+    }
+    helper.recordKey(Operation.GET_AND_TOUCH, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.getAndTouch(id, expiry, target, timeout, timeUnit);
+      D result = bucket.getAndTouch(id, expiry, target, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.GET_AND_TOUCH, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_AND_TOUCH, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_AND_TOUCH, startNanos, span, id, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public <D extends Document<?>> D insert(D document) {
-    Span span = helper.buildSpan("insert");
+    Span span = helper.buildSpan(Operation.INSERT);
+    helper.recordKey(Operation.INSERT, document);
+    helper.recordSize(Operation.INSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.insert(document);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.INSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.INSERT, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -656,15 +922,23 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D insert(D document, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("insert");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.INSERT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.INSERT, document);
+    helper.recordSize(Operation.INSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.insert(document, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.INSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.INSERT, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -673,15 +947,22 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D insert(D document,
       PersistTo persistTo,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("insert");
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.INSERT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.INSERT, document);
+    helper.recordSize(Operation.INSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.insert(document, persistTo, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.INSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.INSERT, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -691,17 +972,25 @@ public class TracingBucket implements Bucket {
       PersistTo persistTo,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("insert");
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.INSERT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.INSERT, document);
+    helper.recordSize(Operation.INSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.insert(document, persistTo, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.INSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.INSERT, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -709,14 +998,21 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D insert(D document,
       PersistTo persistTo) {
-    Span span = helper.buildSpan("insert");
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.INSERT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.INSERT, document);
+    helper.recordSize(Operation.INSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.insert(document, persistTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.INSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.INSERT, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -725,16 +1021,24 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D insert(D document,
       PersistTo persistTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("insert");
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.INSERT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.INSERT, document);
+    helper.recordSize(Operation.INSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.insert(document, persistTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.INSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.INSERT, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -742,14 +1046,21 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D insert(D document,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("insert");
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.INSERT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.INSERT, document);
+    helper.recordSize(Operation.INSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.insert(document, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.INSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.INSERT, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -758,29 +1069,42 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D insert(D document,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("insert");
-    span.setTag("replicateTo", nullable(replicateTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.INSERT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("replicateTo", nullable(replicateTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.INSERT, document);
+    helper.recordSize(Operation.INSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.insert(document, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.INSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.INSERT, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public <D extends Document<?>> D upsert(D document) {
-    Span span = helper.buildSpan("upsert");
+    Span span = helper.buildSpan(Operation.UPSERT);
+    helper.recordKey(Operation.UPSERT, document);
+    helper.recordSize(Operation.UPSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.upsert(document);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UPSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UPSERT, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -788,15 +1112,23 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D upsert(D document, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("upsert");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.UPSERT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.UPSERT, document);
+    helper.recordSize(Operation.UPSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.upsert(document, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UPSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UPSERT, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -805,15 +1137,22 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D upsert(D document,
       PersistTo persistTo,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("upsert");
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.UPSERT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.UPSERT, document);
+    helper.recordSize(Operation.UPSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.upsert(document, persistTo, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UPSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UPSERT, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -823,17 +1162,25 @@ public class TracingBucket implements Bucket {
       PersistTo persistTo,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("upsert");
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.UPSERT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.UPSERT, document);
+    helper.recordSize(Operation.UPSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.upsert(document, persistTo, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UPSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UPSERT, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -841,14 +1188,21 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D upsert(D document,
       PersistTo persistTo) {
-    Span span = helper.buildSpan("upsert");
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.UPSERT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.UPSERT, document);
+    helper.recordSize(Operation.UPSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.upsert(document, persistTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UPSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UPSERT, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -857,16 +1211,24 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D upsert(D document,
       PersistTo persistTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("upsert");
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.UPSERT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.UPSERT, document);
+    helper.recordSize(Operation.UPSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.upsert(document, persistTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UPSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UPSERT, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -874,14 +1236,21 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D upsert(D document,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("upsert");
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.UPSERT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.UPSERT, document);
+    helper.recordSize(Operation.UPSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.upsert(document, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UPSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UPSERT, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -890,29 +1259,42 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D upsert(D document,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("upsert");
-    span.setTag("replicateTo", nullable(replicateTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.UPSERT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("replicateTo", nullable(replicateTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.UPSERT, document);
+    helper.recordSize(Operation.UPSERT, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.upsert(document, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UPSERT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UPSERT, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public <D extends Document<?>> D replace(D document) {
-    Span span = helper.buildSpan("replace");
+    Span span = helper.buildSpan(Operation.REPLACE);
+    helper.recordKey(Operation.REPLACE, document);
+    helper.recordSize(Operation.REPLACE, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.replace(document);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REPLACE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REPLACE, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -920,15 +1302,23 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D replace(D document, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("replace");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REPLACE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REPLACE, document);
+    helper.recordSize(Operation.REPLACE, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.replace(document, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REPLACE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REPLACE, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -937,15 +1327,22 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D replace(D document,
       PersistTo persistTo,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("replace");
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.REPLACE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.REPLACE, document);
+    helper.recordSize(Operation.REPLACE, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.replace(document, persistTo, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REPLACE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REPLACE, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -955,17 +1352,25 @@ public class TracingBucket implements Bucket {
       PersistTo persistTo,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("replace");
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REPLACE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REPLACE, document);
+    helper.recordSize(Operation.REPLACE, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.replace(document, persistTo, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REPLACE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REPLACE, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -973,14 +1378,21 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D replace(D document,
       PersistTo persistTo) {
-    Span span = helper.buildSpan("replace");
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.REPLACE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.REPLACE, document);
+    helper.recordSize(Operation.REPLACE, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.replace(document, persistTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REPLACE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REPLACE, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -989,16 +1401,24 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D replace(D document,
       PersistTo persistTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("replace");
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REPLACE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REPLACE, document);
+    helper.recordSize(Operation.REPLACE, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.replace(document, persistTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REPLACE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REPLACE, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -1006,14 +1426,21 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D replace(D document,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("replace");
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.REPLACE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.REPLACE, document);
+    helper.recordSize(Operation.REPLACE, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.replace(document, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REPLACE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REPLACE, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -1022,29 +1449,41 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D replace(D document,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("replace");
-    span.setTag("replicateTo", nullable(replicateTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REPLACE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("replicateTo", nullable(replicateTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REPLACE, document);
+    helper.recordSize(Operation.REPLACE, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.replace(document, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REPLACE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REPLACE, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public <D extends Document<?>> D remove(D document) {
-    Span span = helper.buildSpan("remove");
+    Span span = helper.buildSpan(Operation.REMOVE);
+    helper.recordKey(Operation.REMOVE, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(document);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -1052,15 +1491,22 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D remove(D document, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REMOVE, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(document, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -1069,15 +1515,21 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D remove(D document,
       PersistTo persistTo,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.REMOVE, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(document, persistTo, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -1087,17 +1539,24 @@ public class TracingBucket implements Bucket {
       PersistTo persistTo,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REMOVE, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(document, persistTo, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -1105,14 +1564,20 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D remove(D document,
       PersistTo persistTo) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.REMOVE, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(document, persistTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -1121,16 +1586,23 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D remove(D document,
       PersistTo persistTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REMOVE, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(document, persistTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -1138,14 +1610,20 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D remove(D document,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.REMOVE, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(document, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -1154,30 +1632,43 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D remove(D document,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("replicateTo", nullable(replicateTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("replicateTo", nullable(replicateTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REMOVE, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(document, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public JsonDocument remove(String id) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1185,16 +1676,22 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonDocument remove(String id, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1203,16 +1700,22 @@ public class TracingBucket implements Bucket {
   public JsonDocument remove(String id,
       PersistTo persistTo,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, persistTo, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1222,18 +1725,24 @@ public class TracingBucket implements Bucket {
       PersistTo persistTo,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, persistTo, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1241,15 +1750,21 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonDocument remove(String id,
       PersistTo persistTo) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, persistTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1258,17 +1773,23 @@ public class TracingBucket implements Bucket {
   public JsonDocument remove(String id,
       PersistTo persistTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, persistTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1276,15 +1797,21 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonDocument remove(String id,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1293,17 +1820,23 @@ public class TracingBucket implements Bucket {
   public JsonDocument remove(String id,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("replicateTo", nullable(replicateTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("replicateTo", nullable(replicateTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1311,15 +1844,21 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D remove(String id,
       Class<D> target) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("target", nullable(target));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("target", nullable(target));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, target);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1327,17 +1866,23 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D remove(String id,
       Class<D> target, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("target", nullable(target));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("target", nullable(target));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, target, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1346,17 +1891,23 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D remove(String id,
       PersistTo persistTo,
       ReplicateTo replicateTo, Class<D> target) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("target", nullable(target));
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("target", nullable(target));
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, persistTo, replicateTo, target);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1366,19 +1917,25 @@ public class TracingBucket implements Bucket {
       PersistTo persistTo,
       ReplicateTo replicateTo, Class<D> target, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("target", nullable(target));
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("target", nullable(target));
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, persistTo, replicateTo, target, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1386,16 +1943,22 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D remove(String id,
       PersistTo persistTo, Class<D> target) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("target", nullable(target));
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("target", nullable(target));
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, persistTo, target);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1404,18 +1967,24 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D remove(String id,
       PersistTo persistTo, Class<D> target, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("target", nullable(target));
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("target", nullable(target));
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, persistTo, target, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1423,16 +1992,22 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D remove(String id,
       ReplicateTo replicateTo, Class<D> target) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("target", nullable(target));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("target", nullable(target));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, replicateTo, target);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1441,18 +2016,24 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D remove(String id,
       ReplicateTo replicateTo, Class<D> target, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("remove");
-    span.setTag("id", nullable(id));
-    span.setTag("target", nullable(target));
-    span.setTag("replicateTo", nullable(replicateTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("target", nullable(target));
+      span.setTag("replicateTo", nullable(replicateTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.REMOVE, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.remove(id, replicateTo, target, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1460,14 +2041,19 @@ public class TracingBucket implements Bucket {
   @Override
   public ViewResult query(
       ViewQuery query) {
-    Span span = helper.buildSpan("query");
-    span.setTag("query", nullable(query));
+    Span span = helper.buildSpan(Operation.QUERY);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(Tags.DB_STATEMENT.getKey(), helper.statement(query));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.query(query);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUERY, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUERY, startNanos, span, query, 0, null, outcome);
       span.finish();
     }
   }
@@ -1475,14 +2061,19 @@ public class TracingBucket implements Bucket {
   @Override
   public SpatialViewResult query(
       SpatialViewQuery query) {
-    Span span = helper.buildSpan("query");
-    span.setTag("query", nullable(query));
+    Span span = helper.buildSpan(Operation.QUERY);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(Tags.DB_STATEMENT.getKey(), helper.statement(query));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.query(query);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUERY, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUERY, startNanos, span, query, 0, null, outcome);
       span.finish();
     }
   }
@@ -1491,16 +2082,21 @@ public class TracingBucket implements Bucket {
   public ViewResult query(
       ViewQuery query, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("query");
-    span.setTag("query", nullable(query));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.QUERY);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(Tags.DB_STATEMENT.getKey(), helper.statement(query));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.query(query, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUERY, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUERY, startNanos, span, query, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1509,16 +2105,21 @@ public class TracingBucket implements Bucket {
   public SpatialViewResult query(
       SpatialViewQuery query, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("query");
-    span.setTag("query", nullable(query));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.QUERY);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(Tags.DB_STATEMENT.getKey(), helper.statement(query));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.query(query, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUERY, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUERY, startNanos, span, query, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1526,14 +2127,21 @@ public class TracingBucket implements Bucket {
   @Override
   public N1qlQueryResult query(
       Statement statement) {
-    Span span = helper.buildSpan("query");
-    span.setTag("statement", nullableClass(statement));
+    Span span = helper.buildSpan(Operation.QUERY);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(Tags.DB_STATEMENT.getKey(), helper.statement(statement));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.query(statement);
+      N1qlQueryResult result = bucket.query(statement);
+      outcome = helper.recordResult(Operation.QUERY, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUERY, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUERY, startNanos, span, statement, 0, null, outcome);
       span.finish();
     }
   }
@@ -1542,16 +2150,24 @@ public class TracingBucket implements Bucket {
   public N1qlQueryResult query(
       Statement statement, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("query");
-    span.setTag("statement", nullableClass(statement));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.QUERY);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(Tags.DB_STATEMENT.getKey(), helper.statement(statement));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.query(statement, timeout, timeUnit);
+      N1qlQueryResult result = bucket.query(statement, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.QUERY, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUERY, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUERY, startNanos, span, statement, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -1559,14 +2175,21 @@ public class TracingBucket implements Bucket {
   @Override
   public N1qlQueryResult query(
       N1qlQuery query) {
-    Span span = helper.buildSpan("query");
-    span.setTag("query", nullable(query));
+    Span span = helper.buildSpan(Operation.QUERY);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(Tags.DB_STATEMENT.getKey(), helper.statement(query));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.query(query);
+      N1qlQueryResult result = bucket.query(query);
+      outcome = helper.recordResult(Operation.QUERY, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUERY, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUERY, startNanos, span, query, 0, null, outcome);
       span.finish();
     }
   }
@@ -1575,16 +2198,23 @@ public class TracingBucket implements Bucket {
   public N1qlQueryResult query(
       N1qlQuery query, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("query");
-    span.setTag("query", nullable(query));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.QUERY);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(Tags.DB_STATEMENT.getKey(), helper.statement(query));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return bucket.query(query, timeout, timeUnit);
+      N1qlQueryResult result = bucket.query(query, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.QUERY, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUERY, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUERY, startNanos, span, query, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1593,14 +2223,19 @@ public class TracingBucket implements Bucket {
   @Committed
   public SearchQueryResult query(
       SearchQuery query) {
-    Span span = helper.buildSpan("query");
-    span.setTag("query", nullable(query));
+    Span span = helper.buildSpan(Operation.QUERY);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(Tags.DB_STATEMENT.getKey(), helper.statement(query));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.query(query);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUERY, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUERY, startNanos, span, query, 0, null, outcome);
       span.finish();
     }
   }
@@ -1610,16 +2245,21 @@ public class TracingBucket implements Bucket {
   public SearchQueryResult query(
       SearchQuery query, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("query");
-    span.setTag("query", nullable(query));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.QUERY);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(Tags.DB_STATEMENT.getKey(), helper.statement(query));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.query(query, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUERY, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUERY, startNanos, span, query, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1628,14 +2268,19 @@ public class TracingBucket implements Bucket {
   @Uncommitted
   public AnalyticsQueryResult query(
       AnalyticsQuery query) {
-    Span span = helper.buildSpan("query");
-    span.setTag("query", nullable(query));
+    Span span = helper.buildSpan(Operation.QUERY);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(Tags.DB_STATEMENT.getKey(), helper.statement(query));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.query(query);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUERY, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUERY, startNanos, span, query, 0, null, outcome);
       span.finish();
     }
   }
@@ -1645,61 +2290,82 @@ public class TracingBucket implements Bucket {
   public AnalyticsQueryResult query(
       AnalyticsQuery query, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("query");
-    span.setTag("query", nullable(query));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.QUERY);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(Tags.DB_STATEMENT.getKey(), helper.statement(query));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.query(query, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUERY, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUERY, startNanos, span, query, timeout, timeUnit, outcome);
       span.finish();
     }
   }
 
   @Override
   public Boolean unlock(String id, long cas) {
-    Span span = helper.buildSpan("unlock");
-    span.setTag("id", nullable(id));
-    span.setTag("cas", cas);
+    Span span = helper.buildSpan(Operation.UNLOCK);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("cas", cas);
+    }
+    helper.recordKey(Operation.UNLOCK, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.unlock(id, cas);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UNLOCK, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UNLOCK, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
 
   @Override
   public Boolean unlock(String id, long cas, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("unlock");
-    span.setTag("id", nullable(id));
-    span.setTag("cas", cas);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.UNLOCK);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("cas", cas);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.UNLOCK, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.unlock(id, cas, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UNLOCK, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UNLOCK, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
 
   @Override
   public <D extends Document<?>> Boolean unlock(D document) {
-    Span span = helper.buildSpan("unlock");
+    Span span = helper.buildSpan(Operation.UNLOCK);
+    helper.recordKey(Operation.UNLOCK, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.unlock(document);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UNLOCK, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UNLOCK, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -1707,60 +2373,83 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> Boolean unlock(D document,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("unlock");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.UNLOCK);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.UNLOCK, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.unlock(document, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UNLOCK, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UNLOCK, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public Boolean touch(String id, int expiry) {
-    Span span = helper.buildSpan("touch");
-    span.setTag("id", nullable(id));
-    span.setTag("expiry", expiry);
+    Span span = helper.buildSpan(Operation.TOUCH);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("expiry", expiry);
+    }
+    helper.recordKey(Operation.TOUCH, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.touch(id, expiry);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.TOUCH, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.TOUCH, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
 
   @Override
   public Boolean touch(String id, int expiry, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("touch");
-    span.setTag("id", nullable(id));
-    span.setTag("expiry", expiry);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.TOUCH);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("expiry", expiry);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.TOUCH, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.touch(id, expiry, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.TOUCH, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.TOUCH, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
 
   @Override
   public <D extends Document<?>> Boolean touch(D document) {
-    Span span = helper.buildSpan("touch");
+    Span span = helper.buildSpan(Operation.TOUCH);
+    helper.recordKey(Operation.TOUCH, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.touch(document);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.TOUCH, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.TOUCH, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -1768,30 +2457,42 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> Boolean touch(D document,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("touch");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.TOUCH);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.TOUCH, document);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.touch(document, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.TOUCH, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.TOUCH, startNanos, span, document, timeout, timeUnit, outcome);
       span.finish();
     }
   }
 
   @Override
   public JsonLongDocument counter(String id, long delta) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1799,16 +2500,22 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonLongDocument counter(String id, long delta,
       PersistTo persistTo) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, persistTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1816,16 +2523,22 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonLongDocument counter(String id, long delta,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1834,17 +2547,23 @@ public class TracingBucket implements Bucket {
   public JsonLongDocument counter(String id, long delta,
       PersistTo persistTo,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, persistTo, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1852,17 +2571,23 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonLongDocument counter(String id, long delta,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1871,18 +2596,24 @@ public class TracingBucket implements Bucket {
   public JsonLongDocument counter(String id, long delta,
       PersistTo persistTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, persistTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1891,18 +2622,24 @@ public class TracingBucket implements Bucket {
   public JsonLongDocument counter(String id, long delta,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1912,19 +2649,25 @@ public class TracingBucket implements Bucket {
       PersistTo persistTo,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, persistTo, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -1932,16 +2675,22 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonLongDocument counter(String id, long delta,
       long initial) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1949,17 +2698,23 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonLongDocument counter(String id, long delta,
       long initial, PersistTo persistTo) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, persistTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1967,17 +2722,23 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonLongDocument counter(String id, long delta,
       long initial, ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -1986,18 +2747,24 @@ public class TracingBucket implements Bucket {
   public JsonLongDocument counter(String id, long delta,
       long initial, PersistTo persistTo,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, persistTo, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -2005,18 +2772,24 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonLongDocument counter(String id, long delta,
       long initial, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -2025,19 +2798,25 @@ public class TracingBucket implements Bucket {
   public JsonLongDocument counter(String id, long delta,
       long initial, PersistTo persistTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, persistTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -2046,19 +2825,25 @@ public class TracingBucket implements Bucket {
   public JsonLongDocument counter(String id, long delta,
       long initial, ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -2068,20 +2853,26 @@ public class TracingBucket implements Bucket {
       long initial, PersistTo persistTo,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, persistTo, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -2089,17 +2880,23 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonLongDocument counter(String id, long delta,
       long initial, int expiry) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("expiry", expiry);
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("expiry", expiry);
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, expiry);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -2107,18 +2904,24 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonLongDocument counter(String id, long delta,
       long initial, int expiry, PersistTo persistTo) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("expiry", expiry);
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("expiry", expiry);
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, expiry, persistTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -2126,18 +2929,24 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonLongDocument counter(String id, long delta,
       long initial, int expiry, ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("expiry", expiry);
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("expiry", expiry);
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, expiry, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -2146,19 +2955,25 @@ public class TracingBucket implements Bucket {
   public JsonLongDocument counter(String id, long delta,
       long initial, int expiry, PersistTo persistTo,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("expiry", expiry);
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("expiry", expiry);
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, expiry, persistTo, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, 0, null, outcome);
       span.finish();
     }
   }
@@ -2166,19 +2981,25 @@ public class TracingBucket implements Bucket {
   @Override
   public JsonLongDocument counter(String id, long delta,
       long initial, int expiry, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("expiry", expiry);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("expiry", expiry);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, expiry, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -2187,20 +3008,26 @@ public class TracingBucket implements Bucket {
   public JsonLongDocument counter(String id, long delta,
       long initial, int expiry, PersistTo persistTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("expiry", expiry);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("expiry", expiry);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, expiry, persistTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -2209,20 +3036,26 @@ public class TracingBucket implements Bucket {
   public JsonLongDocument counter(String id, long delta,
       long initial, int expiry, ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("expiry", expiry);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("expiry", expiry);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, expiry, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -2232,34 +3065,45 @@ public class TracingBucket implements Bucket {
       long initial, int expiry, PersistTo persistTo,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("counter");
-    span.setTag("id", nullable(id));
-    span.setTag("delta", delta);
-    span.setTag("initial", initial);
-    span.setTag("expiry", expiry);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.COUNTER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("id", nullable(id));
+      span.setTag("delta", delta);
+      span.setTag("initial", initial);
+      span.setTag("expiry", expiry);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.COUNTER, id);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.counter(id, delta, initial, expiry, persistTo, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.COUNTER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.COUNTER, startNanos, span, id, timeout, timeUnit, outcome);
       span.finish();
     }
   }
 
   @Override
   public <D extends Document<?>> D append(D document) {
-    Span span = helper.buildSpan("append");
+    Span span = helper.buildSpan(Operation.APPEND);
+    helper.recordKey(Operation.APPEND, document);
+    helper.recordSize(Operation.APPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.append(document);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.APPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.APPEND, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -2267,14 +3111,21 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D append(D document,
       PersistTo persistTo) {
-    Span span = helper.buildSpan("append");
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.APPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.APPEND, document);
+    helper.recordSize(Operation.APPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.append(document, persistTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.APPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.APPEND, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -2282,14 +3133,21 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D append(D document,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("append");
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.APPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.APPEND, document);
+    helper.recordSize(Operation.APPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.append(document, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.APPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.APPEND, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -2298,15 +3156,22 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D append(D document,
       PersistTo persistTo,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("append");
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.APPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.APPEND, document);
+    helper.recordSize(Operation.APPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.append(document, persistTo, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.APPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.APPEND, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -2314,15 +3179,23 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D append(D document, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("append");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.APPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.APPEND, document);
+    helper.recordSize(Operation.APPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.append(document, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.APPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.APPEND, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -2331,16 +3204,24 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D append(D document,
       PersistTo persistTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("append");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.APPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.APPEND, document);
+    helper.recordSize(Operation.APPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.append(document, persistTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.APPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.APPEND, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -2349,16 +3230,24 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D append(D document,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("append");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.APPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.APPEND, document);
+    helper.recordSize(Operation.APPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.append(document, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.APPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.APPEND, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -2368,30 +3257,43 @@ public class TracingBucket implements Bucket {
       PersistTo persistTo,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("append");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.APPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.APPEND, document);
+    helper.recordSize(Operation.APPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.append(document, persistTo, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.APPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.APPEND, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public <D extends Document<?>> D prepend(D document) {
-    Span span = helper.buildSpan("prepend");
+    Span span = helper.buildSpan(Operation.PREPEND);
+    helper.recordKey(Operation.PREPEND, document);
+    helper.recordSize(Operation.PREPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.prepend(document);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PREPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PREPEND, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -2399,14 +3301,21 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D prepend(D document,
       PersistTo persistTo) {
-    Span span = helper.buildSpan("prepend");
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.PREPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.PREPEND, document);
+    helper.recordSize(Operation.PREPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.prepend(document, persistTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PREPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PREPEND, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -2414,14 +3323,21 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D prepend(D document,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("prepend");
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.PREPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.PREPEND, document);
+    helper.recordSize(Operation.PREPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.prepend(document, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PREPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PREPEND, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -2430,15 +3346,22 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D prepend(D document,
       PersistTo persistTo,
       ReplicateTo replicateTo) {
-    Span span = helper.buildSpan("prepend");
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.PREPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.PREPEND, document);
+    helper.recordSize(Operation.PREPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.prepend(document, persistTo, replicateTo);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PREPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PREPEND, startNanos, span, document, 0, null, outcome);
       span.finish();
     }
   }
@@ -2446,15 +3369,23 @@ public class TracingBucket implements Bucket {
   @Override
   public <D extends Document<?>> D prepend(D document, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("prepend");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.PREPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.PREPEND, document);
+    helper.recordSize(Operation.PREPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.prepend(document, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PREPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PREPEND, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -2463,16 +3394,24 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D prepend(D document,
       PersistTo persistTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("prepend");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("persistTo", nullable(persistTo));
+    Span span = helper.buildSpan(Operation.PREPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("persistTo", nullable(persistTo));
+    }
+    helper.recordKey(Operation.PREPEND, document);
+    helper.recordSize(Operation.PREPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.prepend(document, persistTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PREPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PREPEND, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -2481,16 +3420,24 @@ public class TracingBucket implements Bucket {
   public <D extends Document<?>> D prepend(D document,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("prepend");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.PREPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.PREPEND, document);
+    helper.recordSize(Operation.PREPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.prepend(document, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PREPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PREPEND, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -2500,17 +3447,25 @@ public class TracingBucket implements Bucket {
       PersistTo persistTo,
       ReplicateTo replicateTo, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("prepend");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("persistTo", nullable(persistTo));
-    span.setTag("replicateTo", nullable(replicateTo));
+    Span span = helper.buildSpan(Operation.PREPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("persistTo", nullable(persistTo));
+      span.setTag("replicateTo", nullable(replicateTo));
+    }
+    helper.recordKey(Operation.PREPEND, document);
+    helper.recordSize(Operation.PREPEND, document, span);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.prepend(document, persistTo, replicateTo, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PREPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PREPEND, startNanos, span, document, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -2533,16 +3488,22 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public <V> boolean mapAdd(String docId, String key, V value) {
-    Span span = helper.buildSpan("mapAdd");
-    span.setTag("docId", nullable(docId));
-    span.setTag("key", nullable(key));
-    span.setTag("value", nullable(value));
+    Span span = helper.buildSpan(Operation.MAP_ADD);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("key", nullable(key));
+      span.setTag("value", nullable(value));
+    }
+    helper.recordKey(Operation.MAP_ADD, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.mapAdd(docId, key, value);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.MAP_ADD, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.MAP_ADD, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -2552,18 +3513,24 @@ public class TracingBucket implements Bucket {
   @Public
   public <V> boolean mapAdd(String docId, String key, V value, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("mapAdd");
-    span.setTag("docId", nullable(docId));
-    span.setTag("key", nullable(key));
-    span.setTag("value", nullable(value));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.MAP_ADD);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("key", nullable(key));
+      span.setTag("value", nullable(value));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.MAP_ADD, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.mapAdd(docId, key, value, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.MAP_ADD, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.MAP_ADD, startNanos, span, docId, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -2573,16 +3540,22 @@ public class TracingBucket implements Bucket {
   @Public
   public <V> boolean mapAdd(String docId, String key, V value,
       MutationOptionBuilder mutationOptionBuilder) {
-    Span span = helper.buildSpan("mapAdd");
-    span.setTag("docId", nullable(docId));
-    span.setTag("key", nullable(key));
-    span.setTag("value", nullable(value));
+    Span span = helper.buildSpan(Operation.MAP_ADD);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("key", nullable(key));
+      span.setTag("value", nullable(value));
+    }
+    helper.recordKey(Operation.MAP_ADD, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.mapAdd(docId, key, value, mutationOptionBuilder);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.MAP_ADD, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.MAP_ADD, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -2593,18 +3566,24 @@ public class TracingBucket implements Bucket {
   public <V> boolean mapAdd(String docId, String key, V value,
       MutationOptionBuilder mutationOptionBuilder,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("mapAdd");
-    span.setTag("docId", nullable(docId));
-    span.setTag("key", nullable(key));
-    span.setTag("value", nullable(value));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.MAP_ADD);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("key", nullable(key));
+      span.setTag("value", nullable(value));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.MAP_ADD, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.mapAdd(docId, key, value, mutationOptionBuilder, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.MAP_ADD, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.MAP_ADD, startNanos, span, docId, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -2613,16 +3592,22 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public <V> V mapGet(String docId, String key, Class<V> valueType) {
-    Span span = helper.buildSpan("mapGet");
-    span.setTag("docId", nullable(docId));
-    span.setTag("key", nullable(key));
-    span.setTag("valueType", nullable(valueType));
+    Span span = helper.buildSpan(Operation.MAP_GET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("key", nullable(key));
+      span.setTag("valueType", nullable(valueType));
+    }
+    helper.recordKey(Operation.MAP_GET, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.mapGet(docId, key, valueType);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.MAP_GET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.MAP_GET, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -2632,18 +3617,24 @@ public class TracingBucket implements Bucket {
   @Public
   public <V> V mapGet(String docId, String key, Class<V> valueType, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("mapGet");
-    span.setTag("docId", nullable(docId));
-    span.setTag("key", nullable(key));
-    span.setTag("valueType", nullable(valueType));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.MAP_GET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("key", nullable(key));
+      span.setTag("valueType", nullable(valueType));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.MAP_GET, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.mapGet(docId, key, valueType, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.MAP_GET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.MAP_GET, startNanos, span, docId, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -2652,15 +3643,21 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public boolean mapRemove(String docId, String key) {
-    Span span = helper.buildSpan("mapRemove");
-    span.setTag("docId", nullable(docId));
-    span.setTag("key", nullable(key));
+    Span span = helper.buildSpan(Operation.MAP_REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("key", nullable(key));
+    }
+    helper.recordKey(Operation.MAP_REMOVE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.mapRemove(docId, key);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.MAP_REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.MAP_REMOVE, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -2670,17 +3667,24 @@ public class TracingBucket implements Bucket {
   @Public
   public boolean mapRemove(String docId, String key, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("mapRemove");
-    span.setTag("docId", nullable(docId));
-    span.setTag("key", nullable(key));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.MAP_REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("key", nullable(key));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.MAP_REMOVE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.mapRemove(docId, key, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.MAP_REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.MAP_REMOVE, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -2690,15 +3694,21 @@ public class TracingBucket implements Bucket {
   @Public
   public boolean mapRemove(String docId, String key,
       MutationOptionBuilder mutationOptionBuilder) {
-    Span span = helper.buildSpan("mapRemove");
-    span.setTag("docId", nullable(docId));
-    span.setTag("key", nullable(key));
+    Span span = helper.buildSpan(Operation.MAP_REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("key", nullable(key));
+    }
+    helper.recordKey(Operation.MAP_REMOVE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.mapRemove(docId, key, mutationOptionBuilder);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.MAP_REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.MAP_REMOVE, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -2709,17 +3719,24 @@ public class TracingBucket implements Bucket {
   public boolean mapRemove(String docId, String key,
       MutationOptionBuilder mutationOptionBuilder,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("mapRemove");
-    span.setTag("docId", nullable(docId));
-    span.setTag("key", nullable(key));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.MAP_REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("key", nullable(key));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.MAP_REMOVE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.mapRemove(docId, key, mutationOptionBuilder, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.MAP_REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.MAP_REMOVE, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -2728,14 +3745,20 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public int mapSize(String docId) {
-    Span span = helper.buildSpan("mapSize");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.MAP_SIZE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.MAP_SIZE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.mapSize(docId);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.MAP_SIZE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.MAP_SIZE, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -2744,16 +3767,22 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public int mapSize(String docId, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("mapSize");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.MAP_SIZE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.MAP_SIZE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.mapSize(docId, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.MAP_SIZE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.MAP_SIZE, startNanos, span, docId, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -2762,16 +3791,22 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public <E> E listGet(String docId, int index, Class<E> elementType) {
-    Span span = helper.buildSpan("listGet");
-    span.setTag("docId", nullable(docId));
-    span.setTag("index", index);
-    span.setTag("elementType", nullable(elementType));
+    Span span = helper.buildSpan(Operation.LIST_GET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("index", index);
+      span.setTag("elementType", nullable(elementType));
+    }
+    helper.recordKey(Operation.LIST_GET, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listGet(docId, index, elementType);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_GET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_GET, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -2781,18 +3816,24 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> E listGet(String docId, int index, Class<E> elementType, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("listGet");
-    span.setTag("docId", nullable(docId));
-    span.setTag("index", index);
-    span.setTag("elementType", nullable(elementType));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.LIST_GET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("index", index);
+      span.setTag("elementType", nullable(elementType));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.LIST_GET, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listGet(docId, index, elementType, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_GET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_GET, startNanos, span, docId, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -2801,14 +3842,20 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public <E> boolean listAppend(String docId, E element) {
-    Span span = helper.buildSpan("listAppend");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.LIST_APPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.LIST_APPEND, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listAppend(docId, element);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_APPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_APPEND, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -2818,16 +3865,23 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> boolean listAppend(String docId, E element, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("listAppend");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.LIST_APPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.LIST_APPEND, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listAppend(docId, element, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_APPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_APPEND, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -2837,14 +3891,20 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> boolean listAppend(String docId, E element,
       MutationOptionBuilder mutationOptionBuilder) {
-    Span span = helper.buildSpan("listAppend");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.LIST_APPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.LIST_APPEND, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listAppend(docId, element, mutationOptionBuilder);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_APPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_APPEND, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -2855,16 +3915,23 @@ public class TracingBucket implements Bucket {
   public <E> boolean listAppend(String docId, E element,
       MutationOptionBuilder mutationOptionBuilder,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("listAppend");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.LIST_APPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.LIST_APPEND, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listAppend(docId, element, mutationOptionBuilder, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_APPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_APPEND, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -2873,15 +3940,21 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public boolean listRemove(String docId, int index) {
-    Span span = helper.buildSpan("listRemove");
-    span.setTag("docId", nullable(docId));
-    span.setTag("index", index);
+    Span span = helper.buildSpan(Operation.LIST_REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("index", index);
+    }
+    helper.recordKey(Operation.LIST_REMOVE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listRemove(docId, index);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_REMOVE, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -2891,17 +3964,24 @@ public class TracingBucket implements Bucket {
   @Public
   public boolean listRemove(String docId, int index, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("listRemove");
-    span.setTag("docId", nullable(docId));
-    span.setTag("index", index);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.LIST_REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("index", index);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.LIST_REMOVE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listRemove(docId, index, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_REMOVE, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -2911,15 +3991,21 @@ public class TracingBucket implements Bucket {
   @Public
   public boolean listRemove(String docId, int index,
       MutationOptionBuilder mutationOptionBuilder) {
-    Span span = helper.buildSpan("listRemove");
-    span.setTag("docId", nullable(docId));
-    span.setTag("index", index);
+    Span span = helper.buildSpan(Operation.LIST_REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("index", index);
+    }
+    helper.recordKey(Operation.LIST_REMOVE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listRemove(docId, index, mutationOptionBuilder);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_REMOVE, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -2930,17 +4016,24 @@ public class TracingBucket implements Bucket {
   public boolean listRemove(String docId, int index,
       MutationOptionBuilder mutationOptionBuilder,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("listRemove");
-    span.setTag("docId", nullable(docId));
-    span.setTag("index", index);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.LIST_REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("index", index);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.LIST_REMOVE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listRemove(docId, index, mutationOptionBuilder, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_REMOVE, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -2949,14 +4042,20 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public <E> boolean listPrepend(String docId, E element) {
-    Span span = helper.buildSpan("listPrepend");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.LIST_PREPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.LIST_PREPEND, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listPrepend(docId, element);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_PREPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_PREPEND, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -2966,16 +4065,23 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> boolean listPrepend(String docId, E element, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("listPrepend");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.LIST_PREPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.LIST_PREPEND, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listPrepend(docId, element, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_PREPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_PREPEND, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -2985,14 +4091,20 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> boolean listPrepend(String docId, E element,
       MutationOptionBuilder mutationOptionBuilder) {
-    Span span = helper.buildSpan("listPrepend");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.LIST_PREPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.LIST_PREPEND, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listPrepend(docId, element, mutationOptionBuilder);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_PREPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_PREPEND, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3003,16 +4115,23 @@ public class TracingBucket implements Bucket {
   public <E> boolean listPrepend(String docId, E element,
       MutationOptionBuilder mutationOptionBuilder,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("listPrepend");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.LIST_PREPEND);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.LIST_PREPEND, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listPrepend(docId, element, mutationOptionBuilder, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_PREPEND, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_PREPEND, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -3021,15 +4140,21 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public <E> boolean listSet(String docId, int index, E element) {
-    Span span = helper.buildSpan("listSet");
-    span.setTag("docId", nullable(docId));
-    span.setTag("index", index);
+    Span span = helper.buildSpan(Operation.LIST_SET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("index", index);
+    }
+    helper.recordKey(Operation.LIST_SET, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listSet(docId, index, element);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_SET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_SET, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3039,17 +4164,23 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> boolean listSet(String docId, int index, E element, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("listSet");
-    span.setTag("docId", nullable(docId));
-    span.setTag("index", index);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.LIST_SET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("index", index);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.LIST_SET, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listSet(docId, index, element, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_SET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_SET, startNanos, span, docId, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -3059,15 +4190,21 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> boolean listSet(String docId, int index, E element,
       MutationOptionBuilder mutationOptionBuilder) {
-    Span span = helper.buildSpan("listSet");
-    span.setTag("docId", nullable(docId));
-    span.setTag("index", index);
+    Span span = helper.buildSpan(Operation.LIST_SET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("index", index);
+    }
+    helper.recordKey(Operation.LIST_SET, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listSet(docId, index, element, mutationOptionBuilder);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_SET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_SET, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3078,17 +4215,23 @@ public class TracingBucket implements Bucket {
   public <E> boolean listSet(String docId, int index, E element,
       MutationOptionBuilder mutationOptionBuilder,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("listSet");
-    span.setTag("docId", nullable(docId));
-    span.setTag("index", index);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.LIST_SET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("index", index);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.LIST_SET, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listSet(docId, index, element, mutationOptionBuilder, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_SET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_SET, startNanos, span, docId, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -3097,14 +4240,20 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public int listSize(String docId) {
-    Span span = helper.buildSpan("listSize");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.LIST_SIZE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.LIST_SIZE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listSize(docId);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_SIZE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_SIZE, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3113,16 +4262,23 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public int listSize(String docId, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("listSize");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.LIST_SIZE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.LIST_SIZE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.listSize(docId, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.LIST_SIZE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.LIST_SIZE, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -3131,14 +4287,20 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public <E> boolean setAdd(String docId, E element) {
-    Span span = helper.buildSpan("setAdd");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.SET_ADD);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.SET_ADD, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.setAdd(docId, element);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.SET_ADD, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.SET_ADD, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3148,16 +4310,22 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> boolean setAdd(String docId, E element, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("setAdd");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.SET_ADD);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.SET_ADD, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.setAdd(docId, element, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.SET_ADD, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.SET_ADD, startNanos, span, docId, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -3167,14 +4335,20 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> boolean setAdd(String docId, E element,
       MutationOptionBuilder mutationOptionBuilder) {
-    Span span = helper.buildSpan("setAdd");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.SET_ADD);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.SET_ADD, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.setAdd(docId, element, mutationOptionBuilder);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.SET_ADD, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.SET_ADD, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3185,16 +4359,22 @@ public class TracingBucket implements Bucket {
   public <E> boolean setAdd(String docId, E element,
       MutationOptionBuilder mutationOptionBuilder,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("setAdd");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.SET_ADD);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.SET_ADD, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.setAdd(docId, element, mutationOptionBuilder, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.SET_ADD, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.SET_ADD, startNanos, span, docId, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -3203,14 +4383,20 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public <E> boolean setContains(String docId, E element) {
-    Span span = helper.buildSpan("setContains");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.SET_CONTAINS);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.SET_CONTAINS, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.setContains(docId, element);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.SET_CONTAINS, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.SET_CONTAINS, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3220,16 +4406,23 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> boolean setContains(String docId, E element, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("setContains");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.SET_CONTAINS);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.SET_CONTAINS, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.setContains(docId, element, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.SET_CONTAINS, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.SET_CONTAINS, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -3238,14 +4431,20 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public <E> E setRemove(String docId, E element) {
-    Span span = helper.buildSpan("setRemove");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.SET_REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.SET_REMOVE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.setRemove(docId, element);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.SET_REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.SET_REMOVE, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3254,16 +4453,23 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public <E> E setRemove(String docId, E element, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("setRemove");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.SET_REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.SET_REMOVE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.setRemove(docId, element, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.SET_REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.SET_REMOVE, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -3273,14 +4479,20 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> E setRemove(String docId, E element,
       MutationOptionBuilder mutationOptionBuilder) {
-    Span span = helper.buildSpan("setRemove");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.SET_REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.SET_REMOVE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.setRemove(docId, element, mutationOptionBuilder);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.SET_REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.SET_REMOVE, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3291,16 +4503,23 @@ public class TracingBucket implements Bucket {
   public <E> E setRemove(String docId, E element,
       MutationOptionBuilder mutationOptionBuilder,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("setRemove");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.SET_REMOVE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.SET_REMOVE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.setRemove(docId, element, mutationOptionBuilder, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.SET_REMOVE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.SET_REMOVE, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -3309,14 +4528,20 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public int setSize(String docId) {
-    Span span = helper.buildSpan("setSize");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.SET_SIZE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.SET_SIZE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.setSize(docId);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.SET_SIZE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.SET_SIZE, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3325,16 +4550,22 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public int setSize(String docId, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("setSize");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.SET_SIZE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.SET_SIZE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.setSize(docId, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.SET_SIZE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.SET_SIZE, startNanos, span, docId, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -3343,14 +4574,20 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public <E> boolean queuePush(String docId, E element) {
-    Span span = helper.buildSpan("queuePush");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.QUEUE_PUSH);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.QUEUE_PUSH, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.queuePush(docId, element);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUEUE_PUSH, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUEUE_PUSH, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3360,16 +4597,23 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> boolean queuePush(String docId, E element, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("queuePush");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.QUEUE_PUSH);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.QUEUE_PUSH, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.queuePush(docId, element, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUEUE_PUSH, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUEUE_PUSH, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -3379,14 +4623,20 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> boolean queuePush(String docId, E element,
       MutationOptionBuilder mutationOptionBuilder) {
-    Span span = helper.buildSpan("queuePush");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.QUEUE_PUSH);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.QUEUE_PUSH, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.queuePush(docId, element, mutationOptionBuilder);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUEUE_PUSH, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUEUE_PUSH, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3397,16 +4647,23 @@ public class TracingBucket implements Bucket {
   public <E> boolean queuePush(String docId, E element,
       MutationOptionBuilder mutationOptionBuilder,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("queuePush");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.QUEUE_PUSH);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.QUEUE_PUSH, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.queuePush(docId, element, mutationOptionBuilder, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUEUE_PUSH, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUEUE_PUSH, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -3415,15 +4672,21 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public <E> E queuePop(String docId, Class<E> elementType) {
-    Span span = helper.buildSpan("queuePop");
-    span.setTag("docId", nullable(docId));
-    span.setTag("elementType", nullable(elementType));
+    Span span = helper.buildSpan(Operation.QUEUE_POP);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("elementType", nullable(elementType));
+    }
+    helper.recordKey(Operation.QUEUE_POP, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.queuePop(docId, elementType);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUEUE_POP, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUEUE_POP, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3433,17 +4696,24 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> E queuePop(String docId, Class<E> elementType, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("queuePop");
-    span.setTag("docId", nullable(docId));
-    span.setTag("elementType", nullable(elementType));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.QUEUE_POP);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("elementType", nullable(elementType));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.QUEUE_POP, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.queuePop(docId, elementType, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUEUE_POP, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUEUE_POP, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -3453,15 +4723,21 @@ public class TracingBucket implements Bucket {
   @Public
   public <E> E queuePop(String docId, Class<E> elementType,
       MutationOptionBuilder mutationOptionBuilder) {
-    Span span = helper.buildSpan("queuePop");
-    span.setTag("docId", nullable(docId));
-    span.setTag("elementType", nullable(elementType));
+    Span span = helper.buildSpan(Operation.QUEUE_POP);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("elementType", nullable(elementType));
+    }
+    helper.recordKey(Operation.QUEUE_POP, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.queuePop(docId, elementType, mutationOptionBuilder);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUEUE_POP, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUEUE_POP, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3472,17 +4748,24 @@ public class TracingBucket implements Bucket {
   public <E> E queuePop(String docId, Class<E> elementType,
       MutationOptionBuilder mutationOptionBuilder,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("queuePop");
-    span.setTag("docId", nullable(docId));
-    span.setTag("elementType", nullable(elementType));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.QUEUE_POP);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("elementType", nullable(elementType));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.QUEUE_POP, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.queuePop(docId, elementType, mutationOptionBuilder, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUEUE_POP, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUEUE_POP, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -3491,14 +4774,20 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public int queueSize(String docId) {
-    Span span = helper.buildSpan("queueSize");
-    span.setTag("docId", nullable(docId));
+    Span span = helper.buildSpan(Operation.QUEUE_SIZE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+    }
+    helper.recordKey(Operation.QUEUE_SIZE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.queueSize(docId);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUEUE_SIZE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUEUE_SIZE, startNanos, span, docId, 0, null, outcome);
       span.finish();
     }
   }
@@ -3507,29 +4796,40 @@ public class TracingBucket implements Bucket {
   @Committed
   @Public
   public int queueSize(String docId, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("queueSize");
-    span.setTag("docId", nullable(docId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.QUEUE_SIZE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("docId", nullable(docId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    helper.recordKey(Operation.QUEUE_SIZE, docId);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.queueSize(docId, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUEUE_SIZE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUEUE_SIZE, startNanos, span, docId, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public int invalidateQueryCache() {
-    Span span = helper.buildSpan("invalidateQueryCache");
+    Span span = helper.buildSpan(Operation.INVALIDATE_QUERY_CACHE);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.invalidateQueryCache();
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.INVALIDATE_QUERY_CACHE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.INVALIDATE_QUERY_CACHE, startNanos, span, null, 0, null,
+          outcome);
       span.finish();
     }
   }
@@ -3550,28 +4850,36 @@ public class TracingBucket implements Bucket {
 
   @Override
   public Boolean close() {
-    Span span = helper.buildSpan("close");
+    Span span = helper.buildSpan(Operation.CLOSE);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.close();
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.CLOSE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.CLOSE, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
 
   @Override
   public Boolean close(long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("close");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.CLOSE);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.close(timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.CLOSE, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.CLOSE, startNanos, span, null, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -3583,14 +4891,19 @@ public class TracingBucket implements Bucket {
 
   @Override
   public PingReport ping(String reportId) {
-    Span span = helper.buildSpan("ping");
-    span.setTag("reportId", nullable(reportId));
+    Span span = helper.buildSpan(Operation.PING);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("reportId", nullable(reportId));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.ping(reportId);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PING, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PING, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
@@ -3598,29 +4911,37 @@ public class TracingBucket implements Bucket {
   @Override
   public PingReport ping(String reportId, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("ping");
-    span.setTag("reportId", nullable(reportId));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.PING);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("reportId", nullable(reportId));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.ping(reportId, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PING, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PING, startNanos, span, null, timeout, timeUnit, outcome);
       span.finish();
     }
   }
 
   @Override
   public PingReport ping() {
-    Span span = helper.buildSpan("ping");
+    Span span = helper.buildSpan(Operation.PING);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.ping();
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PING, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PING, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
@@ -3628,15 +4949,20 @@ public class TracingBucket implements Bucket {
   @Override
   public PingReport ping(long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("ping");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.PING);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.ping(timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PING, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PING, startNanos, span, null, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -3644,14 +4970,19 @@ public class TracingBucket implements Bucket {
   @Override
   public PingReport ping(
       Collection<ServiceType> services) {
-    Span span = helper.buildSpan("ping");
-    span.setTag("services", TracingHelper.toString(services));
+    Span span = helper.buildSpan(Operation.PING);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("services", TracingHelper.toString(services));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.ping(services);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PING, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PING, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
@@ -3660,16 +4991,21 @@ public class TracingBucket implements Bucket {
   public PingReport ping(
       Collection<ServiceType> services, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("ping");
-    span.setTag("services", TracingHelper.toString(services));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.PING);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("services", TracingHelper.toString(services));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.ping(services, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PING, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PING, startNanos, span, null, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -3677,15 +5013,20 @@ public class TracingBucket implements Bucket {
   @Override
   public PingReport ping(String reportId,
       Collection<ServiceType> services) {
-    Span span = helper.buildSpan("ping");
-    span.setTag("reportId", nullable(reportId));
-    span.setTag("services", TracingHelper.toString(services));
+    Span span = helper.buildSpan(Operation.PING);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("reportId", nullable(reportId));
+      span.setTag("services", TracingHelper.toString(services));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.ping(reportId, services);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PING, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PING, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
@@ -3694,17 +5035,22 @@ public class TracingBucket implements Bucket {
   public PingReport ping(String reportId,
       Collection<ServiceType> services, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("ping");
-    span.setTag("reportId", nullable(reportId));
-    span.setTag("services", TracingHelper.toString(services));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.PING);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("reportId", nullable(reportId));
+      span.setTag("services", TracingHelper.toString(services));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return bucket.ping(reportId, services, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.PING, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.PING, startNanos, span, null, timeout, timeUnit, outcome);
       span.finish();
     }
   }
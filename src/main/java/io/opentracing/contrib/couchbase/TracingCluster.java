@@ -14,8 +14,6 @@
 package io.opentracing.contrib.couchbase;
 
 import static io.opentracing.contrib.couchbase.TracingHelper.nullable;
-import static io.opentracing.contrib.couchbase.TracingHelper.nullableClass;
-import static io.opentracing.contrib.couchbase.TracingHelper.onError;
 
 import com.couchbase.client.core.ClusterFacade;
 import com.couchbase.client.core.annotations.InterfaceAudience.Public;
@@ -32,6 +30,8 @@ import com.couchbase.client.java.query.N1qlQueryResult;
 import com.couchbase.client.java.transcoder.Transcoder;
 import io.opentracing.Span;
 import io.opentracing.Tracer;
+import io.opentracing.noop.NoopSpan;
+import io.opentracing.tag.Tags;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -39,29 +39,46 @@ public class TracingCluster implements Cluster {
 
   private final Cluster cluster;
   private final TracingHelper helper;
-  private final Tracer tracer;
-  private final boolean traceWithActiveSpanOnly;
 
   public TracingCluster(Cluster cluster, Tracer tracer) {
     this(cluster, tracer, false);
   }
 
   public TracingCluster(Cluster cluster, Tracer tracer, boolean traceWithActiveSpanOnly) {
+    this(cluster, tracer, traceWithActiveSpanOnly, Sampler.ALWAYS_SAMPLE);
+  }
+
+  public TracingCluster(Cluster cluster, Tracer tracer, boolean traceWithActiveSpanOnly,
+      Sampler sampler) {
+    this(cluster, tracer, traceWithActiveSpanOnly, sampler, null);
+  }
+
+  /**
+   * @param tailSampler if not {@code null} only slow or failed operations are reported
+   */
+  public TracingCluster(Cluster cluster, Tracer tracer, boolean traceWithActiveSpanOnly,
+      Sampler sampler, TailSampler tailSampler) {
+    this(cluster, new TracingHelper(tracer, traceWithActiveSpanOnly, sampler, tailSampler));
+  }
+
+  public TracingCluster(Cluster cluster, TracingHelper helper) {
     this.cluster = cluster;
-    this.tracer = tracer;
-    this.traceWithActiveSpanOnly = traceWithActiveSpanOnly;
-    this.helper = new TracingHelper(tracer, traceWithActiveSpanOnly);
+    this.helper = helper;
   }
 
   @Override
   public Bucket openBucket() {
-    Span span = helper.buildSpan("openBucket");
+    Span span = helper.buildSpan(Operation.OPEN_BUCKET);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return new TracingBucket(cluster.openBucket(), helper);
+      Bucket bucket = cluster.openBucket();
+      return new TracingBucket(bucket, helper.forBucket(bucket.name()));
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.OPEN_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.OPEN_BUCKET, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
@@ -69,29 +86,41 @@ public class TracingCluster implements Cluster {
   @Override
   public Bucket openBucket(long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("openBucket");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.OPEN_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return new TracingBucket(cluster.openBucket(timeout, timeUnit), helper);
+      Bucket bucket = cluster.openBucket(timeout, timeUnit);
+      return new TracingBucket(bucket, helper.forBucket(bucket.name()));
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.OPEN_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.OPEN_BUCKET, startNanos, span, null, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public Bucket openBucket(String name) {
-    Span span = helper.buildSpan("openBucket");
-    span.setTag("name", name);
+    Span span = helper.buildSpan(Operation.OPEN_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("name", name);
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return new TracingBucket(cluster.openBucket(name), helper);
+      return new TracingBucket(cluster.openBucket(name), helper.forBucket(name));
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.OPEN_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.OPEN_BUCKET, startNanos, span, name, 0, null, outcome);
       span.finish();
     }
   }
@@ -99,16 +128,22 @@ public class TracingCluster implements Cluster {
   @Override
   public Bucket openBucket(String name, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("openBucket");
-    span.setTag("name", name);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.OPEN_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("name", name);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return new TracingBucket(cluster.openBucket(name, timeout, timeUnit), helper);
+      return new TracingBucket(cluster.openBucket(name, timeout, timeUnit), helper.forBucket(name));
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.OPEN_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.OPEN_BUCKET, startNanos, span, name, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -116,15 +151,20 @@ public class TracingCluster implements Cluster {
   @Override
   public Bucket openBucket(String name,
       List<Transcoder<? extends Document, ?>> transcoders) {
-    Span span = helper.buildSpan("openBucket");
-    span.setTag("name", name);
-    span.setTag("transcoders", TracingHelper.toStringClass(transcoders));
+    Span span = helper.buildSpan(Operation.OPEN_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("name", name);
+      span.setTag("transcoders", TracingHelper.toStringClass(transcoders));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return new TracingBucket(cluster.openBucket(name, transcoders), helper);
+      return new TracingBucket(cluster.openBucket(name, transcoders), helper.forBucket(name));
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.OPEN_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.OPEN_BUCKET, startNanos, span, name, 0, null, outcome);
       span.finish();
     }
   }
@@ -133,31 +173,43 @@ public class TracingCluster implements Cluster {
   public Bucket openBucket(String name,
       List<Transcoder<? extends Document, ?>> transcoders,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("openBucket");
-    span.setTag("name", name);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("transcoders", TracingHelper.toStringClass(transcoders));
+    Span span = helper.buildSpan(Operation.OPEN_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("name", name);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("transcoders", TracingHelper.toStringClass(transcoders));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return new TracingBucket(cluster.openBucket(name, transcoders, timeout, timeUnit), helper);
+      return new TracingBucket(cluster.openBucket(name, transcoders, timeout, timeUnit),
+          helper.forBucket(name));
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.OPEN_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.OPEN_BUCKET, startNanos, span, name, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public Bucket openBucket(String name, String password) {
-    Span span = helper.buildSpan("openBucket");
-    span.setTag("name", name);
+    Span span = helper.buildSpan(Operation.OPEN_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("name", name);
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return new TracingBucket(cluster.openBucket(name, password), helper);
+      return new TracingBucket(cluster.openBucket(name, password), helper.forBucket(name));
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.OPEN_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.OPEN_BUCKET, startNanos, span, name, 0, null, outcome);
       span.finish();
     }
   }
@@ -165,16 +217,23 @@ public class TracingCluster implements Cluster {
   @Override
   public Bucket openBucket(String name, String password, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("openBucket");
-    span.setTag("name", name);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.OPEN_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("name", name);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return new TracingBucket(cluster.openBucket(name, password, timeout, timeUnit), helper);
+      return new TracingBucket(cluster.openBucket(name, password, timeout, timeUnit),
+          helper.forBucket(name));
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.OPEN_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.OPEN_BUCKET, startNanos, span, name, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -182,15 +241,21 @@ public class TracingCluster implements Cluster {
   @Override
   public Bucket openBucket(String name, String password,
       List<Transcoder<? extends Document, ?>> transcoders) {
-    Span span = helper.buildSpan("openBucket");
-    span.setTag("name", name);
-    span.setTag("transcoders", TracingHelper.toStringClass(transcoders));
+    Span span = helper.buildSpan(Operation.OPEN_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("name", name);
+      span.setTag("transcoders", TracingHelper.toStringClass(transcoders));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return new TracingBucket(cluster.openBucket(name, password, transcoders), helper);
+      return new TracingBucket(cluster.openBucket(name, password, transcoders),
+          helper.forBucket(name));
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.OPEN_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.OPEN_BUCKET, startNanos, span, name, 0, null, outcome);
       span.finish();
     }
   }
@@ -199,18 +264,24 @@ public class TracingCluster implements Cluster {
   public Bucket openBucket(String name, String password,
       List<Transcoder<? extends Document, ?>> transcoders,
       long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("openBucket");
-    span.setTag("name", name);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
-    span.setTag("transcoders", TracingHelper.toStringClass(transcoders));
+    Span span = helper.buildSpan(Operation.OPEN_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("name", name);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+      span.setTag("transcoders", TracingHelper.toStringClass(transcoders));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return new TracingBucket(cluster.openBucket(name, password, transcoders, timeout, timeUnit),
-          helper);
+          helper.forBucket(name));
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.OPEN_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.OPEN_BUCKET, startNanos, span, name, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -219,14 +290,21 @@ public class TracingCluster implements Cluster {
   @Uncommitted
   public N1qlQueryResult query(
       N1qlQuery query) {
-    Span span = helper.buildSpan("query");
-    span.setTag("query", nullableClass(query));
+    Span span = helper.buildSpan(Operation.QUERY);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(Tags.DB_STATEMENT.getKey(), helper.statement(query));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return cluster.query(query);
+      N1qlQueryResult result = cluster.query(query);
+      outcome = helper.recordResult(Operation.QUERY, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUERY, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUERY, startNanos, span, query, 0, null, outcome);
       span.finish();
     }
   }
@@ -236,16 +314,23 @@ public class TracingCluster implements Cluster {
   public N1qlQueryResult query(
       N1qlQuery query, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("query");
-    span.setTag("query", nullableClass(query));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.QUERY);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(Tags.DB_STATEMENT.getKey(), helper.statement(query));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
-      return cluster.query(query, timeout, timeUnit);
+      N1qlQueryResult result = cluster.query(query, timeout, timeUnit);
+      outcome = helper.recordResult(Operation.QUERY, result, span);
+      return result;
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.QUERY, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.QUERY, startNanos, span, query, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -263,60 +348,70 @@ public class TracingCluster implements Cluster {
 
   @Override
   public Boolean disconnect() {
-    Span span = helper.buildSpan("disconnect");
+    Span span = helper.buildSpan(Operation.DISCONNECT);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return cluster.disconnect();
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.DISCONNECT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.DISCONNECT, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
 
   @Override
   public Boolean disconnect(long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("disconnect");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.DISCONNECT);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return cluster.disconnect(timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.DISCONNECT, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.DISCONNECT, startNanos, span, null, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public ClusterFacade core() {
-    // TODO: tracing ClusterFacade
-    return cluster.core();
+    return new TracingClusterFacade(cluster.core(), helper);
   }
 
   @Override
   public Cluster authenticate(Authenticator auth) {
-    return new TracingCluster(cluster.authenticate(auth), tracer, traceWithActiveSpanOnly);
+    return new TracingCluster(cluster.authenticate(auth), helper);
   }
 
   @Override
   public Cluster authenticate(String username, String password) {
-    return new TracingCluster(cluster.authenticate(username, password), tracer,
-        traceWithActiveSpanOnly);
+    return new TracingCluster(cluster.authenticate(username, password), helper);
   }
 
   @Override
   @Experimental
   @Public
   public DiagnosticsReport diagnostics() {
-    Span span = helper.buildSpan("diagnostics");
+    Span span = helper.buildSpan(Operation.DIAGNOSTICS);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return cluster.diagnostics();
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.DIAGNOSTICS, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.DIAGNOSTICS, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
@@ -326,14 +421,19 @@ public class TracingCluster implements Cluster {
   @Public
   public DiagnosticsReport diagnostics(
       String reportId) {
-    Span span = helper.buildSpan("diagnostics");
-    span.setTag("reportId", nullable(reportId));
+    Span span = helper.buildSpan(Operation.DIAGNOSTICS);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("reportId", nullable(reportId));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return cluster.diagnostics(reportId);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.DIAGNOSTICS, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.DIAGNOSTICS, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
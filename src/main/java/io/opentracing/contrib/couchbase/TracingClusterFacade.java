@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static io.opentracing.contrib.couchbase.TracingHelper.nullable;
+
+import com.couchbase.client.core.BackpressureException;
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import io.opentracing.Span;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import rx.Observable;
+import rx.Observable.OnSubscribe;
+import rx.Observer;
+import rx.Subscriber;
+import rx.functions.Action0;
+
+/**
+ * Traces the requests sent explicitly through {@code core().send(...)}. Operations of the bucket
+ * and cluster APIs are dispatched inside the core and do not pass through this facade.
+ *
+ * <p>A "send" span is only started when the response is subscribed, so a response which is never
+ * subscribed leaves no unfinished span behind; every subscription gets its own span. The span
+ * covers the request from the subscription to the response. It is tagged with the
+ * {@code status} reported by the server, or with {@code backpressure=true} if the core rejected
+ * the request because its request ring buffer was full. Core-io 1.5 does not expose how long a
+ * request waited in the ring buffer, so saturation shows as rejections rather than as a queue
+ * time.
+ */
+public class TracingClusterFacade implements ClusterFacade {
+
+  private final ClusterFacade facade;
+  private final TracingHelper helper;
+
+  public TracingClusterFacade(ClusterFacade facade, TracingHelper helper) {
+    this.facade = facade;
+    this.helper = helper;
+  }
+
+  @Override
+  public <R extends CouchbaseResponse> Observable<R> send(final CouchbaseRequest request) {
+    if (!helper.isSampled(Operation.SEND)) {
+      return facade.send(request);
+    }
+
+    // the core dispatches the request right away, whether the response is subscribed or not
+    final Observable<R> response;
+    try {
+      response = facade.send(request);
+    } catch (Exception e) {
+      Span span = startSpan(request);
+      onError(e, span, helper);
+      span.finish();
+      throw e;
+    }
+    return Observable.create(new OnSubscribe<R>() {
+      @Override
+      public void call(Subscriber<? super R> subscriber) {
+        ResponseObserver<R> observer = new ResponseObserver<>(startSpan(request), helper);
+        response.doOnEach(observer).doOnUnsubscribe(observer).unsafeSubscribe(subscriber);
+      }
+    });
+  }
+
+  private Span startSpan(CouchbaseRequest request) {
+    Span span = helper.startSpan(Operation.SEND);
+    span.setTag("request", request.getClass().getSimpleName());
+    span.setTag("bucket", nullable(request.bucket()));
+    return span;
+  }
+
+  private static void onError(Throwable throwable, Span span, TracingHelper helper) {
+    if (throwable instanceof BackpressureException) {
+      span.setTag("backpressure", true);
+    }
+    helper.tagError(throwable, span);
+  }
+
+  /**
+   * Tags the response and finishes the span exactly once, on the terminal event or when the
+   * caller unsubscribes, e.g. after a timeout.
+   */
+  private static final class ResponseObserver<R extends CouchbaseResponse>
+      implements Observer<R>, Action0 {
+
+    private static final AtomicIntegerFieldUpdater<ResponseObserver> FINISHED =
+        AtomicIntegerFieldUpdater.newUpdater(ResponseObserver.class, "finished");
+
+    private final Span span;
+    private final TracingHelper helper;
+    private volatile int finished;
+
+    ResponseObserver(Span span, TracingHelper helper) {
+      this.span = span;
+      this.helper = helper;
+    }
+
+    @Override
+    public void onNext(R response) {
+      if (finished == 0) {
+        span.setTag("status", nullable(response.status()));
+      }
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      if (finished == 0) {
+        TracingClusterFacade.onError(e, span, helper);
+      }
+      call();
+    }
+
+    @Override
+    public void onCompleted() {
+      call();
+    }
+
+    @Override
+    public void call() {
+      if (FINISHED.compareAndSet(this, 0, 1)) {
+        span.finish();
+      }
+    }
+  }
+}
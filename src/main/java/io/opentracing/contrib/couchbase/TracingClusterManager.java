@@ -14,7 +14,6 @@
 package io.opentracing.contrib.couchbase;
 
 import static io.opentracing.contrib.couchbase.TracingHelper.nullable;
-import static io.opentracing.contrib.couchbase.TracingHelper.onError;
 
 import com.couchbase.client.core.annotations.InterfaceStability.Experimental;
 import com.couchbase.client.java.cluster.AsyncClusterManager;
@@ -26,6 +25,7 @@ import com.couchbase.client.java.cluster.User;
 import com.couchbase.client.java.cluster.UserSettings;
 import com.couchbase.client.java.cluster.api.ClusterApiClient;
 import io.opentracing.Span;
+import io.opentracing.noop.NoopSpan;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -41,18 +41,21 @@ public class TracingClusterManager implements ClusterManager {
 
   @Override
   public AsyncClusterManager async() {
-    return clusterManager.async();
+    return new TracingAsyncClusterManager(clusterManager.async(), helper);
   }
 
   @Override
   public ClusterInfo info() {
-    Span span = helper.buildSpan("info");
+    Span span = helper.buildSpan(Operation.INFO);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.info();
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.INFO, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.INFO, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
@@ -60,28 +63,36 @@ public class TracingClusterManager implements ClusterManager {
   @Override
   public ClusterInfo info(long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("info");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.INFO);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.info(timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.INFO, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.INFO, startNanos, span, null, timeout, timeUnit, outcome);
       span.finish();
     }
   }
 
   @Override
   public List<BucketSettings> getBuckets() {
-    Span span = helper.buildSpan("getBuckets");
+    Span span = helper.buildSpan(Operation.GET_BUCKETS);
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.getBuckets();
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_BUCKETS, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_BUCKETS, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
@@ -89,29 +100,40 @@ public class TracingClusterManager implements ClusterManager {
   @Override
   public List<BucketSettings> getBuckets(long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getBuckets");
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_BUCKETS);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.getBuckets(timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_BUCKETS, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_BUCKETS, startNanos, span, null, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public BucketSettings getBucket(String name) {
-    Span span = helper.buildSpan("getBucket");
-    span.setTag("name", nullable(name));
+    Span span = helper.buildSpan(Operation.GET_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("name", nullable(name));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.getBucket(name);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_BUCKET, startNanos, span, name, 0, null, outcome);
       span.finish();
     }
   }
@@ -119,46 +141,63 @@ public class TracingClusterManager implements ClusterManager {
   @Override
   public BucketSettings getBucket(String name, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getBucket");
-    span.setTag("name", nullable(name));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("name", nullable(name));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.getBucket(name, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_BUCKET, startNanos, span, name, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public Boolean hasBucket(String name) {
-    Span span = helper.buildSpan("hasBucket");
-    span.setTag("name", nullable(name));
+    Span span = helper.buildSpan(Operation.HAS_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("name", nullable(name));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.hasBucket(name);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.HAS_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.HAS_BUCKET, startNanos, span, name, 0, null, outcome);
       span.finish();
     }
   }
 
   @Override
   public Boolean hasBucket(String name, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("hasBucket");
-    span.setTag("name", nullable(name));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.HAS_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("name", nullable(name));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.hasBucket(name, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.HAS_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.HAS_BUCKET, startNanos, span, name, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -166,14 +205,19 @@ public class TracingClusterManager implements ClusterManager {
   @Override
   public BucketSettings insertBucket(
       BucketSettings settings) {
-    Span span = helper.buildSpan("insertBucket");
-    span.setTag("settings", nullable(settings));
+    Span span = helper.buildSpan(Operation.INSERT_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("settings", nullable(settings));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.insertBucket(settings);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.INSERT_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.INSERT_BUCKET, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
@@ -182,16 +226,22 @@ public class TracingClusterManager implements ClusterManager {
   public BucketSettings insertBucket(
       BucketSettings settings, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("insertBucket");
-    span.setTag("settings", nullable(settings));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.INSERT_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("settings", nullable(settings));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.insertBucket(settings, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.INSERT_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.INSERT_BUCKET, startNanos, span, null, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -199,14 +249,19 @@ public class TracingClusterManager implements ClusterManager {
   @Override
   public BucketSettings updateBucket(
       BucketSettings settings) {
-    Span span = helper.buildSpan("updateBucket");
-    span.setTag("settings", nullable(settings));
+    Span span = helper.buildSpan(Operation.UPDATE_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("settings", nullable(settings));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.updateBucket(settings);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UPDATE_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UPDATE_BUCKET, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
@@ -215,46 +270,63 @@ public class TracingClusterManager implements ClusterManager {
   public BucketSettings updateBucket(
       BucketSettings settings, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("updateBucket");
-    span.setTag("settings", nullable(settings));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.UPDATE_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("settings", nullable(settings));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.updateBucket(settings, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UPDATE_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UPDATE_BUCKET, startNanos, span, null, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
 
   @Override
   public Boolean removeBucket(String name) {
-    Span span = helper.buildSpan("removeBucket");
-    span.setTag("name", nullable(name));
+    Span span = helper.buildSpan(Operation.REMOVE_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("name", nullable(name));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.removeBucket(name);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE_BUCKET, startNanos, span, name, 0, null, outcome);
       span.finish();
     }
   }
 
   @Override
   public Boolean removeBucket(String name, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("removeBucket");
-    span.setTag("name", nullable(name));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REMOVE_BUCKET);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("name", nullable(name));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.removeBucket(name, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE_BUCKET, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE_BUCKET, startNanos, span, name, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -263,15 +335,20 @@ public class TracingClusterManager implements ClusterManager {
   @Experimental
   public Boolean upsertUser(AuthDomain domain,
       String username, UserSettings settings) {
-    Span span = helper.buildSpan("upsertUser");
-    span.setTag("domain", nullable(domain));
-    span.setTag("username", nullable(username));
+    Span span = helper.buildSpan(Operation.UPSERT_USER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("domain", nullable(domain));
+      span.setTag("username", nullable(username));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.upsertUser(domain, username, settings);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UPSERT_USER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UPSERT_USER, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
@@ -281,17 +358,23 @@ public class TracingClusterManager implements ClusterManager {
   public Boolean upsertUser(AuthDomain domain,
       String username, UserSettings settings, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("upsertUser");
-    span.setTag("domain", nullable(domain));
-    span.setTag("username", nullable(username));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.UPSERT_USER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("domain", nullable(domain));
+      span.setTag("username", nullable(username));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.upsertUser(domain, username, settings, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.UPSERT_USER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.UPSERT_USER, startNanos, span, null, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -300,15 +383,20 @@ public class TracingClusterManager implements ClusterManager {
   @Experimental
   public Boolean removeUser(AuthDomain domain,
       String username) {
-    Span span = helper.buildSpan("removeUser");
-    span.setTag("domain", nullable(domain));
-    span.setTag("username", nullable(username));
+    Span span = helper.buildSpan(Operation.REMOVE_USER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("domain", nullable(domain));
+      span.setTag("username", nullable(username));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.removeUser(domain, username);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE_USER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE_USER, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
@@ -317,17 +405,23 @@ public class TracingClusterManager implements ClusterManager {
   @Experimental
   public Boolean removeUser(AuthDomain domain,
       String username, long timeout, TimeUnit timeUnit) {
-    Span span = helper.buildSpan("removeUser");
-    span.setTag("domain", nullable(domain));
-    span.setTag("username", nullable(username));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.REMOVE_USER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("domain", nullable(domain));
+      span.setTag("username", nullable(username));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.removeUser(domain, username, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.REMOVE_USER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.REMOVE_USER, startNanos, span, null, timeout, timeUnit,
+          outcome);
       span.finish();
     }
   }
@@ -336,14 +430,19 @@ public class TracingClusterManager implements ClusterManager {
   @Experimental
   public List<User> getUsers(
       AuthDomain domain) {
-    Span span = helper.buildSpan("getUsers");
-    span.setTag("domain", nullable(domain));
+    Span span = helper.buildSpan(Operation.GET_USERS);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("domain", nullable(domain));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.getUsers(domain);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_USERS, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_USERS, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
@@ -353,16 +452,21 @@ public class TracingClusterManager implements ClusterManager {
   public List<User> getUsers(
       AuthDomain domain, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getUsers");
-    span.setTag("domain", nullable(domain));
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_USERS);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("domain", nullable(domain));
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.getUsers(domain, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_USERS, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_USERS, startNanos, span, null, timeout, timeUnit, outcome);
       span.finish();
     }
   }
@@ -371,15 +475,20 @@ public class TracingClusterManager implements ClusterManager {
   @Experimental
   public User getUser(
       AuthDomain domain, String userid) {
-    Span span = helper.buildSpan("getUser");
-    span.setTag("domain", nullable(domain));
-    span.setTag("userid", userid);
+    Span span = helper.buildSpan(Operation.GET_USER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("domain", nullable(domain));
+      span.setTag("userid", userid);
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.getUser(domain, userid);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_USER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_USER, startNanos, span, null, 0, null, outcome);
       span.finish();
     }
   }
@@ -389,17 +498,22 @@ public class TracingClusterManager implements ClusterManager {
   public User getUser(
       AuthDomain domain, String userid, long timeout,
       TimeUnit timeUnit) {
-    Span span = helper.buildSpan("getUser");
-    span.setTag("domain", nullable(domain));
-    span.setTag("userid", userid);
-    span.setTag("timeout", timeout);
-    span.setTag("timeUnit", nullable(timeUnit));
+    Span span = helper.buildSpan(Operation.GET_USER);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("domain", nullable(domain));
+      span.setTag("userid", userid);
+      span.setTag("timeout", timeout);
+      span.setTag("timeUnit", nullable(timeUnit));
+    }
+    long startNanos = System.nanoTime();
+    Outcome outcome = Outcome.SUCCESS;
     try {
       return clusterManager.getUser(domain, userid, timeout, timeUnit);
     } catch (Exception e) {
-      onError(e, span);
+      outcome = helper.onError(Operation.GET_USER, e, span);
       throw e;
     } finally {
+      helper.recordLatency(Operation.GET_USER, startNanos, span, null, timeout, timeUnit, outcome);
       span.finish();
     }
   }
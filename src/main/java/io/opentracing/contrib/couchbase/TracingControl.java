@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Runtime switches of the instrumentation, shared by a {@link TracingHelper} and the helpers of
+ * its buckets. The current settings are kept in an immutable snapshot which is replaced on every
+ * change, so each traced call sees all of them through a single volatile read.
+ */
+public class TracingControl implements TracingControlMBean {
+
+  static final String DOMAIN = "io.opentracing.contrib.couchbase";
+
+  private final Sampler initialSampler;
+  private volatile Settings settings;
+
+  public TracingControl(boolean traceWithActiveSpanOnly, Sampler sampler) {
+    this.initialSampler = sampler;
+    this.settings = new Settings(true, traceWithActiveSpanOnly, sampler,
+        new boolean[Operation.count()], Collections.<String>emptySet());
+  }
+
+  Settings settings() {
+    return settings;
+  }
+
+  /**
+   * Registers this control with the platform MBean server as
+   * {@code io.opentracing.contrib.couchbase:type=TracingControl,name=<name>}.
+   */
+  public ObjectName register(String name) throws JMException {
+    ObjectName objectName = objectName(name);
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+    return objectName;
+  }
+
+  public void unregister(String name) throws JMException {
+    ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return settings.enabled;
+  }
+
+  @Override
+  public synchronized void setEnabled(boolean enabled) {
+    Settings current = settings;
+    settings = new Settings(enabled, current.traceWithActiveSpanOnly, current.sampler,
+        current.disabledOperations, current.disabledBuckets);
+  }
+
+  @Override
+  public boolean isTraceWithActiveSpanOnly() {
+    return settings.traceWithActiveSpanOnly;
+  }
+
+  @Override
+  public synchronized void setTraceWithActiveSpanOnly(boolean traceWithActiveSpanOnly) {
+    Settings current = settings;
+    settings = new Settings(current.enabled, traceWithActiveSpanOnly, current.sampler,
+        current.disabledOperations, current.disabledBuckets);
+  }
+
+  @Override
+  public String[] getDisabledOperations() {
+    boolean[] disabled = settings.disabledOperations;
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < disabled.length; i++) {
+      if (disabled[i]) {
+        names.add(Operation.valueOf(i).getName());
+      }
+    }
+    return names.toArray(new String[names.size()]);
+  }
+
+  @Override
+  public void disableOperation(String operationName) {
+    setOperationEnabled(Operation.forName(operationName), false);
+  }
+
+  @Override
+  public void enableOperation(String operationName) {
+    setOperationEnabled(Operation.forName(operationName), true);
+  }
+
+  @Override
+  public String[] getDisabledBuckets() {
+    Set<String> buckets = settings.disabledBuckets;
+    return buckets.toArray(new String[buckets.size()]);
+  }
+
+  @Override
+  public void disableBucket(String bucketName) {
+    updateBucket(bucketName, true);
+  }
+
+  @Override
+  public void enableBucket(String bucketName) {
+    updateBucket(bucketName, false);
+  }
+
+  @Override
+  public String getSampler() {
+    return settings.sampler.getClass().getName();
+  }
+
+  @Override
+  public void setSamplingRate(double rate) {
+    setSampler(new ProbabilisticSampler(rate));
+  }
+
+  @Override
+  public void resetSampler() {
+    setSampler(initialSampler);
+  }
+
+  public synchronized void setSampler(Sampler sampler) {
+    if (sampler == null) {
+      throw new IllegalArgumentException("Sampler must not be null");
+    }
+    Settings current = settings;
+    settings = new Settings(current.enabled, current.traceWithActiveSpanOnly, sampler,
+        current.disabledOperations, current.disabledBuckets);
+  }
+
+  public synchronized void setOperationEnabled(Operation operation, boolean enabled) {
+    Settings current = settings;
+    boolean[] operations = current.disabledOperations.clone();
+    operations[operation.ordinal()] = !enabled;
+    settings = new Settings(current.enabled, current.traceWithActiveSpanOnly, current.sampler,
+        operations, current.disabledBuckets);
+  }
+
+  private synchronized void updateBucket(String bucketName, boolean disabled) {
+    Settings current = settings;
+    Set<String> buckets = update(current.disabledBuckets, bucketName, disabled);
+    settings = new Settings(current.enabled, current.traceWithActiveSpanOnly, current.sampler,
+        current.disabledOperations, buckets);
+  }
+
+  private static Set<String> update(Set<String> names, String name, boolean add) {
+    Set<String> updated = new HashSet<>(names);
+    if (add) {
+      updated.add(name);
+    } else {
+      updated.remove(name);
+    }
+    return Collections.unmodifiableSet(updated);
+  }
+
+  private static ObjectName objectName(String name) throws JMException {
+    return new ObjectName(DOMAIN + ":type=TracingControl,name=" + ObjectName.quote(name));
+  }
+
+  static final class Settings {
+
+    final boolean enabled;
+    final boolean traceWithActiveSpanOnly;
+    final Sampler sampler;
+    // indexed by operation ordinal, never modified after publication
+    private final boolean[] disabledOperations;
+    private final Set<String> disabledBuckets;
+
+    private Settings(boolean enabled, boolean traceWithActiveSpanOnly, Sampler sampler,
+        boolean[] disabledOperations, Set<String> disabledBuckets) {
+      this.enabled = enabled;
+      this.traceWithActiveSpanOnly = traceWithActiveSpanOnly;
+      this.sampler = sampler;
+      this.disabledOperations = disabledOperations;
+      this.disabledBuckets = disabledBuckets;
+    }
+
+    /**
+     * Whether neither the bucket nor the operation are disabled.
+     */
+    boolean isTraced(String bucketName, Operation operation) {
+      return !disabledOperations[operation.ordinal()] && isTraced(bucketName);
+    }
+
+    /**
+     * Whether the bucket is not disabled.
+     */
+    boolean isTraced(String bucketName) {
+      return bucketName == null || disabledBuckets.isEmpty()
+          || !disabledBuckets.contains(bucketName);
+    }
+  }
+}
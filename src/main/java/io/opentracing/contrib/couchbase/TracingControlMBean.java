@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+/**
+ * Management interface of {@link TracingControl}. Changes apply to calls started afterwards.
+ */
+public interface TracingControlMBean {
+
+  boolean isEnabled();
+
+  /**
+   * Turns tracing of all buckets and operations on or off. While disabled no spans are created,
+   * but blocking calls are still recorded in the latency, outcome, slow operation and hot key
+   * metrics.
+   */
+  void setEnabled(boolean enabled);
+
+  boolean isTraceWithActiveSpanOnly();
+
+  void setTraceWithActiveSpanOnly(boolean traceWithActiveSpanOnly);
+
+  String[] getDisabledOperations();
+
+  /**
+   * @param operationName name of the operation, e.g. "get"
+   */
+  void disableOperation(String operationName);
+
+  void enableOperation(String operationName);
+
+  String[] getDisabledBuckets();
+
+  void disableBucket(String bucketName);
+
+  void enableBucket(String bucketName);
+
+  /**
+   * Class name of the sampler currently in use.
+   */
+  String getSampler();
+
+  /**
+   * Replaces the sampler with a {@link ProbabilisticSampler} using the given rate for all
+   * operations.
+   */
+  void setSamplingRate(double rate);
+
+  /**
+   * Restores the sampler the instrumentation was created with.
+   */
+  void resetSampler();
+}
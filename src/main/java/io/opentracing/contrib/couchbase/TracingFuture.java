@@ -0,0 +1,221 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import rx.Observable;
+import rx.Subscriber;
+
+/**
+ * Result of a single-element operation of {@link TracingFutureBucket}. The future subscribes to
+ * the traced observable with a private subscriber, so callers can only complete it by cancelling,
+ * and it is completed from the terminal callback after the span has been finished. Cancelling the
+ * future unsubscribes from the operation, which finishes its span as well.
+ *
+ * <p>Listeners registered with {@link #addListener(Runnable, Executor)} run once the future is
+ * done, which can be used to bridge to {@code CompletableFuture} or other callback based APIs.
+ *
+ * <p>The future holds no monitor while waiting, so blocked callers do not pin the carrier of a
+ * virtual thread. A latch is only allocated when a caller actually has to wait.
+ *
+ * @param <T> the result type, {@code null} if the operation completes without a result
+ */
+public final class TracingFuture<T> implements Future<T> {
+
+  private static final Object SUCCEEDED = new Object();
+  private static final Object CANCELLED = new Object();
+  private static final CountDownLatch DONE = new CountDownLatch(0);
+  private static final Listener COMPLETED = new Listener(null, null);
+
+  private static final AtomicReferenceFieldUpdater<TracingFuture, Object> RESULT =
+      AtomicReferenceFieldUpdater.newUpdater(TracingFuture.class, Object.class, "result");
+  private static final AtomicReferenceFieldUpdater<TracingFuture, CountDownLatch> LATCH =
+      AtomicReferenceFieldUpdater.newUpdater(TracingFuture.class, CountDownLatch.class, "latch");
+  private static final AtomicReferenceFieldUpdater<TracingFuture, Listener> LISTENERS =
+      AtomicReferenceFieldUpdater.newUpdater(TracingFuture.class, Listener.class, "listeners");
+
+  private final Subscriber<T> subscriber = new Subscriber<T>() {
+    @Override
+    public void onNext(T t) {
+      if (result == null) {
+        value = t;
+      }
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      complete(new Failure(e));
+    }
+
+    @Override
+    public void onCompleted() {
+      complete(SUCCEEDED);
+    }
+  };
+  // only written by the emitting thread, published by the write of result
+  private T value;
+  // null while pending, then SUCCEEDED, CANCELLED or a Failure
+  private volatile Object result;
+  // null until a caller waits, DONE once completed
+  private volatile CountDownLatch latch;
+  // listeners in reverse order of registration, COMPLETED once done
+  private volatile Listener listeners;
+
+  private TracingFuture() {
+  }
+
+  static <T> TracingFuture<T> subscribe(Observable<T> observable) {
+    TracingFuture<T> future = new TracingFuture<>();
+    // the future handles repeated terminal events itself, no SafeSubscriber needed
+    observable.unsafeSubscribe(future.subscriber);
+    return future;
+  }
+
+  /**
+   * Runs the listener on the executor once this future is done, immediately if it is done
+   * already.
+   */
+  public void addListener(Runnable listener, Executor executor) {
+    Listener added = new Listener(listener, executor);
+    while (true) {
+      Listener current = listeners;
+      if (current == COMPLETED) {
+        executor.execute(listener);
+        return;
+      }
+      added.next = current;
+      if (LISTENERS.compareAndSet(this, current, added)) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    if (!complete(CANCELLED)) {
+      return false;
+    }
+    subscriber.unsubscribe();
+    return true;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return result == CANCELLED;
+  }
+
+  @Override
+  public boolean isDone() {
+    return result != null;
+  }
+
+  @Override
+  public T get() throws InterruptedException, ExecutionException {
+    CountDownLatch waiting = waitingLatch();
+    if (waiting != null) {
+      waiting.await();
+    }
+    return report();
+  }
+
+  @Override
+  public T get(long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    CountDownLatch waiting = waitingLatch();
+    if (waiting != null && !waiting.await(timeout, unit)) {
+      throw new TimeoutException();
+    }
+    return report();
+  }
+
+  /**
+   * Returns the latch to wait on, or {@code null} if this future is done.
+   */
+  private CountDownLatch waitingLatch() {
+    if (result != null) {
+      return null;
+    }
+    CountDownLatch current = latch;
+    if (current == null) {
+      CountDownLatch created = new CountDownLatch(1);
+      if (LATCH.compareAndSet(this, null, created)) {
+        return created;
+      }
+      current = latch;
+    }
+    return current == DONE ? null : current;
+  }
+
+  private T report() throws ExecutionException {
+    Object current = result;
+    if (current == CANCELLED) {
+      throw new CancellationException();
+    }
+    if (current instanceof Failure) {
+      throw new ExecutionException(((Failure) current).error);
+    }
+    return value;
+  }
+
+  private boolean complete(Object completion) {
+    if (!RESULT.compareAndSet(this, null, completion)) {
+      return false;
+    }
+    CountDownLatch waiting = LATCH.getAndSet(this, DONE);
+    if (waiting != null) {
+      waiting.countDown();
+    }
+    Listener pending = LISTENERS.getAndSet(this, COMPLETED);
+    // restore the order of registration
+    Listener ordered = null;
+    while (pending != null) {
+      Listener next = pending.next;
+      pending.next = ordered;
+      ordered = pending;
+      pending = next;
+    }
+    for (Listener listener = ordered; listener != null; listener = listener.next) {
+      listener.executor.execute(listener.runnable);
+    }
+    return true;
+  }
+
+  private static final class Failure {
+
+    private final Throwable error;
+
+    Failure(Throwable error) {
+      this.error = error;
+    }
+  }
+
+  private static final class Listener {
+
+    private final Runnable runnable;
+    private final Executor executor;
+    private Listener next;
+
+    Listener(Runnable runnable, Executor executor) {
+      this.runnable = runnable;
+      this.executor = executor;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import com.couchbase.client.java.AsyncBucket;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.JsonLongDocument;
+
+/**
+ * Non-blocking key-value access returning {@link TracingFuture futures} instead of observables.
+ * Each call subscribes once to the corresponding operation of a {@link TracingAsyncBucket}; the
+ * span finishes in the completion callback, no thread blocks on the result.
+ */
+public class TracingFutureBucket {
+
+  private final AsyncBucket bucket;
+
+  public TracingFutureBucket(AsyncBucket bucket, TracingHelper helper) {
+    this(new TracingAsyncBucket(bucket, helper));
+  }
+
+  /**
+   * @param bucket the traced async bucket, e.g. {@code tracingBucket.async()}
+   */
+  public TracingFutureBucket(TracingAsyncBucket bucket) {
+    this.bucket = bucket;
+  }
+
+  public String name() {
+    return bucket.name();
+  }
+
+  /**
+   * Completes with {@code null} if the document does not exist.
+   */
+  public TracingFuture<JsonDocument> get(String id) {
+    return TracingFuture.subscribe(bucket.get(id));
+  }
+
+  /**
+   * Completes with {@code null} if the document does not exist.
+   */
+  public <D extends Document<?>> TracingFuture<D> get(String id, Class<D> target) {
+    return TracingFuture.subscribe(bucket.get(id, target));
+  }
+
+  public <D extends Document<?>> TracingFuture<D> upsert(D document) {
+    return TracingFuture.subscribe(bucket.upsert(document));
+  }
+
+  public TracingFuture<JsonDocument> remove(String id) {
+    return TracingFuture.subscribe(bucket.remove(id));
+  }
+
+  public <D extends Document<?>> TracingFuture<D> remove(D document) {
+    return TracingFuture.subscribe(bucket.remove(document));
+  }
+
+  public TracingFuture<JsonLongDocument> counter(String id, long delta) {
+    return TracingFuture.subscribe(bucket.counter(id, delta));
+  }
+
+  public TracingFuture<JsonLongDocument> counter(String id, long delta, long initial) {
+    return TracingFuture.subscribe(bucket.counter(id, delta, initial));
+  }
+}
@@ -13,6 +13,19 @@
  */
 package io.opentracing.contrib.couchbase;
 
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.java.analytics.AnalyticsQuery;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.QueryExecutionException;
+import com.couchbase.client.java.query.AsyncN1qlQueryRow;
+import com.couchbase.client.java.query.N1qlQuery;
+import com.couchbase.client.java.query.N1qlQueryResult;
+import com.couchbase.client.java.query.N1qlQueryRow;
+import com.couchbase.client.java.query.Statement;
+import com.couchbase.client.java.search.SearchQuery;
+import com.couchbase.client.java.view.SpatialViewQuery;
+import com.couchbase.client.java.view.ViewQuery;
 import io.opentracing.Span;
 import io.opentracing.Tracer;
 import io.opentracing.Tracer.SpanBuilder;
@@ -22,34 +35,445 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import rx.Observable;
 
 public class TracingHelper {
 
   private final Tracer tracer;
-  private final boolean traceWithActiveSpanOnly;
+  private final TracingControl control;
+  private final TailSampler tailSampler;
+  private final RingBufferRecorder recorder;
+  private final ExceptionClassifier classifier;
+  private final String bucketName;
+  private final SpanTemplate template;
+  private final StatementCache statementCache;
+  private final LatencyMetrics latencyMetrics;
+  // metrics of this helper's bucket indexed by operation ordinal
+  private final AtomicReferenceArray<OperationMetrics> operationMetrics;
+  private final HotKeys hotKeys;
+  // reads and writes of this helper's bucket
+  private final HeavyHitters[] keySketches;
+  private final SlowOperations slowOperations;
   static final String COMPONENT_NAME = "java-couchbase";
+  static final String DB_TYPE = "couchbase";
+  private static final int STATEMENT_CACHE_SIZE = 1024;
+  private static final SpanTemplate CLUSTER_TEMPLATE = new SpanTemplate(
+      Tags.COMPONENT.getKey(), COMPONENT_NAME,
+      Tags.SPAN_KIND.getKey(), Tags.SPAN_KIND_CLIENT,
+      Tags.DB_TYPE.getKey(), DB_TYPE);
 
   public TracingHelper(Tracer tracer, boolean traceWithActiveSpanOnly) {
+    this(tracer, traceWithActiveSpanOnly, Sampler.ALWAYS_SAMPLE);
+  }
+
+  public TracingHelper(Tracer tracer, boolean traceWithActiveSpanOnly, Sampler sampler) {
+    this(tracer, traceWithActiveSpanOnly, sampler, null);
+  }
+
+  /**
+   * @param tailSampler if not {@code null} operations are recorded in memory first and only
+   * reported when the tail sampler retains them
+   */
+  public TracingHelper(Tracer tracer, boolean traceWithActiveSpanOnly, Sampler sampler,
+      TailSampler tailSampler) {
+    this(tracer, traceWithActiveSpanOnly, sampler, tailSampler, null);
+  }
+
+  /**
+   * @param tailSampler if not {@code null} operations are recorded in memory first and only
+   * reported when the tail sampler retains them
+   * @param recorder if not {@code null} spans are created on the recorder thread instead of the
+   * calling thread
+   */
+  public TracingHelper(Tracer tracer, boolean traceWithActiveSpanOnly, Sampler sampler,
+      TailSampler tailSampler, RingBufferRecorder recorder) {
+    this(tracer, traceWithActiveSpanOnly, sampler, tailSampler, recorder,
+        ExceptionClassifier.DEFAULT);
+  }
+
+  /**
+   * @param tailSampler if not {@code null} operations are recorded in memory first and only
+   * reported when the tail sampler retains them
+   * @param recorder if not {@code null} spans are created on the recorder thread instead of the
+   * calling thread
+   * @param classifier decides which exceptions mark the span as failed
+   */
+  public TracingHelper(Tracer tracer, boolean traceWithActiveSpanOnly, Sampler sampler,
+      TailSampler tailSampler, RingBufferRecorder recorder, ExceptionClassifier classifier) {
+    this(tracer, new TracingControl(traceWithActiveSpanOnly, sampler), tailSampler, recorder,
+        classifier, null, CLUSTER_TEMPLATE, new StatementCache(STATEMENT_CACHE_SIZE),
+        new LatencyMetrics(), new HotKeys(), new SlowOperations());
+  }
+
+  private TracingHelper(Tracer tracer, TracingControl control, TailSampler tailSampler,
+      RingBufferRecorder recorder, ExceptionClassifier classifier, String bucketName,
+      SpanTemplate template, StatementCache statementCache, LatencyMetrics latencyMetrics,
+      HotKeys hotKeys, SlowOperations slowOperations) {
     this.tracer = tracer;
-    this.traceWithActiveSpanOnly = traceWithActiveSpanOnly;
+    this.control = control;
+    this.tailSampler = tailSampler;
+    this.recorder = recorder;
+    this.classifier = classifier;
+    this.bucketName = bucketName;
+    this.template = template;
+    this.statementCache = statementCache;
+    this.latencyMetrics = latencyMetrics;
+    this.operationMetrics = latencyMetrics.forBucket(bucketName);
+    this.hotKeys = hotKeys;
+    this.keySketches = hotKeys.forBucket(bucketName);
+    this.slowOperations = slowOperations;
+  }
+
+  /**
+   * Returns a helper for the operations of a single bucket, sharing tracer and sampler with this
+   * one. Its spans are tagged with the bucket name as {@code db.instance}.
+   */
+  public TracingHelper forBucket(String bucketName) {
+    return new TracingHelper(tracer, control, tailSampler, recorder, classifier, bucketName,
+        template.withTag(Tags.DB_INSTANCE.getKey(), bucketName), statementCache, latencyMetrics,
+        hotKeys, slowOperations);
   }
 
+  /**
+   * Names which are not an {@link Operation} get a plain span, subject to the global switch, the
+   * disabled buckets and {@code traceWithActiveSpanOnly} but not to the sampler, which only
+   * decides for known operations.
+   *
+   * @deprecated use {@link #buildSpan(Operation)}
+   */
+  @Deprecated
   public Span buildSpan(String operationName) {
-    if (traceWithActiveSpanOnly && tracer.activeSpan() == null) {
+    Operation operation = Operation.find(operationName);
+    if (operation != null) {
+      return buildSpan(operation);
+    }
+    TracingControl.Settings settings = control.settings();
+    if (!settings.enabled || !settings.isTraced(bucketName)
+        || settings.traceWithActiveSpanOnly && tracer.activeSpan() == null) {
       return NoopSpan.INSTANCE;
+    }
+    return builder(operationName).start();
+  }
+
+  public Span buildSpan(Operation operation) {
+    return isSampled(operation) ? startSpan(operation) : NoopSpan.INSTANCE;
+  }
+
+  /**
+   * Starts the span of a call which was already sampled with {@link #isSampled(Operation)}.
+   */
+  Span startSpan(Operation operation) {
+    if (tailSampler != null || recorder != null) {
+      Span parent = tracer.activeSpan();
+      return new DeferredSpan(this, operation, parent == null ? null : parent.context());
     } else {
-      return builder(operationName).start();
+      return builder(operation.getName()).start();
+    }
+  }
+
+  /**
+   * Whether a call of the operation is traced according to the runtime settings and the sampler.
+   */
+  boolean isSampled(Operation operation) {
+    TracingControl.Settings settings = control.settings();
+    if (!settings.enabled || !settings.isTraced(bucketName, operation)) {
+      return false;
+    } else if (settings.traceWithActiveSpanOnly && tracer.activeSpan() == null) {
+      return false;
+    }
+    return settings.sampler.sample(bucketName, operation);
+  }
+
+  /**
+   * Records the latency of a blocking call in the {@link LatencyMetrics}, whether it was traced or
+   * not, and keeps the call in the {@link SlowOperations} if it exceeded the threshold of the
+   * operation. A span reported directly to the tracer becomes the exemplar of the operation. For
+   * calls with a timeout the share of the timeout used is recorded and tagged as
+   * {@code timeoutUtilization}.
+   *
+   * @param startNanos {@link System#nanoTime()} when the call started
+   * @param subject document id, document or query of the call, {@code null} if there is none
+   * @param timeUnit {@code null} if the call has no explicit timeout
+   * @param outcome returned by {@link #onError(Operation, Throwable, Span)} or
+   * {@code recordResult} for failed calls, {@link Outcome#SUCCESS} otherwise; failures are
+   * counted when they are recorded, successes only here
+   */
+  void recordLatency(Operation operation, long startNanos, Span span, Object subject,
+      long timeout, TimeUnit timeUnit, Outcome outcome) {
+    long nowNanos = System.nanoTime();
+    OperationMetrics metrics = latencyMetrics.get(operationMetrics, operation);
+    metrics.record(nowNanos - startNanos, nowNanos, outcome);
+    slowOperations.record(operation, bucketName, subject, timeout, timeUnit,
+        nowNanos - startNanos, nowNanos);
+    long timeoutNanos = timeUnit == null ? 0 : timeUnit.toNanos(timeout);
+    if (timeoutNanos > 0) {
+      long permille = (nowNanos - startNanos) * 1000 / timeoutNanos;
+      metrics.recordBudget(permille, nowNanos);
+      if (span != NoopSpan.INSTANCE) {
+        span.setTag("timeoutUtilization", permille / 1000.0);
+      }
+    }
+    // deferred spans only get a context once they are reported
+    if (span != NoopSpan.INSTANCE && !(span instanceof DeferredSpan)) {
+      metrics.recordExemplar(span.context(), nowNanos - startNanos);
+    }
+  }
+
+  /**
+   * Counts an access to the document in the {@link HotKeys} of the bucket.
+   */
+  void recordKey(Operation operation, String id) {
+    HotKeys.record(keySketches, operation, id);
+  }
+
+  void recordKey(Operation operation, Document<?> document) {
+    HotKeys.record(keySketches, operation, document);
+  }
+
+  /**
+   * Records the payload size of the document in the {@link LatencyMetrics} and tags the span with
+   * it in bytes. Only sizes known without encoding are recorded: the length of strings and the
+   * length of byte arrays and buffers, as used by raw JSON, string and binary documents. Strings
+   * are only measured in UTF-8 for traced calls, which is linear in their length, untraced calls
+   * record their number of chars. {@code JsonDocument} and other documents whose content is
+   * serialized by the client are not sized.
+   */
+  void recordSize(Operation operation, Document<?> document, Span span) {
+    long size = document == null ? -1 : contentSize(document.content(), span);
+    if (size >= 0) {
+      recordSize(operation, size, span, "size");
+    }
+  }
+
+  /**
+   * Records the document returned by a read like {@link #recordSize(Operation, Document, Span)}.
+   * Blocking reads return {@code null} instead of throwing if the document does not exist, which
+   * is counted as {@link Outcome#MISS}.
+   *
+   * @return the outcome of the call
+   */
+  Outcome recordResult(Operation operation, Document<?> document, Span span) {
+    if (document == null) {
+      return recordMiss(operation, span);
+    }
+    recordSize(operation, document, span);
+    return Outcome.SUCCESS;
+  }
+
+  /**
+   * Records the documents returned by a read from replicas, an empty list is a miss.
+   */
+  Outcome recordResult(Operation operation, List<? extends Document<?>> documents, Span span) {
+    if (documents == null || documents.isEmpty()) {
+      return recordMiss(operation, span);
+    }
+    recordSize(operation, documents, span);
+    return Outcome.SUCCESS;
+  }
+
+  private Outcome recordMiss(Operation operation, Span span) {
+    latencyMetrics.get(operationMetrics, operation)
+        .recordFailure(Outcome.MISS, null, System.nanoTime());
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(ExceptionClassifier.OUTCOME_TAG, Outcome.MISS.getTagValue());
+    }
+    return Outcome.MISS;
+  }
+
+  void recordSize(Operation operation, List<? extends Document<?>> documents, Span span) {
+    if (documents == null) {
+      return;
+    }
+    long size = -1;
+    for (int i = 0; i < documents.size(); i++) {
+      Document<?> document = documents.get(i);
+      long documentSize = document == null ? -1 : contentSize(document.content(), span);
+      if (documentSize >= 0) {
+        size = Math.max(size, 0) + documentSize;
+      }
+    }
+    if (size >= 0) {
+      recordSize(operation, size, span, "size");
+    }
+  }
+
+  /**
+   * Records the total size of the rows of the N1QL result, which are kept as raw bytes.
+   */
+  void recordSize(Operation operation, N1qlQueryResult result, Span span) {
+    if (result == null) {
+      return;
+    }
+    List<N1qlQueryRow> rows = result.allRows();
+    long bytes = 0;
+    for (int i = 0; i < rows.size(); i++) {
+      byte[] value = rows.get(i).byteValue();
+      if (value != null) {
+        bytes += value.length;
+      }
+    }
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag("rows", rows.size());
+    }
+    recordSize(operation, bytes, span, "bytes");
+  }
+
+  /**
+   * Records the rows of a blocking N1QL query like
+   * {@link #recordSize(Operation, N1qlQueryResult, Span)}. A failed query returns its errors in
+   * the result instead of throwing, it is counted and tagged like the {@link
+   * QueryExecutionException} which fails the async row stream.
+   */
+  Outcome recordResult(Operation operation, N1qlQueryResult result, Span span) {
+    recordSize(operation, result, span);
+    if (result == null || result.finalSuccess()) {
+      return Outcome.SUCCESS;
+    }
+    List<JsonObject> errors = result.errors();
+    return onError(operation, new QueryExecutionException("N1QL query failed",
+        errors.isEmpty() ? JsonObject.empty() : errors.get(0)), span);
+  }
+
+  private void recordSize(Operation operation, long size, Span span, String tag) {
+    latencyMetrics.get(operationMetrics, operation).recordSize(size);
+    if (span != NoopSpan.INSTANCE) {
+      span.setTag(tag, size);
+    }
+  }
+
+  private static long contentSize(Object content, Span span) {
+    if (content instanceof String) {
+      String value = (String) content;
+      return span == NoopSpan.INSTANCE ? value.length() : utf8Length(value);
+    } else if (content instanceof byte[]) {
+      return ((byte[]) content).length;
+    } else if (content instanceof ByteBuf) {
+      return ((ByteBuf) content).readableBytes();
     }
+    return -1;
+  }
+
+  /**
+   * Returns the number of bytes of the string encoded as UTF-8 without encoding it. Unpaired
+   * surrogates count as the single replacement byte {@link String#getBytes} writes for them.
+   */
+  static long utf8Length(String value) {
+    int length = value.length();
+    long bytes = length;
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        continue;
+      }
+      if (c < 0x800) {
+        bytes += 1;
+      } else if (!Character.isSurrogate(c)) {
+        bytes += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        // four bytes for the pair of chars
+        bytes += 2;
+        i++;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Counts the failure of a blocking call by outcome and tags the span, see
+   * {@link #tagError(Throwable, Span)}.
+   *
+   * @return the outcome of the call, to be passed on to {@code recordLatency}
+   */
+  Outcome onError(Operation operation, Throwable throwable, Span span) {
+    Outcome outcome = classifier.classify(throwable);
+    latencyMetrics.get(operationMetrics, operation)
+        .recordFailure(outcome, throwable, System.nanoTime());
+    tagError(throwable, span);
+    return outcome;
+  }
+
+  /**
+   * Samples a call of an async operation without tags and traces every subscription to it if it
+   * is sampled, see {@link TracingOnSubscribe}.
+   */
+  <T> Observable<T> trace(Operation operation, Observable<T> source) {
+    return isSampled(operation) ? traceSampled(operation, source) : untraced(source);
+  }
+
+  /**
+   * Traces every subscription to a call of an async operation which was already sampled with
+   * {@link #isSampled(Operation)}. Callers check the sampling first, so that tags are only built
+   * for calls which are recorded.
+   *
+   * @param tags alternating tag keys and values
+   */
+  <T> Observable<T> traceSampled(Operation operation, Observable<T> source, Object... tags) {
+    return Observable.create(new TracingOnSubscribe<T>(source, this, operation, tags, false));
   }
 
-  private SpanBuilder builder(String operationName) {
-    return tracer.buildSpan(operationName)
-        .withTag(Tags.COMPONENT.getKey(), COMPONENT_NAME)
-        .withTag(Tags.SPAN_KIND.getKey(), Tags.SPAN_KIND_CLIENT)
-        .withTag(Tags.DB_TYPE.getKey(), "couchbase");
+  /**
+   * Traces a sampled stream of N1QL rows as one span which stays open until the stream
+   * terminates and is tagged with the number of rows and bytes delivered.
+   */
+  Observable<AsyncN1qlQueryRow> traceSampledRows(Operation operation,
+      Observable<AsyncN1qlQueryRow> source, Object... tags) {
+    return Observable.create(
+        new TracingOnSubscribe<AsyncN1qlQueryRow>(source, this, operation, tags, true));
   }
 
+  /**
+   * Only propagates the active span to the callbacks of a call which is not sampled.
+   */
+  <T> Observable<T> untraced(Observable<T> source) {
+    return Observable.create(new TracingOnSubscribe<T>(source, this, null, null, false));
+  }
+
+  /**
+   * Starts a batch of operations, see {@link TracingBatch}.
+   *
+   * @param outlierThreshold operations taking at least this long get their own span
+   */
+  public TracingBatch batch(Operation operation, long outlierThreshold, TimeUnit timeUnit) {
+    return new TracingBatch(this, operation, timeUnit.toNanos(outlierThreshold));
+  }
+
+  SpanBuilder builder(String operationName) {
+    return template.apply(tracer.buildSpan(operationName));
+  }
+
+  /**
+   * Tags the outcome of a failed operation. Only exceptions classified as errors mark the span as
+   * failed and are logged, expected ones like a missing document just get the outcome tag.
+   */
+  public void tagError(Throwable throwable, Span span) {
+    tagError(throwable, span, classifier);
+  }
+
+  /**
+   * Tags the span like {@link #tagError(Throwable, Span)} with the default classifier.
+   *
+   * @deprecated use {@link #tagError(Throwable, Span)} of the helper, which applies its
+   * configured {@link ExceptionClassifier}
+   */
+  @Deprecated
   public static void onError(Throwable throwable, Span span) {
+    tagError(throwable, span, ExceptionClassifier.DEFAULT);
+  }
+
+  private static void tagError(Throwable throwable, Span span, ExceptionClassifier classifier) {
+    if (span == NoopSpan.INSTANCE) {
+      return;
+    }
+
+    Outcome outcome = classifier.classify(throwable);
+    span.setTag(ExceptionClassifier.OUTCOME_TAG, outcome.getTagValue());
+    if (!outcome.isError()) {
+      return;
+    }
+
     Tags.ERROR.set(span, Boolean.TRUE);
 
     if (throwable != null) {
@@ -64,6 +488,33 @@ public class TracingHelper {
     return errorLogs;
   }
 
+  /**
+   * Returns the normalized statement of the query, cached across calls.
+   */
+  public String statement(N1qlQuery query) {
+    return query == null ? "null" : statement(query.statement());
+  }
+
+  public String statement(Statement statement) {
+    return statement == null ? "null" : statementCache.fingerprint(statement.toString());
+  }
+
+  public String statement(AnalyticsQuery query) {
+    return query == null ? "null" : statementCache.fingerprint(query.statement());
+  }
+
+  public String statement(ViewQuery query) {
+    return query == null ? "null" : query.getDesign() + "/" + query.getView();
+  }
+
+  public String statement(SpatialViewQuery query) {
+    return query == null ? "null" : query.getDesign() + "/" + query.getView();
+  }
+
+  public String statement(SearchQuery query) {
+    return query == null ? "null" : query.indexName();
+  }
+
   public static String nullable(Object object) {
     return object == null ? "null" : object.toString();
   }
@@ -109,4 +560,55 @@ public class TracingHelper {
   public Tracer getTracer() {
     return tracer;
   }
+
+  public Sampler getSampler() {
+    return control.settings().sampler;
+  }
+
+  /**
+   * Runtime switches shared with the helpers of the buckets, see {@link TracingControlMBean}.
+   */
+  public TracingControl getControl() {
+    return control;
+  }
+
+  public TailSampler getTailSampler() {
+    return tailSampler;
+  }
+
+  public RingBufferRecorder getRecorder() {
+    return recorder;
+  }
+
+  public ExceptionClassifier getClassifier() {
+    return classifier;
+  }
+
+  /**
+   * Latencies of all calls, shared with the helpers of the buckets, see
+   * {@link LatencyMetricsMBean}.
+   */
+  public LatencyMetrics getLatencyMetrics() {
+    return latencyMetrics;
+  }
+
+  /**
+   * Hot documents of all buckets, shared with the helpers of the buckets, see
+   * {@link HotKeysMBean}.
+   */
+  public HotKeys getHotKeys() {
+    return hotKeys;
+  }
+
+  /**
+   * Slowest calls of all buckets, shared with the helpers of the buckets, see
+   * {@link SlowOperationsMBean}.
+   */
+  public SlowOperations getSlowOperations() {
+    return slowOperations;
+  }
+
+  public String getBucketName() {
+    return bucketName;
+  }
 }
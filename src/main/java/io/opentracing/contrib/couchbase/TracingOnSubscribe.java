@@ -0,0 +1,229 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static io.opentracing.contrib.couchbase.TracingHelper.nullable;
+
+import com.couchbase.client.java.query.AsyncN1qlQueryRow;
+import io.opentracing.Scope;
+import io.opentracing.ScopeManager;
+import io.opentracing.Span;
+import io.opentracing.noop.NoopSpan;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import rx.Observable;
+import rx.Subscriber;
+import rx.Subscription;
+
+/**
+ * Traces each subscription to an async operation. The span is started on subscribe and finished
+ * on the terminal event or when the subscriber unsubscribes, whichever comes first.
+ *
+ * <p>The span which is active on subscribe is activated again while the results are delivered,
+ * so downstream operators and subscribers see the caller's context on the Couchbase threads. This
+ * replaces global {@code RxJavaHooks} for observables of traced buckets and clusters; the rest of
+ * the process is not affected.
+ *
+ * <p>Calls are sampled when they are made, like blocking calls, so that tags are only built for
+ * sampled calls; every subscription to a sampled call gets its own span. Subscriptions which are
+ * neither sampled nor have an active span subscribe the subscriber to the source directly.
+ *
+ * <p>For streamed N1QL rows the span is additionally tagged with the number of rows and bytes
+ * delivered before it finished.
+ */
+final class TracingOnSubscribe<T> implements Observable.OnSubscribe<T> {
+
+  private final Observable<T> source;
+  private final TracingHelper helper;
+  // null if the call is not sampled
+  private final Operation operation;
+  // alternating keys and values
+  private final Object[] tags;
+  private final boolean rows;
+
+  TracingOnSubscribe(Observable<T> source, TracingHelper helper, Operation operation,
+      Object[] tags, boolean rows) {
+    this.source = source;
+    this.helper = helper;
+    this.operation = operation;
+    this.tags = tags;
+    this.rows = rows;
+  }
+
+  @Override
+  public void call(Subscriber<? super T> subscriber) {
+    Span span = operation == null ? NoopSpan.INSTANCE : helper.startSpan(operation);
+    Span parent = helper.getTracer().activeSpan();
+    if (span == NoopSpan.INSTANCE) {
+      if (parent == null) {
+        source.unsafeSubscribe(subscriber);
+      } else {
+        source.unsafeSubscribe(new TracingSubscriber<T>(subscriber, null, parent, helper));
+      }
+      return;
+    }
+
+    for (int i = 0; i < tags.length; i += 2) {
+      setTag(span, (String) tags[i], tags[i + 1]);
+    }
+    SpanFinisher finisher = new SpanFinisher(span, rows);
+    subscriber.add(finisher);
+    source.unsafeSubscribe(new TracingSubscriber<T>(subscriber, finisher, parent, helper));
+  }
+
+  private static void setTag(Span span, String key, Object value) {
+    if (value instanceof Number) {
+      span.setTag(key, (Number) value);
+    } else if (value instanceof Boolean) {
+      span.setTag(key, (Boolean) value);
+    } else if (value instanceof Collection) {
+      span.setTag(key, TracingHelper.toString((Collection<?>) value));
+    } else {
+      span.setTag(key, nullable(value));
+    }
+  }
+
+  /**
+   * Finishes the span exactly once, on the terminal event or on unsubscribe. Row counts are only
+   * written by the emitting thread; after an unsubscribe from another thread they may lag.
+   */
+  private static final class SpanFinisher implements Subscription {
+
+    private static final AtomicIntegerFieldUpdater<SpanFinisher> FINISHED =
+        AtomicIntegerFieldUpdater.newUpdater(SpanFinisher.class, "finished");
+
+    private final Span span;
+    private final boolean rows;
+    private long rowCount;
+    private long byteCount;
+    private volatile int finished;
+
+    SpanFinisher(Span span, boolean rows) {
+      this.span = span;
+      this.rows = rows;
+    }
+
+    void onNext(Object value) {
+      if (rows) {
+        rowCount++;
+        byte[] bytes = ((AsyncN1qlQueryRow) value).byteValue();
+        if (bytes != null) {
+          byteCount += bytes.length;
+        }
+      }
+    }
+
+    void finish() {
+      if (FINISHED.compareAndSet(this, 0, 1)) {
+        if (rows) {
+          span.setTag("rows", rowCount);
+          span.setTag("bytes", byteCount);
+        }
+        span.finish();
+      }
+    }
+
+    @Override
+    public void unsubscribe() {
+      finish();
+    }
+
+    @Override
+    public boolean isUnsubscribed() {
+      return finished != 0;
+    }
+  }
+
+  /**
+   * Shares the subscriptions and the producer of the downstream subscriber, so backpressure and
+   * unsubscription pass through unchanged.
+   */
+  private static final class TracingSubscriber<T> extends Subscriber<T> {
+
+    private final Subscriber<? super T> actual;
+    // null if the operation is not recorded
+    private final SpanFinisher finisher;
+    // null if there was no active span on subscribe
+    private final Span parent;
+    private final TracingHelper helper;
+
+    TracingSubscriber(Subscriber<? super T> actual, SpanFinisher finisher, Span parent,
+        TracingHelper helper) {
+      super(actual);
+      this.actual = actual;
+      this.finisher = finisher;
+      this.parent = parent;
+      this.helper = helper;
+    }
+
+    @Override
+    public void onNext(T t) {
+      if (finisher != null) {
+        finisher.onNext(t);
+      }
+      Scope scope = activateParent();
+      try {
+        actual.onNext(t);
+      } finally {
+        close(scope);
+      }
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      if (finisher != null) {
+        if (!finisher.isUnsubscribed()) {
+          helper.tagError(e, finisher.span);
+        }
+        finisher.finish();
+      }
+      Scope scope = activateParent();
+      try {
+        actual.onError(e);
+      } finally {
+        close(scope);
+      }
+    }
+
+    @Override
+    public void onCompleted() {
+      if (finisher != null) {
+        finisher.finish();
+      }
+      Scope scope = activateParent();
+      try {
+        actual.onCompleted();
+      } finally {
+        close(scope);
+      }
+    }
+
+    private Scope activateParent() {
+      if (parent == null) {
+        return null;
+      }
+      ScopeManager scopeManager = helper.getTracer().scopeManager();
+      Scope active = scopeManager.active();
+      // already active when the source emits synchronously on the subscribing thread
+      return active != null && active.span() == parent
+          ? null : scopeManager.activate(parent, false);
+    }
+
+    private static void close(Scope scope) {
+      if (scope != null) {
+        scope.close();
+      }
+    }
+  }
+}
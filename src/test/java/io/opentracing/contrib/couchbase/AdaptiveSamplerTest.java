@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class AdaptiveSamplerTest {
+
+  @Test
+  public void burstIsCappedByBudget() {
+    AdaptiveSampler sampler = new AdaptiveSampler(10);
+    long start = System.nanoTime();
+    int sampled = countSampled(sampler, "bucket", Operation.GET, 100000);
+    long elapsedSeconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+
+    assertTrue(sampled > 0);
+    assertTrue("sampled " + sampled, sampled <= 11 + 10 * elapsedSeconds);
+  }
+
+  @Test
+  public void probabilityFollowsTraffic() throws InterruptedException {
+    AdaptiveSampler sampler = new AdaptiveSampler(100, new HashMap<String, Double>(), 10,
+        TimeUnit.MILLISECONDS);
+    assertEquals(1.0, sampler.getEffectiveRate("bucket", Operation.GET), 0.0);
+
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+    while (System.nanoTime() < deadline) {
+      countSampled(sampler, "bucket", Operation.GET, 1000);
+    }
+    assertTrue(sampler.getEffectiveRate("bucket", Operation.GET) < 0.5);
+
+    // after an interval without traffic the next adjustment goes back to sampling everything
+    TimeUnit.MILLISECONDS.sleep(300);
+    sampler.sample("bucket", Operation.GET);
+    TimeUnit.MILLISECONDS.sleep(300);
+    sampler.sample("bucket", Operation.GET);
+    assertEquals(1.0, sampler.getEffectiveRate("bucket", Operation.GET), 0.0);
+  }
+
+  @Test
+  public void budgetPerBucketAndOperation() {
+    Map<String, Double> budgets = new HashMap<>();
+    budgets.put("query", 0.0);
+    AdaptiveSampler sampler = new AdaptiveSampler(1, budgets);
+
+    assertTrue(sampler.sample("first", Operation.GET));
+    assertFalse(sampler.sample("first", Operation.GET));
+    assertTrue(sampler.sample("second", Operation.GET));
+    assertTrue(sampler.sample(null, Operation.GET));
+    assertFalse(sampler.sample("first", Operation.QUERY));
+
+    assertEquals(2, sampler.getEffectiveRates().get("first").size());
+    assertTrue(sampler.getEffectiveRates().containsKey(""));
+  }
+
+  private static int countSampled(AdaptiveSampler sampler, String bucketName,
+      Operation operation, int calls) {
+    int sampled = 0;
+    for (int i = 0; i < calls; i++) {
+      if (sampler.sample(bucketName, operation)) {
+        sampled++;
+      }
+    }
+    return sampled;
+  }
+}
@@ -17,6 +17,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import com.couchbase.client.java.Bucket;
 import com.couchbase.client.java.Cluster;
 import io.opentracing.Scope;
 import io.opentracing.mock.MockSpan;
@@ -75,4 +76,25 @@ public class CouchbaseMockTest {
 
     assertNull(mockTracer.activeSpan());
   }
+
+  @Test
+  public void bucketName() {
+    Cluster delegate = Mockito.mock(Cluster.class);
+    Mockito.when(delegate.openBucket("bucket")).thenReturn(Mockito.mock(Bucket.class));
+    Cluster cluster = new TracingCluster(delegate, mockTracer, false);
+
+    Bucket bucket = cluster.openBucket("bucket");
+    bucket.get("id");
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(2, spans.size());
+    assertNull(spans.get(0).tags().get(Tags.DB_INSTANCE.getKey()));
+
+    MockSpan span = spans.get(1);
+    assertEquals("get", span.operationName());
+    assertEquals("bucket", span.tags().get(Tags.DB_INSTANCE.getKey()));
+    assertEquals("couchbase", span.tags().get(Tags.DB_TYPE.getKey()));
+    assertEquals(TracingHelper.COMPONENT_NAME, span.tags().get(Tags.COMPONENT.getKey()));
+    assertEquals("id", span.tags().get("id"));
+  }
 }
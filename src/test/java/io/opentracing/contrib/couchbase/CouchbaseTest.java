@@ -185,10 +185,10 @@ public class CouchbaseTest {
         })
         .subscribe(tracingActionSubscriber);
 
-    await().atMost(15, TimeUnit.SECONDS).until(reportedSpansSize(), equalTo(2));
+    await().atMost(15, TimeUnit.SECONDS).until(reportedSpansSize(), equalTo(3));
 
     List<MockSpan> spans = mockTracer.finishedSpans();
-    assertEquals(2, spans.size());
+    assertEquals(3, spans.size());
 
     assertNull(mockTracer.activeSpan());
 
@@ -236,10 +236,10 @@ public class CouchbaseTest {
         })
         .subscribe(tracingObserverSubscriber);
 
-    await().atMost(15, TimeUnit.SECONDS).until(reportedSpansSize(), equalTo(2));
+    await().atMost(15, TimeUnit.SECONDS).until(reportedSpansSize(), equalTo(3));
 
     List<MockSpan> spans = mockTracer.finishedSpans();
-    assertEquals(2, spans.size());
+    assertEquals(3, spans.size());
 
     assertNull(mockTracer.activeSpan());
   }
@@ -285,10 +285,10 @@ public class CouchbaseTest {
         })
         .subscribe(tracingSubscriber);
 
-    await().atMost(15, TimeUnit.SECONDS).until(reportedSpansSize(), equalTo(2));
+    await().atMost(15, TimeUnit.SECONDS).until(reportedSpansSize(), equalTo(3));
 
     List<MockSpan> spans = mockTracer.finishedSpans();
-    assertEquals(2, spans.size());
+    assertEquals(3, spans.size());
 
     assertNull(mockTracer.activeSpan());
   }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.error.CASMismatchException;
+import com.couchbase.client.java.error.DocumentDoesNotExistException;
+import com.couchbase.client.java.error.TemporaryFailureException;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.util.Collections;
+import java.util.concurrent.TimeoutException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExceptionClassifierTest {
+
+  private final MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager(),
+      MockTracer.Propagator.TEXT_MAP);
+  private final Bucket delegate = mock(Bucket.class);
+  private Bucket bucket;
+
+  @Before
+  public void before() {
+    mockTracer.reset();
+    bucket = new TracingBucket(delegate, new TracingHelper(mockTracer, false));
+  }
+
+  @Test
+  public void defaults() {
+    ExceptionClassifier classifier = ExceptionClassifier.DEFAULT;
+
+    assertEquals(Outcome.MISS, classifier.classify(new DocumentDoesNotExistException()));
+    assertEquals(Outcome.CONFLICT, classifier.classify(new CASMismatchException()));
+    assertEquals(Outcome.TIMEOUT,
+        classifier.classify(new RuntimeException(new TimeoutException())));
+    assertEquals(Outcome.TEMPORARY_FAILURE,
+        classifier.classify(new TemporaryFailureException()));
+    assertEquals(Outcome.ERROR, classifier.classify(new IllegalStateException()));
+    assertEquals(Outcome.ERROR, classifier.classify(null));
+  }
+
+  @Test
+  public void configuredOutcomeOverridesDefault() {
+    ExceptionClassifier classifier = new ExceptionClassifier(
+        Collections.<Class<? extends Throwable>, Outcome>singletonMap(
+            DocumentDoesNotExistException.class, Outcome.ERROR));
+
+    assertEquals(Outcome.ERROR, classifier.classify(new DocumentDoesNotExistException()));
+    assertEquals(Outcome.CONFLICT, classifier.classify(new CASMismatchException()));
+  }
+
+  @Test
+  public void exceptionMappedToSuccess() {
+    ExceptionClassifier classifier = new ExceptionClassifier(
+        Collections.<Class<? extends Throwable>, Outcome>singletonMap(
+            DocumentDoesNotExistException.class, Outcome.SUCCESS));
+
+    // classified twice to check the cached classification as well
+    assertEquals(Outcome.SUCCESS, classifier.classify(new DocumentDoesNotExistException()));
+    assertEquals(Outcome.SUCCESS, classifier.classify(new DocumentDoesNotExistException()));
+    assertEquals(Outcome.ERROR, classifier.classify(new IllegalStateException()));
+    assertEquals(Outcome.ERROR, classifier.classify(new IllegalStateException()));
+  }
+
+  @Test
+  public void expectedOutcomeIsNotAnError() {
+    when(delegate.remove("id")).thenThrow(new DocumentDoesNotExistException());
+
+    try {
+      bucket.remove("id");
+      fail();
+    } catch (DocumentDoesNotExistException expected) {
+    }
+
+    MockSpan span = mockTracer.finishedSpans().get(0);
+    assertEquals("miss", span.tags().get(ExceptionClassifier.OUTCOME_TAG));
+    assertNull(span.tags().get(Tags.ERROR.getKey()));
+    assertEquals(0, span.logEntries().size());
+  }
+
+  @Test
+  public void realErrorIsLogged() {
+    when(delegate.remove("id")).thenThrow(new IllegalStateException("failed"));
+
+    try {
+      bucket.remove("id");
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+
+    MockSpan span = mockTracer.finishedSpans().get(0);
+    assertEquals("error", span.tags().get(ExceptionClassifier.OUTCOME_TAG));
+    assertEquals(Boolean.TRUE, span.tags().get(Tags.ERROR.getKey()));
+    assertEquals(1, span.logEntries().size());
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void deprecatedStaticOnErrorUsesDefaults() {
+    MockSpan miss = mockTracer.buildSpan("miss").start();
+    TracingHelper.onError(new DocumentDoesNotExistException(), miss);
+    MockSpan error = mockTracer.buildSpan("error").start();
+    TracingHelper.onError(new IllegalStateException(), error);
+
+    assertEquals("miss", miss.tags().get(ExceptionClassifier.OUTCOME_TAG));
+    assertNull(miss.tags().get(Tags.ERROR.getKey()));
+    assertEquals(Boolean.TRUE, error.tags().get(Tags.ERROR.getKey()));
+    assertEquals(1, error.logEntries().size());
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.document.JsonDocument;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class HotKeysTest {
+
+  private static final long INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+  @Test
+  public void readsAndWritesOfBucket() {
+    TracingHelper helper = new TracingHelper(new MockTracer(new ThreadLocalScopeManager(),
+        MockTracer.Propagator.TEXT_MAP), false);
+    Cluster cluster = Mockito.mock(Cluster.class);
+    Mockito.when(cluster.openBucket("bucket")).thenReturn(Mockito.mock(Bucket.class));
+    Bucket bucket = new TracingCluster(cluster, helper).openBucket("bucket");
+
+    for (int i = 0; i < 1000; i++) {
+      bucket.get("key" + i);
+      bucket.get("hot");
+      bucket.mapGet("map", "field", String.class);
+    }
+    bucket.upsert(JsonDocument.create("written"));
+
+    TabularData hotKeys = helper.getHotKeys().getHotKeys();
+    CompositeData hot = hotKeys.get(new Object[]{"bucket", "read", "hot"});
+    assertNotNull(hotKeys.toString(), hot);
+    assertTrue((Long) hot.get("count") >= 1000);
+    assertTrue((Double) hot.get("rate") > 0);
+    assertNotNull(hotKeys.get(new Object[]{"bucket", "read", "map"}));
+    assertNotNull(hotKeys.get(new Object[]{"bucket", "write", "written"}));
+    assertNull(hotKeys.get(new Object[]{"bucket", "write", "hot"}));
+  }
+
+  @Test
+  public void skewedStream() {
+    HeavyHitters sketch = new HeavyHitters(0, INTERVAL, 4);
+    for (int i = 0; i < 10000; i++) {
+      sketch.add("key" + i, 0);
+      if (i % 10 == 0) {
+        sketch.add("first", 0);
+      }
+      if (i % 20 == 0) {
+        sketch.add("second", 0);
+      }
+    }
+
+    List<HeavyHitters.HotKey> hotKeys = sketch.getHotKeys(INTERVAL / 2);
+    assertEquals("first", hotKeys.get(0).key);
+    assertTrue(hotKeys.get(0).count >= 1000);
+    assertEquals("second", hotKeys.get(1).key);
+    assertTrue(hotKeys.get(1).count >= 500);
+    // 1000 accesses in the first 5 seconds of the interval
+    assertTrue(hotKeys.get(0).rate >= 200);
+  }
+
+  @Test
+  public void intervals() {
+    HeavyHitters sketch = new HeavyHitters(0, INTERVAL, 4);
+    for (int i = 0; i < 100; i++) {
+      sketch.add("old", 0);
+    }
+    sketch.add("new", INTERVAL);
+
+    // the last interval is still reported
+    List<HeavyHitters.HotKey> hotKeys = sketch.getHotKeys(INTERVAL);
+    assertEquals(2, hotKeys.size());
+    assertEquals("old", hotKeys.get(0).key);
+    assertEquals(100, hotKeys.get(0).count);
+
+    // until the interval after the current one starts
+    sketch.add("newer", 2 * INTERVAL);
+    hotKeys = sketch.getHotKeys(2 * INTERVAL);
+    assertEquals(2, hotKeys.size());
+    assertEquals(1, hotKeys.get(0).count);
+  }
+
+  @Test
+  public void lateCallDoesNotCountInNewerInterval() {
+    HeavyHitters sketch = new HeavyHitters(0, INTERVAL, 4);
+    for (int i = 0; i < 10; i++) {
+      sketch.add("key", 2 * INTERVAL);
+    }
+    // a call which started in the first interval, whose half the current one reuses
+    sketch.add("key", 0);
+
+    List<HeavyHitters.HotKey> hotKeys = sketch.getHotKeys(2 * INTERVAL);
+    assertEquals(1, hotKeys.size());
+    assertEquals(10, hotKeys.get(0).count);
+  }
+
+  @Test
+  public void intervalStartDoesNotLoseIncrements() throws Exception {
+    final HeavyHitters sketch = new HeavyHitters(0, INTERVAL, 4);
+    sketch.add("key", 0);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 10000; i++) {
+            sketch.add("key", 2 * INTERVAL);
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    List<HeavyHitters.HotKey> hotKeys = sketch.getHotKeys(2 * INTERVAL);
+    assertEquals(40000, hotKeys.get(0).count);
+  }
+
+  @Test
+  public void rowsDoNotShareStringHashCode() {
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    HeavyHitters sketch = new HeavyHitters(0, INTERVAL, 4);
+    for (int i = 0; i < 100; i++) {
+      sketch.add("Aa", 0);
+    }
+    sketch.add("BB", 0);
+
+    List<HeavyHitters.HotKey> hotKeys = sketch.getHotKeys(INTERVAL / 2);
+    assertEquals(2, hotKeys.size());
+    assertEquals("Aa", hotKeys.get(0).key);
+    assertEquals(100, hotKeys.get(0).count);
+    assertEquals("BB", hotKeys.get(1).key);
+    assertEquals(1, hotKeys.get(1).count);
+  }
+
+  @Test
+  public void reportsAtMostSize() {
+    HeavyHitters sketch = new HeavyHitters(0, INTERVAL, 4);
+    for (int i = 0; i < 100; i++) {
+      sketch.add("key" + i, 0);
+    }
+    assertEquals(4, sketch.getHotKeys(INTERVAL / 2).size());
+  }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.RawJsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.CASMismatchException;
+import com.couchbase.client.java.error.QueryExecutionException;
+import com.couchbase.client.java.error.TemporaryFailureException;
+import com.couchbase.client.java.query.N1qlQueryResult;
+import com.couchbase.client.java.query.N1qlQueryRow;
+import com.couchbase.client.java.query.Statement;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class LatencyMetricsTest {
+
+  private final MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager(),
+      MockTracer.Propagator.TEXT_MAP);
+  private TracingHelper helper;
+  private Bucket delegate;
+  private Bucket bucket;
+
+  @Before
+  public void before() {
+    mockTracer.reset();
+    helper = new TracingHelper(mockTracer, false);
+    Cluster cluster = Mockito.mock(Cluster.class);
+    delegate = Mockito.mock(Bucket.class);
+    Mockito.when(cluster.openBucket("bucket")).thenReturn(delegate);
+    bucket = new TracingCluster(cluster, helper).openBucket("bucket");
+  }
+
+  @Test
+  public void recordsUnsampledCalls() {
+    helper.getControl().setSamplingRate(0.0);
+    mockTracer.reset();
+    for (int i = 0; i < 10; i++) {
+      bucket.get("id");
+    }
+    assertEquals(0, mockTracer.finishedSpans().size());
+
+    TabularData latencies = helper.getLatencyMetrics().getLatencies();
+    CompositeData get = latencies.get(new Object[]{"bucket", "get"});
+    assertEquals(10L, get.get("count"));
+    assertTrue((Long) get.get("p50") <= (Long) get.get("max"));
+
+    CompositeData openBucket = latencies.get(new Object[]{"", "openBucket"});
+    assertEquals(1L, openBucket.get("count"));
+    assertEquals(2, latencies.size());
+  }
+
+  @Test
+  public void concurrentCallsWithEqualLatency() throws Exception {
+    final OperationMetrics metrics = new OperationMetrics(
+        new LatencyWindow(0, TimeUnit.SECONDS.toNanos(10), 6),
+        new OutcomeCounters(0, TimeUnit.SECONDS.toNanos(10)));
+    Thread[] threads = new Thread[16];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 10000; i++) {
+            metrics.record(TimeUnit.MICROSECONDS.toNanos(300), 0, Outcome.SUCCESS);
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    // all calls fall into one bucket, counted across the stripes
+    assertEquals(160000, metrics.getWindow().snapshot(0).getCount());
+    long[] durations = metrics.getDurations();
+    assertEquals(160000, durations[OperationMetrics.durationBucket(300)]);
+    assertEquals(160000 * 300, metrics.getSumMicros());
+  }
+
+  @Test
+  public void outcomes() {
+    Mockito.when(delegate.get("id")).thenReturn(JsonDocument.create("id"));
+    Mockito.when(delegate.remove("locked")).thenThrow(new TemporaryFailureException());
+    Mockito.when(delegate.remove("changed")).thenThrow(new CASMismatchException());
+    Mockito.when(delegate.remove("slow"))
+        .thenThrow(new RuntimeException(new TimeoutException()));
+    helper.getControl().setSamplingRate(0.0);
+
+    bucket.get("id");
+    bucket.get("missing");
+    for (String id : new String[]{"locked", "changed", "slow", "locked"}) {
+      try {
+        bucket.remove(id);
+        fail();
+      } catch (RuntimeException expected) {
+      }
+    }
+
+    TabularData outcomes = helper.getLatencyMetrics().getOutcomes();
+    assertEquals(1L, outcomes.get(new Object[]{"bucket", "get", "success"}).get("count"));
+    assertEquals(1L, outcomes.get(new Object[]{"bucket", "get", "miss"}).get("count"));
+    assertEquals(0L, outcomes.get(new Object[]{"bucket", "remove", "success"}).get("count"));
+    CompositeData temporaryFailures =
+        outcomes.get(new Object[]{"bucket", "remove", "temporary_failure"});
+    assertEquals(2L, temporaryFailures.get("count"));
+    assertTrue((Double) temporaryFailures.get("rate") > 0);
+    assertEquals(1L, outcomes.get(new Object[]{"bucket", "remove", "conflict"}).get("count"));
+    assertEquals(1L, outcomes.get(new Object[]{"bucket", "remove", "timeout"}).get("count"));
+
+    TabularData exceptions = helper.getLatencyMetrics().getExceptions();
+    assertEquals(3, exceptions.size());
+    assertEquals(2L, exceptions.get(new Object[]{"bucket", "remove",
+        TemporaryFailureException.class.getName()}).get("count"));
+    // the exception wrapped by blocking calls is counted
+    assertEquals(1L, exceptions.get(new Object[]{"bucket", "remove",
+        TimeoutException.class.getName()}).get("count"));
+  }
+
+  @Test
+  public void failedQueryResult() {
+    N1qlQueryResult failed = Mockito.mock(N1qlQueryResult.class);
+    Mockito.when(failed.finalSuccess()).thenReturn(false);
+    Mockito.when(failed.allRows()).thenReturn(Collections.<N1qlQueryRow>emptyList());
+    Mockito.when(failed.errors()).thenReturn(Collections.singletonList(
+        JsonObject.create().put("code", 3000).put("msg", "syntax error")));
+    Statement statement = Mockito.mock(Statement.class);
+    Mockito.when(delegate.query(statement)).thenReturn(failed);
+    mockTracer.reset();
+
+    assertEquals(failed, bucket.query(statement));
+
+    MockSpan span = mockTracer.finishedSpans().get(0);
+    assertEquals(Boolean.TRUE, span.tags().get(Tags.ERROR.getKey()));
+    assertEquals("error", span.tags().get(ExceptionClassifier.OUTCOME_TAG));
+    TabularData outcomes = helper.getLatencyMetrics().getOutcomes();
+    assertEquals(0L, outcomes.get(new Object[]{"bucket", "query", "success"}).get("count"));
+    assertEquals(1L, outcomes.get(new Object[]{"bucket", "query", "error"}).get("count"));
+    assertEquals(1L, helper.getLatencyMetrics().getExceptions().get(new Object[]{"bucket",
+        "query", QueryExecutionException.class.getName()}).get("count"));
+  }
+
+  @Test
+  public void successCountNeverDecreases() throws Exception {
+    final OperationMetrics metrics = new OperationMetrics(
+        new LatencyWindow(0, TimeUnit.SECONDS.toNanos(10), 6),
+        new OutcomeCounters(0, TimeUnit.SECONDS.toNanos(10)));
+    final AtomicBoolean running = new AtomicBoolean(true);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          // like a blocking wrapper: the failure is recorded before the latency of the call
+          for (int i = 0; running.get(); i++) {
+            Outcome outcome = Outcome.SUCCESS;
+            if (i % 3 == 0) {
+              outcome = Outcome.MISS;
+              metrics.recordFailure(outcome, null, 0);
+            }
+            metrics.record(1000, 0, outcome);
+          }
+        }
+      });
+      threads[t].start();
+    }
+
+    long previous = 0;
+    try {
+      for (int i = 0; i < 100000; i++) {
+        long current = metrics.getOutcomes().getCount(Outcome.SUCCESS);
+        assertTrue(current + " < " + previous, current >= previous);
+        previous = current;
+      }
+    } finally {
+      running.set(false);
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    }
+  }
+
+  @Test
+  public void outcomeRates() {
+    long interval = TimeUnit.SECONDS.toNanos(10);
+    OutcomeCounters outcomes = new OutcomeCounters(0, interval);
+    for (int i = 0; i < 99; i++) {
+      outcomes.recordSuccess(0);
+    }
+    outcomes.recordFailure(Outcome.MISS, null, 0);
+    assertEquals(99, outcomes.getCount(Outcome.SUCCESS));
+    assertEquals(1, outcomes.getCount(Outcome.MISS));
+    assertEquals(9.9, outcomes.getRate(Outcome.SUCCESS, interval), 0.001);
+
+    // calls of the last interval count until the next one starts
+    outcomes.recordSuccess(interval + interval / 2);
+    assertEquals(100 / 15.0, outcomes.getRate(Outcome.SUCCESS, interval + interval / 2), 0.001);
+    outcomes.recordSuccess(2 * interval);
+    assertEquals(1 / 10.0 + 1 / 10.0, outcomes.getRate(Outcome.SUCCESS, 2 * interval), 0.001);
+    assertEquals(0, outcomes.getRate(Outcome.MISS, 2 * interval), 0.001);
+    assertEquals(101, outcomes.getCount(Outcome.SUCCESS));
+  }
+
+  @Test
+  public void timeoutBudgets() {
+    Mockito.when(delegate.get("slow", 4, TimeUnit.MILLISECONDS))
+        .thenAnswer(new Answer<JsonDocument>() {
+          @Override
+          public JsonDocument answer(InvocationOnMock invocation) throws Throwable {
+            Thread.sleep(2);
+            return JsonDocument.create("slow");
+          }
+        });
+    mockTracer.reset();
+
+    bucket.get("slow", 4, TimeUnit.MILLISECONDS);
+    bucket.remove("fast", 1, TimeUnit.MINUTES);
+    bucket.get("id");
+
+    double utilization = (Double) mockTracer.finishedSpans().get(0).tags()
+        .get("timeoutUtilization");
+    assertTrue(utilization >= 0.5);
+    assertNull(mockTracer.finishedSpans().get(2).tags().get("timeoutUtilization"));
+
+    LatencyMetrics metrics = helper.getLatencyMetrics();
+    TabularData budgets = metrics.getTimeoutBudgets();
+    assertEquals(2, budgets.size());
+    CompositeData get = budgets.get(new Object[]{"bucket", "get"});
+    assertEquals(1L, get.get("count"));
+    assertTrue((Double) get.get("p99") >= 0.5);
+    CompositeData remove = budgets.get(new Object[]{"bucket", "remove"});
+    assertTrue((Double) remove.get("p99") < 0.1);
+    assertEquals(false, remove.get("atRisk"));
+
+    metrics.setTimeoutBudgetThreshold(0.4);
+    assertArrayEquals(new String[]{"bucket/get"}, metrics.getOperationsAtRisk());
+    assertEquals(true, metrics.getTimeoutBudgets().get(new Object[]{"bucket", "get"})
+        .get("atRisk"));
+  }
+
+  @Test
+  public void documentSizes() {
+    Mockito.when(delegate.get("id", RawJsonDocument.class))
+        .thenReturn(RawJsonDocument.create("id", "{\"a\":1}"));
+    mockTracer.reset();
+
+    bucket.upsert(RawJsonDocument.create("id", "{\"a\":12}"));
+    bucket.get("id", RawJsonDocument.class);
+    // the size of decoded JSON is not known without encoding it again
+    bucket.upsert(JsonDocument.create("json"));
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(8L, spans.get(0).tags().get("size"));
+    assertEquals(7L, spans.get(1).tags().get("size"));
+    assertNull(spans.get(2).tags().get("size"));
+
+    TabularData sizes = helper.getLatencyMetrics().getDocumentSizes();
+    assertEquals(2, sizes.size());
+    CompositeData upsert = sizes.get(new Object[]{"bucket", "upsert"});
+    assertEquals(1L, upsert.get("count"));
+    assertEquals(8L, upsert.get("max"));
+    assertEquals(7L, sizes.get(new Object[]{"bucket", "get"}).get("max"));
+  }
+
+  @Test
+  public void utf8DocumentSize() {
+    // two, three and four bytes per code point
+    String content = "{\"a\":\"\u00e9\u20ac\ud83d\ude00\"}";
+    mockTracer.reset();
+
+    bucket.upsert(RawJsonDocument.create("id", content));
+
+    assertEquals(17L, mockTracer.finishedSpans().get(0).tags().get("size"));
+    assertEquals(content.getBytes(StandardCharsets.UTF_8).length,
+        TracingHelper.utf8Length(content));
+    // an unpaired surrogate is encoded as one replacement byte
+    assertEquals(2, TracingHelper.utf8Length("a\ud83d"));
+  }
+
+  @Test
+  public void untracedDocumentSizeCountsChars() {
+    String content = "{\"a\":\"\u00e9\u20ac\ud83d\ude00\"}";
+    helper.getControl().setSamplingRate(0.0);
+
+    bucket.upsert(RawJsonDocument.create("id", content));
+
+    assertEquals(0, mockTracer.finishedSpans().size());
+    CompositeData upsert = helper.getLatencyMetrics().getDocumentSizes()
+        .get(new Object[]{"bucket", "upsert"});
+    assertEquals((long) content.length(), upsert.get("max"));
+  }
+
+  @Test
+  public void percentiles() {
+    LatencyWindow window = new LatencyWindow(0, TimeUnit.SECONDS.toNanos(10), 6);
+    for (int i = 1; i <= 1000; i++) {
+      window.record(TimeUnit.MICROSECONDS.toNanos(i), 0);
+    }
+
+    LatencyWindow.Snapshot snapshot = window.snapshot(0);
+    assertEquals(1000, snapshot.getCount());
+    assertEquals(1000, snapshot.getMax());
+    assertWithin(500, snapshot.getValueAtPercentile(50));
+    assertWithin(990, snapshot.getValueAtPercentile(99));
+    assertEquals(1000, snapshot.getValueAtPercentile(99.9));
+  }
+
+  @Test
+  public void slidingWindow() {
+    long interval = TimeUnit.SECONDS.toNanos(10);
+    LatencyWindow window = new LatencyWindow(0, interval, 6);
+    window.record(TimeUnit.MILLISECONDS.toNanos(5), 0);
+    window.record(TimeUnit.MILLISECONDS.toNanos(1), 3 * interval);
+
+    assertEquals(2, window.snapshot(3 * interval).getCount());
+    assertEquals(5000, window.snapshot(3 * interval).getMax());
+
+    // the first interval left the window
+    LatencyWindow.Snapshot snapshot = window.snapshot(6 * interval);
+    assertEquals(1, snapshot.getCount());
+    assertEquals(1000, snapshot.getMax());
+
+    // the first interval is reused
+    window.record(TimeUnit.MILLISECONDS.toNanos(2), 6 * interval);
+    snapshot = window.snapshot(6 * interval);
+    assertEquals(2, snapshot.getCount());
+    assertEquals(2000, snapshot.getMax());
+  }
+
+  @Test
+  public void mbean() throws Exception {
+    bucket.get("id");
+    ObjectName name = helper.getLatencyMetrics().register("test");
+    try {
+      Object p99 = ManagementFactory.getPlatformMBeanServer().invoke(name,
+          "getValueAtPercentile", new Object[]{"bucket", "get", 99.0},
+          new String[]{String.class.getName(), String.class.getName(), double.class.getName()});
+      assertTrue((Long) p99 >= 0);
+      TabularData latencies = (TabularData) ManagementFactory.getPlatformMBeanServer()
+          .getAttribute(name, "Latencies");
+      assertEquals(2, latencies.size());
+    } finally {
+      helper.getLatencyMetrics().unregister("test");
+    }
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    // log-linear buckets are accurate to 1/16 of the value
+    assertTrue(actual + " not within 1/16 of " + expected,
+        actual >= expected && actual <= expected + expected / 16);
+  }
+}
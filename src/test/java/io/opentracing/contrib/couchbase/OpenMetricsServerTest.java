@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.error.DocumentDoesNotExistException;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class OpenMetricsServerTest {
+
+  private final MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager(),
+      MockTracer.Propagator.TEXT_MAP);
+  private TracingHelper helper;
+  private Bucket delegate;
+  private Bucket bucket;
+
+  @Before
+  public void before() {
+    mockTracer.reset();
+    helper = new TracingHelper(mockTracer, false);
+    Cluster cluster = Mockito.mock(Cluster.class);
+    delegate = Mockito.mock(Bucket.class);
+    Mockito.when(cluster.openBucket("bucket")).thenReturn(delegate);
+    bucket = new TracingCluster(cluster, helper).openBucket("bucket");
+    mockTracer.reset();
+  }
+
+  @Test
+  public void scrape() throws Exception {
+    Mockito.when(delegate.get("id")).thenReturn(JsonDocument.create("id"));
+    Mockito.when(delegate.remove("missing")).thenThrow(new DocumentDoesNotExistException());
+    bucket.get("id");
+    bucket.get("id");
+    bucket.get("missing");
+    try {
+      bucket.remove("missing");
+      fail();
+    } catch (DocumentDoesNotExistException expected) {
+    }
+
+    String text = scrape();
+
+    assertTrue(text, text.startsWith("# TYPE couchbase_client_operations counter\n"));
+    assertTrue(text, text.endsWith("# EOF\n"));
+    String get = "{bucket=\"bucket\",operation=\"get\"";
+    String remove = "{bucket=\"bucket\",operation=\"remove\"";
+    assertContains(text, "couchbase_client_operations_total" + get + ",outcome=\"success\"} 2\n");
+    assertContains(text, "couchbase_client_operations_total" + get + ",outcome=\"miss\"} 1\n");
+    assertContains(text, "couchbase_client_operations_total" + remove + ",outcome=\"miss\"} 1\n");
+    assertContains(text,
+        "couchbase_client_operations_total" + remove + ",outcome=\"success\"} 0\n");
+    assertContains(text, "couchbase_client_exceptions_total" + remove
+        + ",exception=\"" + DocumentDoesNotExistException.class.getName() + "\"} 1\n");
+    assertContains(text,
+        "couchbase_client_operation_duration_seconds_bucket" + get + ",le=\"+Inf\"} 3");
+    assertContains(text, "couchbase_client_operation_duration_seconds_count" + get + "} 3\n");
+    assertContains(text, "couchbase_client_operations_total{bucket=\"\",operation=\"openBucket\","
+        + "outcome=\"success\"} 1\n");
+
+    MockSpan span = mockTracer.finishedSpans().get(2);
+    assertContains(text, " # {trace_id=\"" + span.context().traceId() + "\"} ");
+  }
+
+  @Test
+  public void serve() throws Exception {
+    bucket.get("id");
+    OpenMetricsServer server = new OpenMetricsServer(helper,
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    server.start();
+    try {
+      URL url = new URL("http", "localhost", server.getAddress().getPort(), "/metrics");
+      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      assertEquals(200, connection.getResponseCode());
+      assertEquals(OpenMetricsServer.CONTENT_TYPE, connection.getContentType());
+
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      try (InputStream in = connection.getInputStream()) {
+        byte[] buffer = new byte[4096];
+        for (int read; (read = in.read(buffer)) != -1; ) {
+          body.write(buffer, 0, read);
+        }
+      }
+      assertContains(body.toString("UTF-8"), "operation=\"get\"");
+    } finally {
+      server.stop();
+    }
+  }
+
+  private String scrape() throws Exception {
+    OpenMetricsServer server = new OpenMetricsServer(helper,
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    server.start();
+    try {
+      return server.scrape();
+    } finally {
+      server.stop();
+    }
+  }
+
+  private static void assertContains(String text, String expected) {
+    assertTrue(text, text.contains(expected));
+  }
+}
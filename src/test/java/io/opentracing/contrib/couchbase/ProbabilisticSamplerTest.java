@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.couchbase.client.java.Cluster;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ProbabilisticSamplerTest {
+
+  @Test
+  public void operationRates() {
+    Map<String, Double> rates = new HashMap<>();
+    rates.put("get", 0.0);
+    rates.put("query", 1.0);
+    ProbabilisticSampler sampler = new ProbabilisticSampler(0.5, rates);
+
+    assertEquals(0.5, sampler.getRate(Operation.UPSERT), 0.0);
+    for (int i = 0; i < 1000; i++) {
+      assertFalse(sampler.sample("bucket", Operation.GET));
+      assertTrue(sampler.sample("bucket", Operation.QUERY));
+    }
+  }
+
+  @Test
+  public void samplesApproximatelyAtRate() {
+    ProbabilisticSampler sampler = new ProbabilisticSampler(0.1);
+    int sampled = 0;
+    for (int i = 0; i < 100000; i++) {
+      if (sampler.sample("bucket", Operation.GET)) {
+        sampled++;
+      }
+    }
+    assertEquals(10000, sampled, 1000);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidRate() {
+    new ProbabilisticSampler(1.5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownOperation() {
+    new ProbabilisticSampler(1.0, Collections.singletonMap("fetch", 0.5));
+  }
+
+  @Test
+  public void notSampledOperationIsNotTraced() {
+    MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager(),
+        MockTracer.Propagator.TEXT_MAP);
+    Map<String, Double> rates = new HashMap<>();
+    rates.put("openBucket", 0.0);
+    Cluster cluster = new TracingCluster(Mockito.mock(Cluster.class), mockTracer, false,
+        new ProbabilisticSampler(1.0, rates));
+
+    cluster.openBucket("bucket");
+    cluster.disconnect();
+
+    assertEquals(1, mockTracer.finishedSpans().size());
+    assertEquals("disconnect", mockTracer.finishedSpans().get(0).operationName());
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.couchbase.client.java.Cluster;
+import io.opentracing.Scope;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Test;
+
+public class RingBufferRecorderTest {
+
+  private RingBufferRecorder recorder;
+
+  @After
+  public void after() {
+    recorder.close();
+  }
+
+  @Test
+  public void spansAreReportedByRecorderThread() {
+    final MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager(),
+        MockTracer.Propagator.TEXT_MAP) {
+      @Override
+      protected void onSpanFinished(MockSpan mockSpan) {
+        mockSpan.setTag("thread", Thread.currentThread().getName());
+      }
+    };
+    recorder = new RingBufferRecorder(16);
+    Cluster cluster = new TracingCluster(mock(Cluster.class),
+        new TracingHelper(mockTracer, false, Sampler.ALWAYS_SAMPLE, null, recorder));
+
+    try (Scope parent = mockTracer.buildSpan("parent").startActive(true)) {
+      cluster.openBucket("bucket");
+    }
+    await().atMost(15, TimeUnit.SECONDS).until(reportedSpansSize(mockTracer), equalTo(2));
+
+    // the recorder may report before or after the parent finished
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    MockSpan parent = spans.get(0).operationName().equals("parent") ? spans.get(0) : spans.get(1);
+    MockSpan span = spans.get(0) == parent ? spans.get(1) : spans.get(0);
+    assertEquals("openBucket", span.operationName());
+    assertEquals(parent.context().spanId(), span.parentId());
+    assertEquals("bucket", span.tags().get("name"));
+    assertEquals("couchbase-span-recorder", span.tags().get("thread"));
+    assertNotEquals(Thread.currentThread().getName(), span.tags().get("thread"));
+    assertEquals(1, recorder.getReportedCount());
+  }
+
+  @Test
+  public void dropsWhenFull() throws InterruptedException {
+    final CountDownLatch reporting = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    MockTracer mockTracer = new MockTracer() {
+      @Override
+      protected void onSpanFinished(MockSpan mockSpan) {
+        reporting.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    recorder = new RingBufferRecorder(4);
+    Cluster cluster = new TracingCluster(mock(Cluster.class),
+        new TracingHelper(mockTracer, false, Sampler.ALWAYS_SAMPLE, null, recorder));
+
+    // the first operation blocks the recorder thread in the tracer
+    cluster.disconnect();
+    assertTrue(reporting.await(15, TimeUnit.SECONDS));
+    for (int i = 0; i < 10; i++) {
+      cluster.disconnect();
+    }
+
+    assertEquals(4, recorder.getCapacity());
+    // slot of the blocked operation is not free yet
+    assertEquals(7, recorder.getDroppedCount());
+
+    release.countDown();
+    recorder.close();
+    assertEquals(4, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void closeRacingWithProducers() throws Exception {
+    final MockTracer mockTracer = new MockTracer();
+    recorder = new RingBufferRecorder(1024);
+    final TracingHelper helper = new TracingHelper(mockTracer, false);
+    final AtomicLong recorded = new AtomicLong();
+    final AtomicLong attempts = new AtomicLong();
+    final CountDownLatch started = new CountDownLatch(4);
+    Thread[] producers = new Thread[4];
+    for (int t = 0; t < producers.length; t++) {
+      producers[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          started.countDown();
+          for (int i = 0; i < 20000; i++) {
+            attempts.incrementAndGet();
+            if (recorder.record(helper, "get", null, 0L, 1000L, new String[0], new Object[0],
+                0, null)) {
+              recorded.incrementAndGet();
+            }
+          }
+        }
+      });
+      producers[t].start();
+    }
+    started.await();
+    recorder.close();
+    for (Thread producer : producers) {
+      producer.join();
+    }
+
+    assertEquals(recorded.get(), recorder.getReportedCount());
+    assertEquals(attempts.get(), recorded.get() + recorder.getDroppedCount());
+  }
+
+  @Test
+  public void errorTagSurvivesTagLimit() {
+    MockTracer mockTracer = new MockTracer();
+    recorder = new RingBufferRecorder(4);
+    int tagCount = RingBufferRecorder.MAX_TAGS + 10;
+    String[] keys = new String[tagCount];
+    Object[] values = new Object[tagCount];
+    for (int i = 0; i < tagCount - 2; i++) {
+      keys[i] = "tag" + i;
+      values[i] = i;
+    }
+    keys[tagCount - 2] = ExceptionClassifier.OUTCOME_TAG;
+    values[tagCount - 2] = "error";
+    keys[tagCount - 1] = Tags.ERROR.getKey();
+    values[tagCount - 1] = Boolean.TRUE;
+
+    assertTrue(recorder.record(new TracingHelper(mockTracer, false), "get", null, 0L, 1000L,
+        keys, values, tagCount, null));
+    recorder.close();
+
+    MockSpan span = mockTracer.finishedSpans().get(0);
+    assertEquals(Boolean.TRUE, span.tags().get(Tags.ERROR.getKey()));
+    assertEquals("error", span.tags().get(ExceptionClassifier.OUTCOME_TAG));
+    // the first tags fill the rest of the slot
+    assertEquals(0, span.tags().get("tag0"));
+    assertEquals(61, span.tags().get("tag61"));
+    assertNull(span.tags().get("tag62"));
+    assertEquals(10, recorder.getDroppedTagCount());
+  }
+
+  private static Callable<Integer> reportedSpansSize(final MockTracer mockTracer) {
+    return new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        return mockTracer.finishedSpans().size();
+      }
+    };
+  }
+}
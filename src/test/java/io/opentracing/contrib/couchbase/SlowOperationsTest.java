@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.query.N1qlQuery;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class SlowOperationsTest {
+
+  private static final long INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+  @Test
+  public void slowCallsOfBucket() {
+    TracingHelper helper = new TracingHelper(new MockTracer(new ThreadLocalScopeManager(),
+        MockTracer.Propagator.TEXT_MAP), false);
+    helper.getSlowOperations().setThreshold("get", 1);
+    Cluster cluster = Mockito.mock(Cluster.class);
+    Bucket delegate = Mockito.mock(Bucket.class);
+    Mockito.when(delegate.get(Mockito.eq("slow"), Mockito.anyLong(), Mockito.any(TimeUnit.class)))
+        .thenAnswer(new Answer<JsonDocument>() {
+          @Override
+          public JsonDocument answer(InvocationOnMock invocation) throws Throwable {
+            Thread.sleep(5);
+            return null;
+          }
+        });
+    Mockito.when(cluster.openBucket("bucket")).thenReturn(delegate);
+    Bucket bucket = new TracingCluster(cluster, helper).openBucket("bucket");
+
+    bucket.get("fast");
+    bucket.get("slow", 100, TimeUnit.MILLISECONDS);
+    bucket.query(N1qlQuery.simple("SELECT * FROM bucket WHERE id = 'secret'"));
+
+    TabularData slowOperations = helper.getSlowOperations().getSlowOperations();
+    assertEquals(slowOperations.toString(), 1, slowOperations.size());
+    CompositeData slow = slowOperations.get(new Object[]{"bucket", "get", 1});
+    assertNotNull(slow);
+    assertEquals("bucket", slow.get("bucket"));
+    assertEquals("slow", slow.get("subject"));
+    assertEquals(100.0, slow.get("timeoutMillis"));
+    assertTrue((Double) slow.get("durationMillis") >= 5);
+    assertNull(slowOperations.get(new Object[]{"bucket", "query", 1}));
+    assertTrue(helper.getSlowOperations().getSummary(),
+        helper.getSlowOperations().getSummary().startsWith("get: max "));
+  }
+
+  @Test
+  public void keepsSlowest() {
+    SlowOperations slowOperations = new SlowOperations(2, 10, TimeUnit.SECONDS);
+    slowOperations.setThreshold(Operation.QUERY, 0, TimeUnit.MILLISECONDS);
+    long now = System.nanoTime();
+    for (int i = 1; i <= 10; i++) {
+      slowOperations.record(Operation.QUERY, "bucket",
+          N1qlQuery.simple("SELECT * FROM bucket WHERE id = '" + i + "'"), 0, null, i, now);
+    }
+
+    List<SlowOperations.SlowOperation> recorded = slowOperations.snapshot(now);
+    assertEquals(2, recorded.size());
+    assertEquals(10, recorded.get(0).durationNanos);
+    assertEquals(9, recorded.get(1).durationNanos);
+    // literals are not kept
+    assertEquals(StatementCache.normalize("SELECT * FROM bucket WHERE id = '1'"),
+        SlowOperations.describe(recorded.get(0).subject));
+    assertEquals(SlowOperations.describe(recorded.get(0).subject),
+        SlowOperations.describe(recorded.get(1).subject));
+  }
+
+  @Test
+  public void slowBucketDoesNotCrowdOutOthers() {
+    SlowOperations slowOperations = new SlowOperations(2, 10, TimeUnit.SECONDS);
+    slowOperations.setThreshold(Operation.GET, 0, TimeUnit.MILLISECONDS);
+    long now = System.nanoTime();
+    slowOperations.record(Operation.GET, "fast", "id", 0, null, 1, now);
+    for (int i = 0; i < 10; i++) {
+      slowOperations.record(Operation.GET, "slow", "id" + i, 0, null, 100 + i, now);
+    }
+
+    List<SlowOperations.SlowOperation> recorded = slowOperations.snapshot(now);
+    assertEquals(3, recorded.size());
+    assertEquals("fast", recorded.get(0).bucket);
+    assertEquals(1, recorded.get(0).durationNanos);
+    assertEquals("slow", recorded.get(1).bucket);
+    assertEquals(109, recorded.get(1).durationNanos);
+  }
+
+  @Test
+  public void intervals() {
+    SlowOperations slowOperations = new SlowOperations(2, 10, TimeUnit.SECONDS);
+    slowOperations.setThreshold(Operation.GET, 0, TimeUnit.MILLISECONDS);
+    long now = System.nanoTime();
+    slowOperations.record(Operation.GET, "bucket", "old", 0, null, 100, now);
+
+    // the last interval is still reported
+    slowOperations.record(Operation.GET, "bucket", "new", 0, null, 10, now + INTERVAL);
+    List<SlowOperations.SlowOperation> recorded = slowOperations.snapshot(now + INTERVAL);
+    assertEquals(2, recorded.size());
+    assertEquals("old", recorded.get(0).subject);
+
+    // until the interval after the current one starts
+    slowOperations.record(Operation.GET, "bucket", "newer", 0, null, 1, now + 2 * INTERVAL);
+    recorded = slowOperations.snapshot(now + 2 * INTERVAL);
+    assertEquals(2, recorded.size());
+    assertEquals("new", recorded.get(0).subject);
+    assertEquals("newer", recorded.get(1).subject);
+  }
+
+  @Test
+  public void defaultThresholds() {
+    SlowOperations slowOperations = new SlowOperations();
+    assertEquals(500, slowOperations.getThreshold("get"));
+    assertEquals(500, slowOperations.getThreshold("queuePop"));
+    assertEquals(1000, slowOperations.getThreshold("query"));
+    assertEquals(1000, slowOperations.getThreshold("ping"));
+    assertEquals(1000, slowOperations.getThreshold("close"));
+    assertEquals(1000, slowOperations.getThreshold("invalidateQueryCache"));
+    assertEquals(1000, slowOperations.getThreshold("openBucket"));
+  }
+}
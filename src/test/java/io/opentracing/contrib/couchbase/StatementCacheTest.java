@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.document.json.JsonArray;
+import com.couchbase.client.java.query.N1qlQuery;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.ThreadLocalScopeManager;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class StatementCacheTest {
+
+  @Test
+  public void normalize() {
+    assertEquals("SELECT name FROM `travel-sample` WHERE type = ? AND id = ? LIMIT ?",
+        StatementCache.normalize(
+            "SELECT name FROM `travel-sample`\n  WHERE type = 'airline' AND id = 10 LIMIT 5"));
+    assertEquals("SELECT * FROM default WHERE name = ? OR name = ?",
+        StatementCache.normalize("SELECT * FROM default WHERE name = \"it's\" OR name = 'it''s'"));
+    assertEquals("SELECT * FROM b1 WHERE $1 IN interests AND v > ? AND w < ?",
+        StatementCache.normalize(
+            "SELECT * FROM b1 WHERE $1 IN interests AND v > 1.5e3 AND w < .5"));
+  }
+
+  @Test
+  public void lengthIsCapped() {
+    StringBuilder statement = new StringBuilder("SELECT ");
+    for (int i = 0; i < 1000; i++) {
+      statement.append("field").append(i).append(", ");
+    }
+    assertEquals(StatementCache.MAX_LENGTH,
+        StatementCache.normalize(statement.toString()).length());
+  }
+
+  @Test
+  public void repeatedStatementsShareFingerprint() {
+    StatementCache cache = new StatementCache(16);
+    String first = cache.fingerprint("SELECT * FROM default WHERE id = 1");
+    assertSame(first, cache.fingerprint(new String("SELECT * FROM default WHERE id = 1")));
+    assertEquals(first, cache.fingerprint("SELECT * FROM default WHERE id = 2"));
+  }
+
+  @Test
+  public void cacheIsBounded() {
+    StatementCache cache = new StatementCache(16);
+    String first = cache.fingerprint("SELECT a0");
+    for (int i = 1; i < 10000; i++) {
+      cache.fingerprint("SELECT a" + i);
+    }
+    assertNotSame(first, cache.fingerprint("SELECT a0"));
+  }
+
+  @Test
+  public void queryIsTaggedWithStatement() {
+    MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager(),
+        MockTracer.Propagator.TEXT_MAP);
+    Cluster cluster = new TracingCluster(Mockito.mock(Cluster.class), mockTracer, false);
+
+    cluster.query(N1qlQuery.parameterized("SELECT name FROM default WHERE $1 IN interests",
+        JsonArray.from("African Swallows")));
+    cluster.query(N1qlQuery.simple("SELECT name FROM default WHERE id = 'u:king_arthur'"));
+
+    MockSpan parameterized = mockTracer.finishedSpans().get(0);
+    MockSpan simple = mockTracer.finishedSpans().get(1);
+    assertEquals("SELECT name FROM default WHERE $1 IN interests",
+        parameterized.tags().get(Tags.DB_STATEMENT.getKey()));
+    assertEquals("SELECT name FROM default WHERE id = ?",
+        simple.tags().get(Tags.DB_STATEMENT.getKey()));
+  }
+}
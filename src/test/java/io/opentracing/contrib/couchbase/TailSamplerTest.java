@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.couchbase.client.java.Cluster;
+import io.opentracing.Scope;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class TailSamplerTest {
+
+  private final MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager(),
+      MockTracer.Propagator.TEXT_MAP);
+  private final Cluster delegate = mock(Cluster.class);
+  private Cluster cluster;
+
+  @Before
+  public void before() {
+    mockTracer.reset();
+    TailSampler tailSampler = new TailSampler(TimeUnit.HOURS.toMillis(1),
+        Collections.singletonMap("disconnect", 20L), TimeUnit.MILLISECONDS);
+    cluster = new TracingCluster(delegate, mockTracer, false, Sampler.ALWAYS_SAMPLE,
+        tailSampler);
+  }
+
+  @Test
+  public void fastOperationIsDropped() {
+    cluster.openBucket("bucket");
+    cluster.disconnect();
+
+    assertEquals(0, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void slowOperationIsRetained() {
+    when(delegate.disconnect()).thenAnswer(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
+        TimeUnit.MILLISECONDS.sleep(30);
+        return true;
+      }
+    });
+
+    try (Scope parent = mockTracer.buildSpan("parent").startActive(true)) {
+      cluster.disconnect(5, TimeUnit.SECONDS);
+      cluster.disconnect();
+    }
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(2, spans.size());
+    MockSpan span = spans.get(0);
+    assertEquals("disconnect", span.operationName());
+    assertEquals(spans.get(1).context().spanId(), span.parentId());
+    assertEquals(TracingHelper.COMPONENT_NAME, span.tags().get(Tags.COMPONENT.getKey()));
+    assertTrue(span.finishMicros() - span.startMicros() >= TimeUnit.MILLISECONDS.toMicros(20));
+  }
+
+  @Test
+  public void failedOperationIsRetained() {
+    when(delegate.openBucket("bucket")).thenThrow(new IllegalStateException("failed"));
+
+    try {
+      cluster.openBucket("bucket");
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(1, spans.size());
+    MockSpan span = spans.get(0);
+    assertEquals(Boolean.TRUE, span.tags().get(Tags.ERROR.getKey()));
+    assertEquals("bucket", span.tags().get("name"));
+    assertEquals(1, span.logEntries().size());
+    assertEquals(0, span.parentId());
+  }
+}
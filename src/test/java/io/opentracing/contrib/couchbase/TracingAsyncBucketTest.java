@@ -0,0 +1,235 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.couchbase.client.java.AsyncBucket;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.QueryExecutionException;
+import com.couchbase.client.java.query.AsyncN1qlQueryResult;
+import com.couchbase.client.java.query.AsyncN1qlQueryRow;
+import com.couchbase.client.java.query.N1qlQuery;
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.Subscription;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+import rx.subjects.ReplaySubject;
+
+public class TracingAsyncBucketTest {
+
+  private final MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager(),
+      MockTracer.Propagator.TEXT_MAP);
+  private final AsyncBucket delegate = mock(AsyncBucket.class);
+  private TracingHelper helper;
+  private AsyncBucket bucket;
+
+  @Before
+  public void before() {
+    mockTracer.reset();
+    Bucket syncDelegate = mock(Bucket.class);
+    when(syncDelegate.async()).thenReturn(delegate);
+    helper = new TracingHelper(mockTracer, false);
+    bucket = new TracingBucket(syncDelegate, helper).async();
+  }
+
+  @Test
+  public void spanPerSubscription() {
+    JsonDocument document = JsonDocument.create("id");
+    when(delegate.get("id")).thenReturn(Observable.just(document));
+
+    Observable<JsonDocument> observable = bucket.get("id");
+    assertEquals(0, mockTracer.finishedSpans().size());
+
+    try (Scope parent = mockTracer.buildSpan("parent").startActive(true)) {
+      assertEquals(document, observable.toBlocking().single());
+      assertEquals(document, observable.toBlocking().single());
+    }
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(3, spans.size());
+    MockSpan span = spans.get(0);
+    assertEquals("get", span.operationName());
+    assertEquals("id", span.tags().get("id"));
+    assertEquals(TracingHelper.COMPONENT_NAME, span.tags().get(Tags.COMPONENT.getKey()));
+    assertEquals(spans.get(2).context().spanId(), span.parentId());
+  }
+
+  @Test
+  public void propagatesContextToCallbacks() {
+    when(delegate.get("id")).thenReturn(Observable.just(JsonDocument.create("id"))
+        .delay(10, TimeUnit.MILLISECONDS));
+    helper.getControl().setSamplingRate(0.0);
+    final AtomicReference<Span> active = new AtomicReference<>();
+
+    try (Scope parent = mockTracer.buildSpan("parent").startActive(true)) {
+      bucket.get("id")
+          .map(new Func1<JsonDocument, JsonDocument>() {
+            @Override
+            public JsonDocument call(JsonDocument document) {
+              active.set(mockTracer.activeSpan());
+              return document;
+            }
+          })
+          .toBlocking()
+          .single();
+      assertSame(parent.span(), active.get());
+    }
+    assertEquals(1, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void unsampledCallBuildsNoTags() {
+    N1qlQuery query = mock(N1qlQuery.class);
+    when(delegate.query(query)).thenReturn(Observable.<AsyncN1qlQueryResult>empty());
+    helper.getControl().setSamplingRate(0.0);
+
+    bucket.query(query).subscribe();
+
+    verify(query, never()).statement();
+    assertEquals(0, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void error() {
+    when(delegate.get("id"))
+        .thenReturn(Observable.<JsonDocument>error(new IllegalStateException("failed")));
+
+    TestSubscriber<JsonDocument> subscriber = new TestSubscriber<>();
+    bucket.get("id").subscribe(subscriber);
+    subscriber.assertError(IllegalStateException.class);
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(1, spans.size());
+    assertEquals(Boolean.TRUE, spans.get(0).tags().get(Tags.ERROR.getKey()));
+    assertEquals(1, spans.get(0).logEntries().size());
+  }
+
+  @Test
+  public void queryRows() {
+    N1qlQuery query = N1qlQuery.simple("SELECT * FROM bucket");
+    AsyncN1qlQueryRow row = mock(AsyncN1qlQueryRow.class);
+    when(row.byteValue()).thenReturn(new byte[10]);
+    AsyncN1qlQueryResult result = mock(AsyncN1qlQueryResult.class);
+    when(result.rows()).thenReturn(Observable.just(row, row, row));
+    when(result.errors()).thenReturn(Observable.<JsonObject>empty());
+    when(delegate.query(query)).thenReturn(Observable.just(result));
+
+    TestSubscriber<AsyncN1qlQueryRow> subscriber = new TestSubscriber<>(1);
+    ((TracingAsyncBucket) bucket).queryRows(query).subscribe(subscriber);
+    subscriber.assertValueCount(1);
+    assertEquals(0, mockTracer.finishedSpans().size());
+
+    subscriber.requestMore(2);
+    subscriber.assertValueCount(3);
+    subscriber.assertCompleted();
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(1, spans.size());
+    assertEquals("query", spans.get(0).operationName());
+    assertEquals(3L, spans.get(0).tags().get("rows"));
+    assertEquals(30L, spans.get(0).tags().get("bytes"));
+  }
+
+  @Test
+  public void queryRowsError() {
+    N1qlQuery query = N1qlQuery.simple("SELECT * FROM bucket");
+    AsyncN1qlQueryRow row = mock(AsyncN1qlQueryRow.class);
+    AsyncN1qlQueryResult result = mock(AsyncN1qlQueryResult.class);
+    when(result.rows()).thenReturn(Observable.just(row));
+    when(result.errors()).thenReturn(Observable.just(JsonObject.create().put("code", 3000)));
+    when(delegate.query(query)).thenReturn(Observable.just(result));
+
+    TestSubscriber<AsyncN1qlQueryRow> subscriber = new TestSubscriber<>();
+    ((TracingAsyncBucket) bucket).queryRows(query).subscribe(subscriber);
+    subscriber.assertValueCount(1);
+    subscriber.assertError(QueryExecutionException.class);
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(1, spans.size());
+    assertEquals(Boolean.TRUE, spans.get(0).tags().get(Tags.ERROR.getKey()));
+    assertEquals(1L, spans.get(0).tags().get("rows"));
+    assertEquals(0L, spans.get(0).tags().get("bytes"));
+  }
+
+  @Test
+  public void queryRowsSlowerThanAutoRelease() {
+    N1qlQuery query = N1qlQuery.simple("SELECT * FROM bucket");
+    final TestScheduler scheduler = new TestScheduler();
+    final ReplaySubject<JsonObject> errors = ReplaySubject.create();
+    PublishSubject<AsyncN1qlQueryRow> rows = PublishSubject.create();
+    AsyncN1qlQueryResult result = mock(AsyncN1qlQueryResult.class);
+    when(result.rows()).thenReturn(rows);
+    // like the core, fails subscriptions made after the stream was released
+    when(result.errors()).thenReturn(Observable.defer(new Func0<Observable<JsonObject>>() {
+      @Override
+      public Observable<JsonObject> call() {
+        return scheduler.now(TimeUnit.SECONDS) >= 2
+            ? Observable.<JsonObject>error(new IllegalStateException("released"))
+            : errors;
+      }
+    }));
+    when(delegate.query(query)).thenReturn(Observable.just(result));
+
+    TestSubscriber<AsyncN1qlQueryRow> subscriber = new TestSubscriber<>();
+    ((TracingAsyncBucket) bucket).queryRows(query).subscribe(subscriber);
+    rows.onNext(mock(AsyncN1qlQueryRow.class));
+    errors.onCompleted();
+    scheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+    rows.onNext(mock(AsyncN1qlQueryRow.class));
+    rows.onCompleted();
+
+    subscriber.assertNoErrors();
+    subscriber.assertValueCount(2);
+    subscriber.assertCompleted();
+    assertEquals(2L, mockTracer.finishedSpans().get(0).tags().get("rows"));
+  }
+
+  @Test
+  public void unsubscribe() {
+    when(delegate.get("id")).thenReturn(Observable.<JsonDocument>never());
+
+    Subscription subscription = bucket.get("id").subscribe();
+    assertEquals(0, mockTracer.finishedSpans().size());
+
+    subscription.unsubscribe();
+    subscription.unsubscribe();
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(1, spans.size());
+    assertNull(spans.get(0).tags().get(Tags.ERROR.getKey()));
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.couchbase.client.java.AsyncBucket;
+import com.couchbase.client.java.AsyncCluster;
+import com.couchbase.client.java.cluster.AsyncClusterManager;
+import com.couchbase.client.java.cluster.ClusterManager;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+public class TracingAsyncClusterTest {
+
+  private final MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager(),
+      MockTracer.Propagator.TEXT_MAP);
+  private final AsyncCluster delegate = mock(AsyncCluster.class);
+  private AsyncCluster cluster;
+
+  @Before
+  public void before() {
+    mockTracer.reset();
+    cluster = new TracingAsyncCluster(delegate, mockTracer);
+  }
+
+  @Test
+  public void openBucket() {
+    AsyncBucket bucket = mock(AsyncBucket.class);
+    when(bucket.name()).thenReturn("bucket");
+    when(bucket.exists("id")).thenReturn(Observable.just(true));
+    when(delegate.openBucket("bucket")).thenReturn(Observable.just(bucket));
+
+    AsyncBucket tracingBucket = cluster.openBucket("bucket").toBlocking().single();
+    assertTrue(tracingBucket instanceof TracingAsyncBucket);
+    tracingBucket.exists("id").toBlocking().single();
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(2, spans.size());
+    assertEquals("openBucket", spans.get(0).operationName());
+    assertEquals("bucket", spans.get(0).tags().get("name"));
+    assertEquals("exists", spans.get(1).operationName());
+    assertEquals("bucket", spans.get(1).tags().get(Tags.DB_INSTANCE.getKey()));
+  }
+
+  @Test
+  public void clusterManager() {
+    AsyncClusterManager clusterManager = mock(AsyncClusterManager.class);
+    when(clusterManager.hasBucket("bucket")).thenReturn(Observable.just(true));
+    ClusterManager syncClusterManager = mock(ClusterManager.class);
+    when(syncClusterManager.async()).thenReturn(clusterManager);
+
+    new TracingClusterManager(syncClusterManager, new TracingHelper(mockTracer, false)).async()
+        .hasBucket("bucket").toBlocking().single();
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(1, spans.size());
+    assertEquals("hasBucket", spans.get(0).operationName());
+    assertEquals("bucket", spans.get(0).tags().get("name"));
+  }
+
+  @Test
+  public void disconnectError() {
+    when(delegate.disconnect()).thenReturn(Observable.<Boolean>error(
+        new IllegalStateException("failed")));
+
+    TestSubscriber<Boolean> subscriber = new TestSubscriber<>();
+    cluster.disconnect().subscribe(subscriber);
+    subscriber.assertError(IllegalStateException.class);
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(1, spans.size());
+    assertEquals(Boolean.TRUE, spans.get(0).tags().get(Tags.ERROR.getKey()));
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.couchbase.client.java.AsyncBucket;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.error.DocumentDoesNotExistException;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.functions.Func1;
+
+public class TracingBatchTest {
+
+  private final MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager(),
+      MockTracer.Propagator.TEXT_MAP);
+  private final AsyncBucket delegate = mock(AsyncBucket.class);
+  private TracingAsyncBucket bucket;
+
+  @Before
+  public void before() {
+    mockTracer.reset();
+    Bucket syncDelegate = mock(Bucket.class);
+    when(syncDelegate.async()).thenReturn(delegate);
+    bucket = (TracingAsyncBucket) new TracingBucket(syncDelegate,
+        new TracingHelper(mockTracer, false)).async();
+  }
+
+  @Test
+  public void singleSpanForBulk() {
+    for (int i = 0; i < 100; i++) {
+      when(delegate.get("id" + i)).thenReturn(Observable.just(JsonDocument.create("id" + i)));
+    }
+    when(delegate.get("missing")).thenReturn(Observable.<JsonDocument>empty());
+    when(delegate.get("failed")).thenReturn(Observable.<JsonDocument>error(
+        new IllegalStateException("failed")));
+    when(delegate.get("notFound")).thenReturn(Observable.<JsonDocument>error(
+        new DocumentDoesNotExistException()));
+
+    final TracingBatch batch = bucket.batch(Operation.GET, 1, TimeUnit.HOURS);
+    Observable.range(0, 100)
+        .map(new Func1<Integer, String>() {
+          @Override
+          public String call(Integer i) {
+            return "id" + i;
+          }
+        })
+        .concatWith(Observable.just("missing", "failed", "notFound"))
+        .flatMap(new Func1<String, Observable<JsonDocument>>() {
+          @Override
+          public Observable<JsonDocument> call(String id) {
+            return batch.trace(bucket.untraced().get(id))
+                .onErrorResumeNext(Observable.<JsonDocument>empty());
+          }
+        })
+        .compose(batch.<JsonDocument>finishOnTerminate())
+        .toList()
+        .toBlocking()
+        .single();
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(2, spans.size());
+    MockSpan failed = spans.get(0);
+    assertEquals("get", failed.operationName());
+    assertEquals(Boolean.TRUE, failed.tags().get(Tags.ERROR.getKey()));
+
+    MockSpan span = spans.get(1);
+    assertEquals("getBatch", span.operationName());
+    assertEquals(span.context().spanId(), failed.parentId());
+    assertEquals(103L, span.tags().get("count"));
+    assertEquals(100L, span.tags().get("successCount"));
+    assertEquals(2L, span.tags().get("missCount"));
+    assertEquals(1L, span.tags().get("errorCount"));
+    assertTrue((Long) span.tags().get("p99Micros") <= (Long) span.tags().get("maxMicros"));
+  }
+
+  @Test
+  public void outlierGetsChildSpan() {
+    when(delegate.get("slow")).thenReturn(Observable.just(JsonDocument.create("slow"))
+        .delay(20, TimeUnit.MILLISECONDS));
+
+    TracingBatch batch = bucket.batch(Operation.GET, 10, TimeUnit.MILLISECONDS);
+    batch.trace(bucket.untraced().get("slow")).toBlocking().single();
+    batch.finish();
+    batch.finish();
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(2, spans.size());
+    assertEquals("success", spans.get(0).tags().get(ExceptionClassifier.OUTCOME_TAG));
+    assertEquals(1L, spans.get(1).tags().get("count"));
+  }
+
+  @Test
+  public void histogram() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000L);
+    }
+
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1000L, histogram.getMin());
+    assertEquals(1000000L, histogram.getMax());
+    assertEquals(500500.0, histogram.getMean(), 0.0);
+    long p99 = histogram.getValueAtPercentile(99.0);
+    assertTrue(p99 >= 990000L && p99 <= 990000L * 17 / 16);
+  }
+}
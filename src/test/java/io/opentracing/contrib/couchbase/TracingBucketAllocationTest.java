@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.RawJsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.openmbean.TabularData;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that calls which will not be recorded (traceWithActiveSpanOnly without an active span)
+ * allocate nothing on top of the delegate call. Calls get a real id and document and reads
+ * return one, so the hot keys, sizes and latencies, which are recorded for every call, are
+ * covered as well.
+ */
+public class TracingBucketAllocationTest {
+
+  private static final int ITERATIONS = 2000;
+  private static final int ATTEMPTS = 5;
+  private static final String ID = "k";
+  private static final RawJsonDocument RAW_DOCUMENT = RawJsonDocument.create(ID, "{\"v\":1}");
+  private static final JsonDocument JSON_DOCUMENT =
+      JsonDocument.create(ID, JsonObject.create().put("v", 1));
+  private static volatile Object[] lastArgs;
+
+  private final MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager(),
+      MockTracer.Propagator.TEXT_MAP);
+  private com.sun.management.ThreadMXBean threadMXBean;
+
+  @Before
+  public void before() {
+    mockTracer.reset();
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    threadMXBean = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+  }
+
+  @Test
+  public void untracedCallsDoNotAllocate() throws Exception {
+    Bucket delegate = noopBucket();
+    TracingHelper helper = new TracingHelper(mockTracer, true);
+    Bucket bucket = new TracingBucket(delegate, helper);
+
+    List<String> allocating = new ArrayList<>();
+    for (Method method : Bucket.class.getMethods()) {
+      Object[] args = defaultArgs(method);
+      long overhead = Long.MAX_VALUE;
+      for (int attempt = 0; attempt < ATTEMPTS && overhead > 0; attempt++) {
+        overhead = Math.min(overhead,
+            allocatedBytes(method, bucket, args) - allocatedBytes(method, delegate, args));
+      }
+      if (overhead > 0) {
+        allocating.add(method + ": " + overhead + " bytes");
+      }
+    }
+
+    assertTrue(allocating.toString(), allocating.isEmpty());
+    assertEquals(0, mockTracer.finishedSpans().size());
+    // the recording of untraced calls was measured as well
+    TabularData hotKeys = helper.getHotKeys().getHotKeys();
+    assertNotNull(hotKeys.get(new Object[]{"", "read", ID}));
+    assertNotNull(hotKeys.get(new Object[]{"", "write", ID}));
+  }
+
+  private long allocatedBytes(Method method, Bucket target, Object[] args) throws Exception {
+    // warm up reflection accessors and the code under test
+    for (int i = 0; i < ITERATIONS; i++) {
+      method.invoke(target, args);
+    }
+    long threadId = Thread.currentThread().getId();
+    long before = threadMXBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < ITERATIONS; i++) {
+      method.invoke(target, args);
+    }
+    return threadMXBean.getThreadAllocatedBytes(threadId) - before;
+  }
+
+  private static Object[] defaultArgs(Method method) {
+    Class<?>[] types = method.getParameterTypes();
+    Object[] args = new Object[types.length];
+    for (int i = 0; i < types.length; i++) {
+      args[i] = defaultValue(types[i]);
+    }
+    return args;
+  }
+
+  private static Object defaultValue(Class<?> type) {
+    if (type == String.class) {
+      return ID;
+    } else if (type.isInstance(RAW_DOCUMENT)) {
+      return RAW_DOCUMENT;
+    } else if (type.isInstance(JSON_DOCUMENT)) {
+      return JSON_DOCUMENT;
+    } else if (type == boolean.class) {
+      return Boolean.FALSE;
+    } else if (type == long.class) {
+      // outside of the Long.valueOf cache so that any boxing shows up
+      return 100000L;
+    } else if (type == int.class) {
+      return 100000;
+    } else if (type == double.class) {
+      return 100000D;
+    } else if (type.isPrimitive()) {
+      throw new IllegalArgumentException("Unsupported primitive type " + type);
+    }
+    return null;
+  }
+
+  private static Object returnValue(Class<?> type) {
+    if (type.isInstance(RAW_DOCUMENT)) {
+      return RAW_DOCUMENT;
+    } else if (type.isInstance(JSON_DOCUMENT)) {
+      return JSON_DOCUMENT;
+    } else if (type == boolean.class) {
+      return Boolean.FALSE;
+    } else if (type == long.class) {
+      return 0L;
+    } else if (type == int.class) {
+      return 0;
+    } else if (type.isPrimitive() && type != void.class) {
+      throw new IllegalArgumentException("Unsupported primitive type " + type);
+    }
+    return null;
+  }
+
+  private static Bucket noopBucket() {
+    return (Bucket) Proxy.newProxyInstance(Bucket.class.getClassLoader(),
+        new Class<?>[]{Bucket.class}, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            // let the argument array escape, otherwise escape analysis may remove it on one of
+            // the compared paths only
+            lastArgs = args;
+            return returnValue(method.getReturnType());
+          }
+        });
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.couchbase.client.core.BackpressureException;
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.java.Bucket;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.subjects.PublishSubject;
+
+public class TracingClusterFacadeTest {
+
+  private final MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager(),
+      MockTracer.Propagator.TEXT_MAP);
+  private final ClusterFacade delegate = mock(ClusterFacade.class);
+  private final CouchbaseRequest request = mock(CouchbaseRequest.class);
+  private TracingHelper helper;
+  private ClusterFacade core;
+
+  @Before
+  public void before() {
+    mockTracer.reset();
+    Bucket bucket = mock(Bucket.class);
+    when(bucket.core()).thenReturn(delegate);
+    helper = spy(new TracingHelper(mockTracer, false));
+    core = new TracingBucket(bucket, helper).core();
+
+    when(request.bucket()).thenReturn("bucket");
+  }
+
+  @Test
+  public void response() {
+    CouchbaseResponse response = mock(CouchbaseResponse.class);
+    when(response.status()).thenReturn(ResponseStatus.SUCCESS);
+    when(delegate.send(request)).thenReturn(Observable.just(response));
+
+    core.send(request).toBlocking().single();
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(1, spans.size());
+    MockSpan span = spans.get(0);
+    assertEquals("send", span.operationName());
+    assertEquals("bucket", span.tags().get("bucket"));
+    assertEquals("SUCCESS", span.tags().get("status"));
+    assertNull(span.tags().get("backpressure"));
+  }
+
+  @Test
+  public void backpressure() {
+    when(delegate.send(request))
+        .thenReturn(Observable.<CouchbaseResponse>error(new BackpressureException()));
+
+    try {
+      core.send(request).toBlocking().single();
+      fail();
+    } catch (BackpressureException expected) {
+    }
+
+    MockSpan span = mockTracer.finishedSpans().get(0);
+    assertEquals(true, span.tags().get("backpressure"));
+    assertEquals(Outcome.TEMPORARY_FAILURE.getTagValue(),
+        span.tags().get(ExceptionClassifier.OUTCOME_TAG));
+  }
+
+  @Test
+  public void unsubscribeBeforeResponse() {
+    PublishSubject<CouchbaseResponse> response = PublishSubject.create();
+    when(delegate.send(request)).thenReturn(response);
+
+    core.send(request).subscribe().unsubscribe();
+    response.onError(new IllegalStateException("late"));
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(1, spans.size());
+    assertEquals(null, spans.get(0).tags().get(Tags.ERROR.getKey()));
+  }
+
+  @Test
+  public void spanPerSubscription() {
+    CouchbaseResponse response = mock(CouchbaseResponse.class);
+    when(response.status()).thenReturn(ResponseStatus.SUCCESS);
+    when(delegate.send(request)).thenReturn(Observable.just(response));
+
+    Observable<CouchbaseResponse> observable = core.send(request);
+    verify(delegate).send(request);
+    verify(helper, never()).startSpan(Operation.SEND);
+    assertEquals(0, mockTracer.finishedSpans().size());
+
+    observable.toBlocking().single();
+    observable.toBlocking().single();
+
+    verify(helper, times(2)).startSpan(Operation.SEND);
+    assertEquals(2, mockTracer.finishedSpans().size());
+  }
+}
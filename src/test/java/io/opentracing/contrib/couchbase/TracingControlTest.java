@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.Cluster;
+import io.opentracing.Scope;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.lang.management.ManagementFactory;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TracingControlTest {
+
+  private final MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager(),
+      MockTracer.Propagator.TEXT_MAP);
+  private TracingHelper helper;
+  private Bucket bucket;
+
+  @Before
+  public void before() {
+    mockTracer.reset();
+    helper = new TracingHelper(mockTracer, false);
+    Cluster delegate = Mockito.mock(Cluster.class);
+    Mockito.when(delegate.openBucket("bucket")).thenReturn(Mockito.mock(Bucket.class));
+    bucket = new TracingCluster(delegate, helper).openBucket("bucket");
+    mockTracer.reset();
+  }
+
+  @Test
+  public void killSwitch() {
+    helper.getControl().setEnabled(false);
+    bucket.get("id");
+    assertEquals(0, mockTracer.finishedSpans().size());
+
+    helper.getControl().setEnabled(true);
+    bucket.get("id");
+    assertEquals(1, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void disabledOperationAndBucket() {
+    TracingControl control = helper.getControl();
+    control.disableOperation("get");
+    bucket.get("id");
+    bucket.exists("id");
+    assertEquals(1, mockTracer.finishedSpans().size());
+    assertEquals("exists", mockTracer.finishedSpans().get(0).operationName());
+    assertArrayEquals(new String[]{"get"}, control.getDisabledOperations());
+
+    control.enableOperation("get");
+    control.disableBucket("bucket");
+    bucket.get("id");
+    assertEquals(1, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void traceWithActiveSpanOnlyAndSampling() {
+    TracingControl control = helper.getControl();
+    control.setTraceWithActiveSpanOnly(true);
+    bucket.get("id");
+    assertEquals(0, mockTracer.finishedSpans().size());
+
+    try (Scope ignore = mockTracer.buildSpan("parent").startActive(true)) {
+      control.setSamplingRate(0.0);
+      bucket.get("id");
+      control.resetSampler();
+      bucket.get("id");
+    }
+    assertEquals(2, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void unknownOperationName() {
+    TracingControl control = helper.getControl();
+    control.setSamplingRate(0.0);
+    helper.forBucket("bucket").buildSpan("custom").finish();
+    assertEquals("custom", mockTracer.finishedSpans().get(0).operationName());
+
+    control.disableBucket("bucket");
+    helper.forBucket("bucket").buildSpan("custom").finish();
+    control.enableBucket("bucket");
+    control.setEnabled(false);
+    helper.buildSpan("custom").finish();
+    assertEquals(1, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void register() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = helper.getControl().register("test");
+    try {
+      server.setAttribute(name, new Attribute("Enabled", false));
+      assertFalse(helper.getControl().isEnabled());
+    } finally {
+      helper.getControl().unregister("test");
+    }
+  }
+}
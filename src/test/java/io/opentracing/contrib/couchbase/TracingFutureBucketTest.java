@@ -0,0 +1,264 @@
+/*
+ * Copyright 2018 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.couchbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.couchbase.client.java.AsyncBucket;
+import com.couchbase.client.java.document.JsonDocument;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.subjects.PublishSubject;
+
+public class TracingFutureBucketTest {
+
+  private static final Executor DIRECT = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  private final MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager(),
+      MockTracer.Propagator.TEXT_MAP);
+  private final AsyncBucket delegate = mock(AsyncBucket.class);
+  private TracingFutureBucket bucket;
+
+  @Before
+  public void before() {
+    mockTracer.reset();
+    bucket = new TracingFutureBucket(delegate, new TracingHelper(mockTracer, false));
+  }
+
+  @Test
+  public void get() throws Exception {
+    JsonDocument document = JsonDocument.create("id");
+    PublishSubject<JsonDocument> subject = PublishSubject.create();
+    when(delegate.get("id")).thenReturn(subject);
+
+    TracingFuture<JsonDocument> future = bucket.get("id");
+    final AtomicInteger finishedOnComplete = new AtomicInteger(-1);
+    future.addListener(new Runnable() {
+      @Override
+      public void run() {
+        finishedOnComplete.set(mockTracer.finishedSpans().size());
+      }
+    }, DIRECT);
+    assertFalse(future.isDone());
+
+    subject.onNext(document);
+    subject.onCompleted();
+
+    assertTrue(future.isDone());
+    assertSame(document, future.get());
+    assertEquals(1, finishedOnComplete.get());
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(1, spans.size());
+    assertEquals("get", spans.get(0).operationName());
+    assertEquals("id", spans.get(0).tags().get("id"));
+  }
+
+  @Test
+  public void concurrentWaiters() throws Exception {
+    JsonDocument document = JsonDocument.create("id");
+    PublishSubject<JsonDocument> subject = PublishSubject.create();
+    when(delegate.get("id")).thenReturn(subject);
+    final TracingFuture<JsonDocument> future = bucket.get("id");
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<JsonDocument>> waiters = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        waiters.add(executor.submit(new Callable<JsonDocument>() {
+          @Override
+          public JsonDocument call() throws Exception {
+            return future.get();
+          }
+        }));
+      }
+      subject.onNext(document);
+      subject.onCompleted();
+
+      for (Future<JsonDocument> waiter : waiters) {
+        assertSame(document, waiter.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Blocks thousands of virtual threads on one future while they also go through the statement
+   * cache, and fails if JFR reports any of them parking while pinned to its carrier. Runs on JDK
+   * 21 and later only; the project compiles for Java 7, so the executor and the recording are
+   * created reflectively.
+   */
+  @Test
+  public void virtualThreadWaiters() throws Exception {
+    ExecutorService executor;
+    try {
+      executor = (ExecutorService) Executors.class
+          .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException e) {
+      Assume.assumeNoException(e);
+      return;
+    }
+    JsonDocument document = JsonDocument.create("id");
+    PublishSubject<JsonDocument> subject = PublishSubject.create();
+    when(delegate.get("id")).thenReturn(subject);
+    final TracingFuture<JsonDocument> future = bucket.get("id");
+    final StatementCache statementCache = new StatementCache(16);
+
+    Object recording = startRecording(PINNED_EVENT);
+    try {
+      List<Future<JsonDocument>> waiters = new ArrayList<>();
+      for (int i = 0; i < 10000; i++) {
+        final int n = i;
+        waiters.add(executor.submit(new Callable<JsonDocument>() {
+          @Override
+          public JsonDocument call() throws Exception {
+            statementCache.fingerprint("SELECT * FROM bucket WHERE id = " + (n % 64));
+            return future.get();
+          }
+        }));
+      }
+      subject.onNext(document);
+      subject.onCompleted();
+
+      for (Future<JsonDocument> waiter : waiters) {
+        assertSame(document, waiter.get(30, TimeUnit.SECONDS));
+      }
+      assertEquals(0, stopRecording(recording, PINNED_EVENT));
+    } finally {
+      executor.shutdownNow();
+      recording.getClass().getMethod("close").invoke(recording);
+    }
+  }
+
+  /**
+   * Starts a JFR recording of the event without threshold, so every occurrence is recorded.
+   */
+  private static Object startRecording(String event) throws Exception {
+    Object recording = Class.forName("jdk.jfr.Recording").getConstructor().newInstance();
+    Object settings = recording.getClass().getMethod("enable", String.class)
+        .invoke(recording, event);
+    Class<?> duration = Class.forName("java.time.Duration");
+    Class.forName("jdk.jfr.EventSettings").getMethod("withThreshold", duration)
+        .invoke(settings, duration.getField("ZERO").get(null));
+    recording.getClass().getMethod("start").invoke(recording);
+    return recording;
+  }
+
+  /**
+   * Stops the recording and returns how often the event occurred.
+   */
+  private static int stopRecording(Object recording, String event) throws Exception {
+    recording.getClass().getMethod("stop").invoke(recording);
+    Path file = Files.createTempFile("pinned", ".jfr");
+    try {
+      recording.getClass().getMethod("dump", Path.class).invoke(recording, file);
+      List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+          .getMethod("readAllEvents", Path.class).invoke(null, file);
+      int count = 0;
+      for (Object recorded : events) {
+        Object type = recorded.getClass().getMethod("getEventType").invoke(recorded);
+        if (event.equals(type.getClass().getMethod("getName").invoke(type))) {
+          count++;
+        }
+      }
+      return count;
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void missing() throws Exception {
+    when(delegate.get("id")).thenReturn(Observable.<JsonDocument>empty());
+
+    assertNull(bucket.get("id").get(1, TimeUnit.SECONDS));
+    assertEquals(1, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void error() throws Exception {
+    IllegalStateException exception = new IllegalStateException();
+    when(delegate.remove("id")).thenReturn(Observable.<JsonDocument>error(exception));
+
+    TracingFuture<JsonDocument> future = bucket.remove("id");
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertSame(exception, e.getCause());
+    }
+
+    List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(1, spans.size());
+    assertEquals(Boolean.TRUE, spans.get(0).tags().get(Tags.ERROR.getKey()));
+  }
+
+  @Test
+  public void cancel() throws Exception {
+    when(delegate.get("id")).thenReturn(PublishSubject.<JsonDocument>create());
+
+    TracingFuture<JsonDocument> future = bucket.get("id");
+    try {
+      future.get(10, TimeUnit.MILLISECONDS);
+      fail();
+    } catch (TimeoutException expected) {
+    }
+    assertEquals(0, mockTracer.finishedSpans().size());
+
+    assertTrue(future.cancel(false));
+    assertTrue(future.isCancelled());
+    assertFalse(future.cancel(false));
+    assertEquals(1, mockTracer.finishedSpans().size());
+    try {
+      future.get();
+      fail();
+    } catch (CancellationException expected) {
+    }
+  }
+}